@@ -0,0 +1,174 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ---------------- Ballot model ----------------
+// All positions that have candidates, with their candidates, loaded in one query.
+// Positions are keyed by id and candidates by their slot within the position, which is
+// what a cast ballot stores (BallotRecord). A Ballot is immutable and shared by every voter session until an admin changes
+// candidates or positions (which calls Ballot.invalidate()).
+final class Ballot {
+    // one selectable candidate on the ballot
+    static final class Choice {
+        final int candidateId;
+        final int positionId;
+        final int slot;
+        final String name;
+        final String symbol;
+        final int age;
+
+        Choice(int candidateId, int positionId, int slot, String name, String symbol, int age) {
+            this.candidateId = candidateId;
+            this.positionId = positionId;
+            this.slot = slot;
+            this.name = name;
+            this.symbol = symbol;
+            this.age = age;
+        }
+    }
+
+    // one position and the candidates standing for it
+    static final class Race {
+        final int positionId;
+        final String position;
+        final List<Choice> choices;
+
+        Race(int positionId, String position, List<Choice> choices) {
+            this.positionId = positionId;
+            this.position = position;
+            this.choices = Collections.unmodifiableList(choices);
+        }
+    }
+
+    private static final AtomicLong generation = new AtomicLong();
+    private static volatile Ballot current;
+
+    final long version;
+    final List<Race> races;
+    // record width: the highest position id on the ballot
+    final int width;
+    private final Map<Integer, Choice> byCandidate = new HashMap<>();
+    private final Map<Integer, Choice> bySlot = new HashMap<>();
+
+    private Ballot(long version, List<Race> races) {
+        this.version = version;
+        this.races = Collections.unmodifiableList(races);
+        int w = 0;
+        for (Race r : races) {
+            w = Math.max(w, r.positionId);
+            for (Choice c : r.choices) {
+                byCandidate.put(c.candidateId, c);
+                bySlot.put(BallotRecord.key(c.positionId, c.slot), c);
+            }
+        }
+        this.width = w;
+    }
+
+    // A ballot received from the vote server (see VotingClient).
+    static Ballot of(long version, List<Race> races) {
+        return new Ballot(version, races);
+    }
+
+    public boolean isEmpty() { return races.isEmpty(); }
+
+    // An empty record as wide as this ballot.
+    public BallotRecord newRecord() {
+        return new BallotRecord(width);
+    }
+
+    // Packs candidate ids into a record; null unless every id is a candidate on this
+    // ballot and no position is voted twice.
+    public BallotRecord encode(int[] candidateIds) {
+        BallotRecord record = newRecord();
+        for (int cid : candidateIds) {
+            Choice c = byCandidate.get(cid);
+            if (c == null || record.slot(c.positionId) != 0) return null;
+            record.set(c.positionId, c.slot);
+        }
+        return record;
+    }
+
+    // The candidate ids a record selects, in position order; null if any slot is not on
+    // this ballot (a candidate deleted since the voter's ballot was built).
+    public int[] decode(BallotRecord record) {
+        int[] ids = new int[record.count()];
+        int n = 0;
+        for (int p = 1; p <= record.width(); p++) {
+            int slot = record.slot(p);
+            if (slot == 0) continue;
+            Choice c = bySlot.get(BallotRecord.key(p, slot));
+            if (c == null) return null;
+            ids[n++] = c.candidateId;
+        }
+        return ids;
+    }
+
+    // Same positions and candidates in the same order, whatever the version: ballots fetched
+    // from the vote server are new objects (and its versions restart with the server).
+    public boolean sameAs(Ballot other) {
+        if (other == this) return true;
+        if (other == null || other.races.size() != races.size()) return false;
+        for (int r = 0; r < races.size(); r++) {
+            Race a = races.get(r), b = other.races.get(r);
+            if (a.positionId != b.positionId || !a.position.equals(b.position) || a.choices.size() != b.choices.size()) return false;
+            for (int c = 0; c < a.choices.size(); c++) {
+                Choice x = a.choices.get(c), y = b.choices.get(c);
+                if (x.candidateId != y.candidateId || x.slot != y.slot || x.age != y.age
+                        || !x.name.equals(y.name) || !x.symbol.equals(y.symbol)) return false;
+            }
+        }
+        return true;
+    }
+
+    // The shared ballot for the current election state, built on first use.
+    static Ballot current() throws SQLException, ClassNotFoundException {
+        Ballot b = current;
+        if (b != null) return b;
+        synchronized (Ballot.class) {
+            b = current;
+            if (b != null) return b;
+            long gen = generation.get();
+            b = load(gen);
+            // an admin edit that raced with the load must not be masked by a stale ballot
+            if (generation.get() == gen) current = b;
+            return b;
+        }
+    }
+
+    // Called after any change to candidates or positions.
+    static void invalidate() {
+        generation.incrementAndGet();
+        current = null;
+        ResultsAggregator.requestSync();
+    }
+
+    private static Ballot load(long version) throws SQLException, ClassNotFoundException {
+        List<Race> races = new ArrayList<>();
+        try (Metrics.Op op = Metrics.op("ballot.load");
+             Connection con = DBUtil.getConnection()) {
+            try (PreparedStatement ps = Sql.BALLOT_LOAD.prepare(con); ResultSet rs = ps.executeQuery()) {
+                int posId = 0;
+                String pos = null;
+                List<Choice> choices = null;
+                while (rs.next()) {
+                    int p = rs.getInt("position_id");
+                    if (p != posId) {
+                        if (choices != null) races.add(new Race(posId, pos, choices));
+                        posId = p;
+                        pos = rs.getString("position");
+                        choices = new ArrayList<>();
+                    }
+                    choices.add(new Choice(rs.getInt("id"), p, rs.getInt("slot"), rs.getString("name"),
+                            rs.getString("symbol"), rs.getInt("age")));
+                }
+                if (choices != null) races.add(new Race(posId, pos, choices));
+            }
+            op.rows(races.size()).ok();
+        }
+        return new Ballot(version, races);
+    }
+}
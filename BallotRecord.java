@@ -0,0 +1,82 @@
+import java.util.Arrays;
+
+// ---------------- Packed ballot ----------------
+// A cast ballot as one fixed-width byte string: byte i holds the slot of the candidate
+// chosen for position id i + 1, or 0 if that position was left blank. A slot is the
+// candidate's number within its position (candidates.slot, 1..255), handed out when the
+// candidate is added and never reused, so a stored record decodes the same way for as long
+// as the ledger is kept. A ballot is one ledger row of a few bytes instead of one row (and a
+// 36-character key) per selection.
+final class BallotRecord {
+    static final int MAX_SLOT = 255;
+    static final int MAX_POSITIONS = 1024;   // width of ballots.choices
+
+    private final byte[] slots;
+
+    BallotRecord(int width) {
+        if (width < 0 || width > MAX_POSITIONS) throw new IllegalArgumentException("Ballot width " + width);
+        this.slots = new byte[width];
+    }
+
+    private BallotRecord(byte[] slots) {
+        this.slots = slots;
+    }
+
+    // A record read back from ballots.choices.
+    static BallotRecord of(byte[] stored) {
+        if (stored.length > MAX_POSITIONS) throw new IllegalArgumentException("Ballot width " + stored.length);
+        return new BallotRecord(stored.clone());
+    }
+
+    // One slot per position id, as sent by the vote client.
+    static BallotRecord fromArray(int[] slotByPosition) {
+        BallotRecord r = new BallotRecord(slotByPosition.length);
+        for (int i = 0; i < slotByPosition.length; i++) r.set(i + 1, slotByPosition[i]);
+        return r;
+    }
+
+    int width() { return slots.length; }
+
+    // 0 if nothing was chosen for the position (or it is past the end of the record)
+    int slot(int positionId) {
+        int i = positionId - 1;
+        return i >= 0 && i < slots.length ? slots[i] & 0xff : 0;
+    }
+
+    void set(int positionId, int slot) {
+        if (positionId < 1 || positionId > slots.length) throw new IllegalArgumentException("Position id " + positionId);
+        if (slot < 0 || slot > MAX_SLOT) throw new IllegalArgumentException("Slot " + slot);
+        slots[positionId - 1] = (byte) slot;
+    }
+
+    void clear() {
+        Arrays.fill(slots, (byte) 0);
+    }
+
+    // number of positions with a choice
+    int count() {
+        int n = 0;
+        for (byte b : slots) if (b != 0) n++;
+        return n;
+    }
+
+    boolean isEmpty() { return count() == 0; }
+
+    byte[] toBytes() { return slots.clone(); }
+
+    int[] toArray() {
+        int[] out = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) out[i] = slots[i] & 0xff;
+        return out;
+    }
+
+    // Key of a (position id, slot) pair in the flat tables the decoders use.
+    static int key(int positionId, int slot) {
+        return positionId << 8 | slot;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,96 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// ---------------- Ballot view ----------------
+// The vote dialog's component tree for one ballot: a heading and a radio group per position.
+// It is built once per ballot and reused for every voter; clearSelection() resets it between
+// voters. The selection is kept in selected[race] (the chosen candidate's index within that
+// race, -1 for none), updated by the radio buttons themselves, so reading a ballot is a walk
+// over one int array.
+final class BallotView extends JPanel {
+    private static final long serialVersionUID = 1L;
+    final Ballot ballot;
+    private final int[] selected;
+    private final ButtonGroup[] groups;
+
+    BallotView(Ballot ballot) {
+        this.ballot = ballot;
+        this.selected = new int[ballot.races.size()];
+        this.groups = new ButtonGroup[ballot.races.size()];
+        Arrays.fill(selected, -1);
+
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setBackground(UiTheme.BG_DARK);
+        for (int r = 0; r < ballot.races.size(); r++) {
+            Ballot.Race race = ballot.races.get(r);
+            JLabel posLabel = new JLabel(race.position);
+            posLabel.setFont(UiTheme.BOLD_20);
+            posLabel.setForeground(UiTheme.ACCENT1);
+            add(posLabel);
+
+            ButtonGroup group = new ButtonGroup();
+            JPanel candPanel = new JPanel();
+            candPanel.setLayout(new BoxLayout(candPanel, BoxLayout.Y_AXIS));
+            candPanel.setBackground(UiTheme.BG_DARK);
+            for (int c = 0; c < race.choices.size(); c++) {
+                JRadioButton rb = new JRadioButton(label(race.choices.get(c)));
+                rb.setFont(UiTheme.PLAIN_16);
+                rb.setForeground(Color.WHITE);
+                rb.setBackground(UiTheme.BG_DARK);
+                final int raceIndex = r, choiceIndex = c;
+                rb.addActionListener(e -> selected[raceIndex] = choiceIndex);
+                group.add(rb);
+                candPanel.add(rb);
+            }
+            groups[r] = group;
+            add(candPanel);
+            add(Box.createRigidArea(new Dimension(0, 12)));
+        }
+    }
+
+    private static String label(Ballot.Choice c) {
+        return c.name + " (" + c.symbol + "), Age: " + c.age;
+    }
+
+    // True if this view can be shown for the ballot: the same one, or one with the same content
+    // (a vote server sends a fresh copy with every fetch).
+    boolean shows(Ballot other) {
+        return other == ballot || ballot.sameAs(other);
+    }
+
+    // Ready for the next voter: nothing selected.
+    void clearSelection() {
+        for (ButtonGroup g : groups) g.clearSelection();
+        Arrays.fill(selected, -1);
+    }
+
+    boolean hasSelection() {
+        for (int s : selected) if (s >= 0) return true;
+        return false;
+    }
+
+    // The selection as a packed ballot.
+    BallotRecord toRecord() {
+        BallotRecord record = ballot.newRecord();
+        for (int r = 0; r < selected.length; r++) {
+            if (selected[r] < 0) continue;
+            Ballot.Race race = ballot.races.get(r);
+            record.set(race.positionId, race.choices.get(selected[r]).slot);
+        }
+        return record;
+    }
+
+    // "Position: Candidate (symbol), Age: n" for every position with a choice
+    List<String> summary() {
+        List<String> out = new ArrayList<>();
+        for (int r = 0; r < selected.length; r++) {
+            if (selected[r] < 0) continue;
+            Ballot.Race race = ballot.races.get(r);
+            out.add(race.position + ": " + label(race.choices.get(selected[r])));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,500 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ---------------- Bounded JDBC connection pool ----------------
+// Keeps physical connections open between queries. Callers get a proxy whose close()
+// hands the physical connection back to the pool, so the usual try-with-resources
+// pattern in Admin/Voter/VotingGUI keeps working unchanged.
+//
+// Settings (system properties, defaults in brackets):
+//   voting.pool.min [2]                minimum connections kept open
+//   voting.pool.max [10]               hard upper bound on open connections
+//   voting.pool.maxWaitMs [5000]       how long getConnection() waits before failing
+//   voting.pool.idleTimeoutMs [300000] idle connections above min are closed after this
+//   voting.pool.validateIdleMs [500]   validate on borrow if idle longer than this (0 = always)
+//   voting.pool.leakThresholdMs [60000] report connections held longer than this (0 = off)
+//   voting.pool.leakTrace [false]      also record where each connection was borrowed, so a
+//                                      leak report shows the caller (costs a stack trace per borrow)
+//   voting.pool.stmtCacheSize [64]     prepared statements kept open per connection (0 = off)
+//
+// Statement cache: prepareStatement(sql) on a pooled connection returns a statement kept
+// open on that physical connection, keyed by the SQL text; its close() closes any result set
+// still open, clears the parameters, restores fetch size, max rows and query timeout, and hands
+// it back. So each distinct SQL is parsed (and, with useServerPrepStmts, prepared on the
+// server) once per connection, not once per call. This is the only statement cache: the default
+// MySQL URL leaves Connector/J's cachePrepStmts off while it is on (see DBUtil.getPool), since
+// the driver would otherwise keep a second server-side copy of whatever the pool evicts.
+// Statements listed with prepareOnOpen() are prepared as soon as a connection is opened.
+class ConnectionPool {
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long maxWaitMs;
+    private final long idleTimeoutMs;
+    private final long validateIdleMs;
+    private final long leakThresholdMs;
+    private final boolean leakTrace;
+    private final int stmtCacheSize;
+    private volatile List<String> warmStatements = List.of();
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>(); // guarded by "this"; head = most recently used
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // counters for sizing the pool per station
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong stmtHits = new AtomicLong();
+    private final AtomicLong stmtMisses = new AtomicLong();
+
+    ConnectionPool(String url, String user, String password) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = Math.max(1, Integer.getInteger("voting.pool.max", 10));
+        this.minSize = Math.max(0, Math.min(maxSize, Integer.getInteger("voting.pool.min", 2)));
+        this.maxWaitMs = Long.getLong("voting.pool.maxWaitMs", 5000L);
+        this.idleTimeoutMs = Long.getLong("voting.pool.idleTimeoutMs", 300_000L);
+        this.validateIdleMs = Long.getLong("voting.pool.validateIdleMs", 500L);
+        this.leakThresholdMs = Long.getLong("voting.pool.leakThresholdMs", 60_000L);
+        this.leakTrace = leakThresholdMs > 0 && Boolean.getBoolean("voting.pool.leakTrace");
+        this.stmtCacheSize = statementCacheSize();
+        this.permits = new Semaphore(maxSize, true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "voting-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        // first run tops the pool up to minSize in the background
+        long period = Math.max(1000L, Math.min(30_000L, idleTimeoutMs / 2));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Statements kept open per connection (-Dvoting.pool.stmtCacheSize); 0 = no pool cache.
+    static int statementCacheSize() {
+        return Math.max(0, Integer.getInteger("voting.pool.stmtCacheSize", 64));
+    }
+
+    // SQL to prepare on every connection the pool opens from now on (the hot statements).
+    public void prepareOnOpen(Collection<String> sql) {
+        warmStatements = List.copyOf(sql);
+    }
+
+    // Borrow a connection, waiting up to maxWaitMs for one to become free.
+    public Connection borrow() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        waitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        if (!acquired) {
+            timeoutCount.incrementAndGet();
+            throw new SQLTimeoutException("Timed out after " + maxWaitMs + " ms waiting for a database connection (pool max " + maxSize + ")");
+        }
+
+        try {
+            PooledConnection pc;
+            while ((pc = pollIdle()) != null) {
+                if (isUsable(pc)) break;
+                validationFailures.incrementAndGet();
+                destroy(pc);
+            }
+            if (pc == null) pc = open();
+            pc.borrowedAt = System.currentTimeMillis();
+            pc.borrowSite = leakTrace ? new Throwable("Connection borrowed here") : null;
+            pc.leakReported = false;
+            borrowed.add(pc);
+            borrowCount.incrementAndGet();
+            return pc.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private synchronized PooledConnection pollIdle() {
+        return idle.pollFirst();
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            if (pc.raw.isClosed()) return false;
+            if (System.currentTimeMillis() - pc.lastUsed < validateIdleMs) return true;
+            return pc.raw.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection raw = DriverManager.getConnection(url, user, password);
+        createdCount.incrementAndGet();
+        PooledConnection pc = new PooledConnection(raw);
+        if (stmtCacheSize > 0) {
+            for (String sql : warmStatements) {
+                try {
+                    pc.statement(sql).inUse = false;
+                } catch (SQLException e) {
+                    System.out.println("Could not prepare statement on a new connection: " + e.getMessage());
+                }
+            }
+        }
+        return pc;
+    }
+
+    private void destroy(PooledConnection pc) {
+        destroyedCount.incrementAndGet();
+        // closing the connection closes its cached statements too
+        pc.statements.clear();
+        try { pc.raw.close(); } catch (SQLException ignored) { }
+    }
+
+    // Called by the handle's close(): reset the connection and put it back.
+    private void release(PooledConnection pc, boolean broken) {
+        borrowed.remove(pc);
+        try {
+            if (broken || closed || pc.raw.isClosed()) {
+                destroy(pc);
+                return;
+            }
+            if (!pc.raw.getAutoCommit()) {
+                // an abandoned transaction must not leak into the next borrower
+                pc.raw.rollback();
+                pc.raw.setAutoCommit(true);
+            }
+            pc.reclaimStatements();
+            pc.lastUsed = System.currentTimeMillis();
+            synchronized (this) { idle.addFirst(pc); }
+        } catch (SQLException e) {
+            destroy(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+
+            // evict idle connections above minSize; the tail of the deque is the least recently used
+            synchronized (this) {
+                int total = idle.size() + borrowed.size();
+                Iterator<PooledConnection> it = idle.descendingIterator();
+                while (it.hasNext() && total > minSize) {
+                    PooledConnection pc = it.next();
+                    if (now - pc.lastUsed < idleTimeoutMs) break;
+                    it.remove();
+                    destroy(pc);
+                    total--;
+                }
+            }
+
+            // top up to minSize without blocking borrowers
+            while (!closed && idleCount() + borrowed.size() < minSize && permits.tryAcquire()) {
+                try {
+                    PooledConnection pc = open();
+                    pc.lastUsed = System.currentTimeMillis();
+                    synchronized (this) { idle.addLast(pc); }
+                } catch (SQLException e) {
+                    System.out.println("Connection pool warm-up failed: " + e.getMessage());
+                    break;
+                } finally {
+                    permits.release();
+                }
+            }
+
+            // leak detection
+            if (leakThresholdMs > 0) {
+                for (PooledConnection pc : borrowed) {
+                    if (!pc.leakReported && now - pc.borrowedAt > leakThresholdMs) {
+                        pc.leakReported = true;
+                        leakCount.incrementAndGet();
+                        System.out.println("Possible connection leak: held for " + (now - pc.borrowedAt) + " ms"
+                                + (pc.borrowSite == null ? " (-Dvoting.pool.leakTrace=true shows where it was borrowed)" : ""));
+                        if (pc.borrowSite != null) pc.borrowSite.printStackTrace();
+                    }
+                }
+            }
+        } catch (Exception e) { e.printStackTrace(); }
+    }
+
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (this) {
+            for (PooledConnection pc : idle) destroy(pc);
+            idle.clear();
+        }
+    }
+
+    // ---------------- Counters ----------------
+    public long getBorrowCount() { return borrowCount.get(); }
+    public long getTimeoutCount() { return timeoutCount.get(); }
+    public long getTotalWaitMillis() { return TimeUnit.NANOSECONDS.toMillis(waitNanos.get()); }
+    public long getMaxWaitMillis() { return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()); }
+    public long getCreatedCount() { return createdCount.get(); }
+    public long getDestroyedCount() { return destroyedCount.get(); }
+    public long getValidationFailures() { return validationFailures.get(); }
+    public long getLeakCount() { return leakCount.get(); }
+    public long getStatementHits() { return stmtHits.get(); }
+    public long getStatementMisses() { return stmtMisses.get(); }
+    public int getActiveCount() { return borrowed.size(); }
+    public synchronized int idleCount() { return idle.size(); }
+    public int getMaxSize() { return maxSize; }
+
+    @Override
+    public String toString() {
+        long borrows = getBorrowCount();
+        return "pool[active=" + getActiveCount() + ", idle=" + idleCount() + ", max=" + maxSize
+                + ", borrows=" + borrows + ", timeouts=" + getTimeoutCount()
+                + ", avgWaitMs=" + (borrows == 0 ? 0 : getTotalWaitMillis() / (double) borrows)
+                + ", maxWaitMs=" + getMaxWaitMillis()
+                + ", created=" + getCreatedCount() + ", destroyed=" + getDestroyedCount()
+                + ", validationFailures=" + getValidationFailures() + ", leaks=" + getLeakCount()
+                + ", stmtHits=" + getStatementHits() + ", stmtMisses=" + getStatementMisses() + "]";
+    }
+
+    // ---------------- Pooled physical connection ----------------
+    private final class PooledConnection {
+        final Connection raw;
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile long borrowedAt;
+        volatile Throwable borrowSite;
+        volatile boolean leakReported;
+
+        // open statements by SQL text, least recently used first; only touched by the borrower
+        // (or by the pool while the connection is idle)
+        final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+        PooledConnection(Connection raw) { this.raw = raw; }
+
+        // A fresh handle per borrow, so a stale reference cannot touch the next borrower's session.
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Handle(this));
+        }
+
+        // The cached statement for sql, prepared on first use and marked in use;
+        // null if it is already in use (the same SQL prepared twice at once).
+        CachedStatement statement(String sql) throws SQLException {
+            CachedStatement cs = statements.get(sql);
+            if (cs != null) {
+                if (cs.inUse) return null;
+                stmtHits.incrementAndGet();
+            } else {
+                stmtMisses.incrementAndGet();
+                cs = new CachedStatement(raw.prepareStatement(sql));
+                statements.put(sql, cs);
+                evictStatements();
+            }
+            cs.inUse = true;
+            return cs;
+        }
+
+        private void evictStatements() {
+            Iterator<CachedStatement> it = statements.values().iterator();
+            while (statements.size() > stmtCacheSize && it.hasNext()) {
+                CachedStatement cs = it.next();
+                if (cs.inUse) continue;
+                it.remove();
+                try { cs.raw.close(); } catch (SQLException ignored) { }
+            }
+        }
+
+        // On return to the pool: statements the borrower never closed become free again.
+        void reclaimStatements() {
+            Iterator<CachedStatement> it = statements.values().iterator();
+            while (it.hasNext()) {
+                CachedStatement cs = it.next();
+                if (!cs.inUse) continue;
+                if (!cs.reset()) it.remove();
+            }
+        }
+    }
+
+    private static final class CachedStatement {
+        final PreparedStatement raw;
+        // settings as prepared; a borrower may change them, the next one must not inherit that
+        final int fetchSize;
+        final int maxRows;
+        final int queryTimeout;
+        // result sets handed to the current borrower and possibly still open
+        final ArrayList<ResultSet> results = new ArrayList<>(2);
+        boolean inUse;
+
+        CachedStatement(PreparedStatement raw) throws SQLException {
+            this.raw = raw;
+            this.fetchSize = raw.getFetchSize();
+            this.maxRows = raw.getMaxRows();
+            this.queryTimeout = raw.getQueryTimeout();
+        }
+
+        void opened(ResultSet rs) throws SQLException {
+            // re-executing closes the previous result set, so only a few are ever tracked
+            results.removeIf(r -> {
+                try { return r.isClosed(); } catch (SQLException e) { return true; }
+            });
+            results.add(rs);
+        }
+
+        // clears what the last user left behind; false if the statement is no longer usable
+        boolean reset() {
+            inUse = false;
+            try {
+                // an unclosed (e.g. streaming) result set would hold its cursor for the next borrower
+                for (ResultSet rs : results) rs.close();
+                results.clear();
+                raw.clearParameters();
+                raw.clearBatch();
+                // max rows first: a fetch size above the current max rows may be rejected
+                if (raw.getMaxRows() != maxRows) raw.setMaxRows(maxRows);
+                if (raw.getFetchSize() != fetchSize) raw.setFetchSize(fetchSize);
+                if (raw.getQueryTimeout() != queryTimeout) raw.setQueryTimeout(queryTimeout);
+                return true;
+            } catch (SQLException e) {
+                try { raw.close(); } catch (SQLException ignored) { }
+                return false;
+            }
+        }
+    }
+
+    // SQLState class 08 = connection exception; never hand this connection out again
+    private static boolean isConnectionError(Throwable t) {
+        if (!(t instanceof SQLException)) return false;
+        String state = ((SQLException) t).getSQLState();
+        return state != null && state.startsWith("08");
+    }
+
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean returned;
+        private boolean broken;
+
+        Handle(PooledConnection pc) { this.pc = pc; }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(pc, broken);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pc.raw.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pc.raw;
+                default:
+                    break;
+            }
+            if (returned) throw new SQLException("Connection has already been returned to the pool");
+            try {
+                if (stmtCacheSize > 0 && name.equals("prepareStatement") && args.length == 1) {
+                    CachedStatement cs = pc.statement((String) args[0]);
+                    if (cs != null) {
+                        return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                new Class<?>[]{PreparedStatement.class}, new StatementHandle(this, (Connection) proxy, cs));
+                    }
+                }
+                return method.invoke(pc.raw, args);
+            } catch (InvocationTargetException ite) {
+                Throwable cause = ite.getCause();
+                if (isConnectionError(cause)) broken = true;
+                throw cause;
+            } catch (SQLException e) {
+                if (isConnectionError(e)) broken = true;
+                throw e;
+            }
+        }
+    }
+
+    // A borrower's view of a cached statement; close() returns it to the connection's cache.
+    private static final class StatementHandle implements InvocationHandler {
+        private final Handle owner;
+        private final Connection connection;
+        private final CachedStatement cs;
+        private boolean closed;
+
+        StatementHandle(Handle owner, Connection connection, CachedStatement cs) {
+            this.owner = owner;
+            this.connection = connection;
+            this.cs = cs;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        if (!owner.returned && !cs.reset()) owner.pc.statements.values().remove(cs);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || owner.returned || cs.raw.isClosed();
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached" + cs.raw;
+                default:
+                    break;
+            }
+            if (closed || owner.returned) throw new SQLException("Statement is closed");
+            try {
+                Object result = method.invoke(cs.raw, args);
+                if (result instanceof ResultSet) cs.opened((ResultSet) result);
+                return result;
+            } catch (InvocationTargetException ite) {
+                Throwable cause = ite.getCause();
+                if (isConnectionError(cause)) owner.broken = true;
+                throw cause;
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// ---------------- Minimal JSON ----------------
+// Just enough JSON for the vote server and its clients, so the project stays dependency-free.
+// Objects map to LinkedHashMap<String,Object>, arrays to ArrayList<Object>, numbers to Long
+// (or Double when they have a fraction/exponent), plus String, Boolean and null.
+// Nesting is limited to MAX_DEPTH, so hostile input fails as bad JSON instead of overflowing
+// the stack of the request thread.
+final class Json {
+    static final int MAX_DEPTH = 64;
+
+    private final String src;
+    private int pos;
+    private int depth;
+
+    private Json(String src) {
+        this.src = src;
+    }
+
+    static Object parse(String text) {
+        Json p = new Json(text);
+        p.skipWs();
+        Object v = p.value();
+        p.skipWs();
+        if (p.pos != p.src.length()) throw p.error("trailing characters");
+        return v;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> parseObject(String text) {
+        Object v = parse(text);
+        if (!(v instanceof Map)) throw new IllegalArgumentException("JSON object expected");
+        return (Map<String, Object>) v;
+    }
+
+    // ---------------- Writing ----------------
+    static String write(Object v) {
+        StringBuilder sb = new StringBuilder();
+        write(sb, v);
+        return sb.toString();
+    }
+
+    private static void write(StringBuilder sb, Object v) {
+        if (v == null) {
+            sb.append("null");
+        } else if (v instanceof String) {
+            quote(sb, (String) v);
+        } else if (v instanceof Number || v instanceof Boolean) {
+            sb.append(v);
+        } else if (v instanceof Map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) v).entrySet()) {
+                if (!first) sb.append(',');
+                first = false;
+                quote(sb, String.valueOf(e.getKey()));
+                sb.append(':');
+                write(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (v instanceof Iterable) {
+            sb.append('[');
+            boolean first = true;
+            for (Object o : (Iterable<?>) v) {
+                if (!first) sb.append(',');
+                first = false;
+                write(sb, o);
+            }
+            sb.append(']');
+        } else if (v instanceof int[]) {
+            sb.append('[');
+            int[] a = (int[]) v;
+            for (int i = 0; i < a.length; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(a[i]);
+            }
+            sb.append(']');
+        } else {
+            quote(sb, v.toString());
+        }
+    }
+
+    private static void quote(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    // ---------------- Small accessors for handlers ----------------
+    static String str(Map<String, Object> m, String key) {
+        Object v = m.get(key);
+        return v == null ? null : v.toString();
+    }
+
+    static long num(Map<String, Object> m, String key, long def) {
+        Object v = m.get(key);
+        if (v instanceof Number) return ((Number) v).longValue();
+        if (v instanceof String) {
+            try { return Long.parseLong((String) v); } catch (NumberFormatException e) { return def; }
+        }
+        return def;
+    }
+
+    static int[] intArray(Object v) {
+        if (!(v instanceof List)) return new int[0];
+        List<?> list = (List<?>) v;
+        int[] a = new int[list.size()];
+        for (int i = 0; i < a.length; i++) a[i] = ((Number) list.get(i)).intValue();
+        return a;
+    }
+
+    // ---------------- Parsing ----------------
+    private Object value() {
+        if (pos >= src.length()) throw error("unexpected end");
+        char c = src.charAt(pos);
+        switch (c) {
+            case '{': return object();
+            case '[': return array();
+            case '"': return string();
+            case 't': literal("true"); return Boolean.TRUE;
+            case 'f': literal("false"); return Boolean.FALSE;
+            case 'n': literal("null"); return null;
+            default: return number();
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        enter();
+        pos++;
+        skipWs();
+        if (peek('}')) { pos++; depth--; return m; }
+        while (true) {
+            skipWs();
+            if (!peek('"')) throw error("object key expected");
+            String key = string();
+            skipWs();
+            expect(':');
+            skipWs();
+            m.put(key, value());
+            skipWs();
+            if (peek(',')) { pos++; continue; }
+            expect('}');
+            depth--;
+            return m;
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> list = new ArrayList<>();
+        enter();
+        pos++;
+        skipWs();
+        if (peek(']')) { pos++; depth--; return list; }
+        while (true) {
+            skipWs();
+            list.add(value());
+            skipWs();
+            if (peek(',')) { pos++; continue; }
+            expect(']');
+            depth--;
+            return list;
+        }
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH) throw error("nested deeper than " + MAX_DEPTH);
+    }
+
+    private String string() {
+        pos++; // opening quote
+        StringBuilder sb = new StringBuilder();
+        while (pos < src.length()) {
+            char c = src.charAt(pos++);
+            if (c == '"') return sb.toString();
+            if (c != '\\') { sb.append(c); continue; }
+            if (pos >= src.length()) break;
+            char e = src.charAt(pos++);
+            switch (e) {
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (pos + 4 > src.length()) throw error("bad unicode escape");
+                    sb.append((char) Integer.parseInt(src.substring(pos, pos + 4), 16));
+                    pos += 4;
+                    break;
+                default: sb.append(e);
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    private Number number() {
+        int start = pos;
+        boolean fraction = false;
+        while (pos < src.length()) {
+            char c = src.charAt(pos);
+            if (c == '.' || c == 'e' || c == 'E') fraction = true;
+            else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) break;
+            pos++;
+        }
+        String n = src.substring(start, pos);
+        if (n.isEmpty()) throw error("value expected");
+        try {
+            return fraction ? (Number) Double.parseDouble(n) : (Number) Long.parseLong(n);
+        } catch (NumberFormatException e) {
+            throw error("bad number " + n);
+        }
+    }
+
+    private void literal(String word) {
+        if (!src.startsWith(word, pos)) throw error(word + " expected");
+        pos += word.length();
+    }
+
+    private boolean peek(char c) {
+        return pos < src.length() && src.charAt(pos) == c;
+    }
+
+    private void expect(char c) {
+        if (!peek(c)) throw error("'" + c + "' expected");
+        pos++;
+    }
+
+    private void skipWs() {
+        while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+    }
+
+    private IllegalArgumentException error(String msg) {
+        return new IllegalArgumentException("Bad JSON at " + pos + ": " + msg);
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// ---------------- Latency histogram ----------------
+// Fixed-size, lock-free histogram of nanosecond latencies with about 1% relative precision:
+// values are bucketed by their top 7 significant bits (log-linear, like HdrHistogram), so
+// memory stays at ~30 KB no matter how many samples are recorded. Safe to record from many
+// threads at once; percentiles read while recording are approximate.
+final class LatencyHistogram {
+    private static final int SUB_BITS = 7;
+    private static final int SUB = 1 << SUB_BITS;          // exact buckets for 0..127 ns
+    private static final int HALF = SUB >> 1;
+    private static final int BUCKETS = SUB + (63 - SUB_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(index(nanos));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        count.addAndGet(other.count.get());
+        sum.addAndGet(other.sum.get());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    long count() { return count.get(); }
+
+    long max() { return max.get(); }
+
+    double mean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    // Value at percentile p (0..1, nearest rank), in nanos; the middle of its bucket.
+    long percentile(double p) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(max.get(), (lowerBound(i) + upperBound(i)) / 2);
+        }
+        return max.get();
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    // ---------------- Buckets ----------------
+    // 0..SUB-1 map to themselves; above that, each power of two is split into HALF buckets.
+    static int index(long v) {
+        if (v < SUB) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - (SUB_BITS - 1);
+        return SUB + (shift - 1) * HALF + (int) ((v >>> shift) - HALF);
+    }
+
+    private static long lowerBound(int i) {
+        if (i < SUB) return i;
+        int shift = (i - SUB) / HALF + 1;
+        return ((long) ((i - SUB) % HALF) + HALF) << shift;
+    }
+
+    private static long upperBound(int i) {
+        if (i < SUB) return i;
+        int shift = (i - SUB) / HALF + 1;
+        return lowerBound(i) + (1L << shift) - 1;
+    }
+}
@@ -9,6 +9,7 @@ MYSQL_USER="root"
 MYSQL_PASS="password"                #change to database password
 MYSQL_DB="votingdb"
 SQL_FILE="./votingdb.sql"
+CDS_ARCHIVE="./voting-cds.jsa"
 
 # --- Start MySQL service (systemd-based distros) ---
 echo "Starting MySQL service..."
@@ -34,15 +35,36 @@ else
     echo "Warning: No $SQL_FILE found, skipping DB initialization."
 fi
 
-# --- Compile Java files ---
-echo "Compiling Java files..."
-javac -cp ".:$MYSQL_JAR" *.java
-if [ $? -ne 0 ]; then
-    echo "Compilation failed!"
-    exit 1
+# --- Compile Java files (only when a source changed since the last build) ---
+APP_JAR="./voting.jar"
+if [ ! -f "$APP_JAR" ] || [ -n "$(find . -maxdepth 1 -name '*.java' -newer "$APP_JAR")" ]; then
+    echo "Compiling Java files..."
+    mkdir -p ./classes
+    javac -d ./classes -cp ".:$MYSQL_JAR" *.java
+    if [ $? -ne 0 ]; then
+        echo "Compilation failed!"
+        exit 1
+    fi
+    # class-data sharing only archives classes loaded from a JAR, not from a directory
+    jar cf "$APP_JAR" -C ./classes .
+    rm -f "$CDS_ARCHIVE"
+    echo "Compilation successful."
+fi
+
+# --- Class-data sharing archive (faster restarts, JDK 13+) ---
+# A training run opens every screen, warms up the database connection and exits; the JVM
+# then writes the classes it loaded to the archive, which later starts map instead of
+# loading and verifying them again. Rebuilt after every compile; delete it to retrain.
+# Set USE_CDS=0 to start without it.
+if [ "$USE_CDS" != "0" ]; then
+    if [ ! -f "$CDS_ARCHIVE" ]; then
+        echo "Recording class-data sharing archive (training run)..."
+        java -XX:ArchiveClassesAtExit="$CDS_ARCHIVE" -Dvoting.ui.train=true -cp "$APP_JAR:$MYSQL_JAR" VotingGUI
+    fi
+    # an archive from another JDK or classpath is ignored with a warning, not fatal
+    [ -f "$CDS_ARCHIVE" ] && JAVA_OPTS="$JAVA_OPTS -XX:SharedArchiveFile=$CDS_ARCHIVE -Xshare:auto"
 fi
-echo "Compilation successful."
 
 # --- Launch GUI ---
 echo "Launching Voting System GUI..."
-java -cp ".:$MYSQL_JAR" VotingGUI
+java $JAVA_OPTS -cp "$APP_JAR:$MYSQL_JAR" VotingGUI
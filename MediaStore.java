@@ -0,0 +1,326 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// ---------------- Candidate media store ----------------
+// Optional on-disk store for candidate photos (-Dvoting.media.dir=/path). Files are named by
+// the SHA-256 of their content (<dir>/ab/cd/abcd...), so identical images are stored once and
+// candidates.photo_hash is all the database keeps. Uploads are copied with FileChannel.transferTo
+// and hashed through memory-mapped windows, so storing a file never holds it as one heap array.
+// Reads are not streamed end to end: every caller decodes the photo into an image, which needs
+// the whole file anyway, so read() returns a byte[]. That is fine because what gets stored is
+// bounded: PhotoProcessor keeps uploads of at most 2 MB and 1024 px per side and re-encodes
+// anything larger (photos moved in by --migrate keep the size they had in the BLOB). open()
+// streams a stored file for a caller that does not decode it.
+//
+// Moving existing LONGBLOB photos into the store, and removing unreferenced files:
+//   java -Dvoting.media.dir=/path -cp ".:mysql-connector.jar" MediaStore --migrate [--gc]
+final class MediaStore {
+    private static final String DIR = System.getProperty("voting.media.dir");
+    private static volatile MediaStore shared;
+
+    // mapped window size for reads and hashing
+    private static final long WINDOW = 64L << 20;
+    // gc() leaves files younger than this alone: an upload is only referenced once its
+    // candidate row commits, and a running upload still owns its temp file
+    private static final long GC_GRACE_MS = Long.getLong("voting.media.gcGraceMs", 3_600_000L);
+
+    private final Path root;
+
+    MediaStore(Path root) throws IOException {
+        this.root = Files.createDirectories(root);
+    }
+
+    // The store for -Dvoting.media.dir, or null when photos live in the candidates table.
+    static MediaStore shared() {
+        if (DIR == null || DIR.isEmpty()) return null;
+        MediaStore s = shared;
+        if (s == null) {
+            synchronized (MediaStore.class) {
+                s = shared;
+                if (s == null) {
+                    try {
+                        shared = s = new MediaStore(Paths.get(DIR));
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Media store not usable: " + DIR, e);
+                    }
+                }
+            }
+        }
+        return s;
+    }
+
+    Path path(String hash) {
+        if (hash == null || !hash.matches("[0-9a-f]{64}")) throw new IllegalArgumentException("Bad media hash: " + hash);
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    boolean contains(String hash) {
+        return Files.isRegularFile(path(hash));
+    }
+
+    // ---------------- Writes ----------------
+    // Stores a file and returns its hash; an identical file already in the store is reused.
+    String put(File file) throws IOException {
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            String hash = hash(in);
+            if (contains(hash)) return reuse(hash);
+            Path tmp = tempFile();
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                long size = in.size();
+                for (long pos = 0; pos < size; ) pos += in.transferTo(pos, size - pos, out);
+                out.force(true);
+            }
+            return publish(tmp, hash);
+        }
+    }
+
+    String put(byte[] bytes) throws IOException {
+        String hash = hex(digest().digest(bytes));
+        if (contains(hash)) return reuse(hash);
+        Path tmp = tempFile();
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            while (buf.hasRemaining()) out.write(buf);
+            out.force(true);
+        }
+        return publish(tmp, hash);
+    }
+
+    // Copies a stream (e.g. a BLOB read with getBinaryStream) through a temp file, hashing on the way.
+    String put(InputStream in) throws IOException {
+        MessageDigest md = digest();
+        Path tmp = tempFile();
+        try (ReadableByteChannel src = Channels.newChannel(in);
+             FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16);
+            while (src.read(buf) >= 0) {
+                buf.flip();
+                md.update(buf.duplicate());
+                while (buf.hasRemaining()) out.write(buf);
+                buf.clear();
+            }
+            out.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        String hash = hex(md.digest());
+        if (contains(hash)) {
+            Files.delete(tmp);
+            return reuse(hash);
+        }
+        return publish(tmp, hash);
+    }
+
+    private Path tempFile() throws IOException {
+        return Files.createTempFile(root, "upload-", ".tmp");
+    }
+
+    // atomic rename into place; losing a race against the same content is fine
+    private String publish(Path tmp, String hash) throws IOException {
+        Path target = path(hash);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // stored concurrently by someone else
+            return reuse(hash);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return hash;
+    }
+
+    // An existing file is about to be referenced again (it may be unreferenced right now, e.g.
+    // after its candidate was deleted): restart its gc grace period.
+    private String reuse(String hash) throws IOException {
+        try {
+            Files.setLastModifiedTime(path(hash), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            throw new IOException("Media file " + hash + " was collected while being reused; upload again", e);
+        }
+        return hash;
+    }
+
+    // ---------------- Reads ----------------
+    // Stream over the stored file, mapped one window at a time.
+    InputStream open(String hash) throws IOException {
+        return new MappedInputStream(FileChannel.open(path(hash), StandardOpenOption.READ));
+    }
+
+    // Whole file as bytes, for image decoding; stored photos are bounded by PhotoProcessor.
+    byte[] read(String hash) throws IOException {
+        try (InputStream in = open(hash)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static final class MappedInputStream extends InputStream {
+        private final FileChannel ch;
+        private final long size;
+        private long next;                  // file offset of the next window
+        private MappedByteBuffer window;
+
+        MappedInputStream(FileChannel ch) throws IOException {
+            this.ch = ch;
+            this.size = ch.size();
+        }
+
+        private boolean fill() throws IOException {
+            if (window != null && window.hasRemaining()) return true;
+            if (next >= size) return false;
+            long len = Math.min(WINDOW, size - next);
+            window = ch.map(FileChannel.MapMode.READ_ONLY, next, len);
+            next += len;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? window.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int n = Math.min(len, window.remaining());
+            window.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            long left = (window != null ? window.remaining() : 0) + (size - next);
+            return (int) Math.min(Integer.MAX_VALUE, left);
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            ch.close();
+        }
+    }
+
+    // ---------------- Hashing ----------------
+    private static String hash(FileChannel ch) throws IOException {
+        MessageDigest md = digest();
+        long size = ch.size();
+        for (long pos = 0; pos < size; pos += WINDOW) {
+            md.update(ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW, size - pos)));
+        }
+        return hex(md.digest());
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] b) {
+        StringBuilder sb = new StringBuilder(b.length * 2);
+        for (byte x : b) sb.append(Character.forDigit((x >> 4) & 0xf, 16)).append(Character.forDigit(x & 0xf, 16));
+        return sb.toString();
+    }
+
+    // ---------------- Maintenance ----------------
+    // Moves LONGBLOB photos into the store, one row at a time, streaming each BLOB to disk.
+    // Connector/J reads a whole row into memory unless the result set streams (forward-only,
+    // read-only, fetch size Integer.MIN_VALUE), so the photo query asks for that on MySQL.
+    // A streaming result set blocks its connection until it is closed, which it is before the
+    // row's UPDATE runs.
+    int migrate() throws Exception {
+        ArrayList<Integer> ids = new ArrayList<>();
+        try (Connection con = DBUtil.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id FROM candidates WHERE photo IS NOT NULL AND photo_hash IS NULL")) {
+            while (rs.next()) ids.add(rs.getInt(1));
+        }
+        int moved = 0;
+        try (Connection con = DBUtil.getConnection();
+             // not the pool's statement cache: this statement's fetch size must not be shared
+             PreparedStatement sel = con.prepareStatement("SELECT photo FROM candidates WHERE id = ?",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             PreparedStatement upd = con.prepareStatement(
+                     "UPDATE candidates SET photo_hash = ?, photo = NULL WHERE id = ? AND photo_hash IS NULL")) {
+            if (con.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql")) sel.setFetchSize(Integer.MIN_VALUE);
+            for (int id : ids) {
+                sel.setInt(1, id);
+                String hash = null;
+                try (ResultSet rs = sel.executeQuery()) {
+                    if (rs.next()) {
+                        try (InputStream in = rs.getBinaryStream(1)) {
+                            if (in != null) hash = put(in);
+                        }
+                    }
+                } catch (IOException e) {
+                    System.out.println("Candidate " + id + ": " + e.getMessage());
+                }
+                if (hash == null) continue;
+                upd.setString(1, hash);
+                upd.setInt(2, id);
+                moved += upd.executeUpdate();
+            }
+        }
+        return moved;
+    }
+
+    // Deletes stored files no candidate refers to any more (after edits and deletions), once
+    // they are older than the grace period (-Dvoting.media.gcGraceMs, default one hour).
+    int gc() throws Exception {
+        Set<String> live = new HashSet<>();
+        try (Connection con = DBUtil.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT DISTINCT photo_hash FROM candidates WHERE photo_hash IS NOT NULL")) {
+            while (rs.next()) live.add(rs.getString(1));
+        }
+        int removed = 0;
+        long cutoff = System.currentTimeMillis() - GC_GRACE_MS;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String name = p.getFileName().toString();
+                if (!Files.isRegularFile(p) || live.contains(name)) continue;
+                if (Files.getLastModifiedTime(p).toMillis() >= cutoff) continue;
+                if (name.matches("[0-9a-f]{64}") || name.startsWith("upload-")) {
+                    Files.deleteIfExists(p);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        MediaStore store = shared();
+        if (store == null) {
+            System.out.println("Set -Dvoting.media.dir to the media store directory.");
+            return;
+        }
+        boolean migrate = false, gc = false;
+        for (String a : args) {
+            if (a.equals("--migrate")) migrate = true;
+            else if (a.equals("--gc")) gc = true;
+        }
+        if (!migrate && !gc) migrate = true;
+        if (migrate) System.out.println("Moved " + store.migrate() + " photo(s) into " + store.root);
+        if (gc) System.out.println("Removed " + store.gc() + " unreferenced file(s).");
+    }
+}
@@ -0,0 +1,237 @@
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// ---------------- Operation metrics ----------------
+// Every Admin/Voter data operation and connection borrow is timed:
+//
+//   try (Metrics.Op op = Metrics.op("admin.getAllVoters"); Connection con = ...) {
+//       ...
+//       op.rows(list.size());
+//       op.ok();
+//   }
+//
+// An op that is closed without ok() (an exception, an early error return) counts as failed.
+// Per operation name we keep a LatencyHistogram plus success, failure and row counters; the
+// cost is a couple of atomic adds per call. Ways to look at them, all off by default:
+//   -Dvoting.metrics.dumpSec=60   print a table to stdout every N seconds
+//   -Dvoting.metrics.port=9464    serve GET /metrics (Prometheus text) and /metrics.json on localhost
+//   -Dvoting.metrics.jfr=true     also emit a "voting.DbOperation" JFR event per op, e.g. with
+//                                 -XX:StartFlightRecording=filename=station.jfr
+// The vote server additionally serves the table as JSON at POST /api/admin/metrics.
+final class Metrics {
+    private static final boolean JFR = Boolean.getBoolean("voting.metrics.jfr");
+    private static final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    static {
+        long dumpSec = Long.getLong("voting.metrics.dumpSec", 0L);
+        if (dumpSec > 0) {
+            ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "voting-metrics-dump");
+                t.setDaemon(true);
+                return t;
+            });
+            dumper.scheduleAtFixedRate(() -> System.out.print(table()), dumpSec, dumpSec, TimeUnit.SECONDS);
+        }
+        int port = Integer.getInteger("voting.metrics.port", 0);
+        if (port > 0) {
+            try {
+                serve(port);
+            } catch (IOException e) { e.printStackTrace(); }
+        }
+    }
+
+    private Metrics() { }
+
+    // Counters for one operation name.
+    static final class Timer {
+        final String name;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder ok = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder rows = new LongAdder();
+
+        Timer(String name) { this.name = name; }
+    }
+
+    static Timer timer(String name) {
+        Timer t = timers.get(name);
+        return t != null ? t : timers.computeIfAbsent(name, Timer::new);
+    }
+
+    static Op op(String name) {
+        return new Op(timer(name));
+    }
+
+    // One timed call; close() records it.
+    static final class Op implements AutoCloseable {
+        private final Timer timer;
+        private final long start = System.nanoTime();
+        private final DbOperationEvent event;
+        private boolean ok;
+        private long rows;
+
+        Op(Timer timer) {
+            this.timer = timer;
+            if (JFR) {
+                event = new DbOperationEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+        }
+
+        Op rows(long n) {
+            rows += n;
+            return this;
+        }
+
+        void ok() {
+            ok = true;
+        }
+
+        // marks success and passes the result through: return op.ok(list);
+        <T> T ok(T result) {
+            ok = true;
+            return result;
+        }
+
+        @Override
+        public void close() {
+            timer.latency.record(System.nanoTime() - start);
+            (ok ? timer.ok : timer.failed).increment();
+            if (rows != 0) timer.rows.add(rows);
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.operation = timer.name;
+                    event.success = ok;
+                    event.rows = rows;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    @jdk.jfr.Name("voting.DbOperation")
+    @jdk.jfr.Label("Voting DB Operation")
+    @jdk.jfr.Category("Voting")
+    static final class DbOperationEvent extends jdk.jfr.Event {
+        @jdk.jfr.Label("Operation")
+        String operation;
+        @jdk.jfr.Label("Success")
+        boolean success;
+        @jdk.jfr.Label("Rows")
+        long rows;
+    }
+
+    // ---------------- Output ----------------
+    private static List<Timer> sorted() {
+        return new ArrayList<>(new TreeMap<>(timers).values());
+    }
+
+    static String table() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-36s %9s %7s %10s %8s %8s %8s %8s%n",
+                "Operation (ms)", "ok", "failed", "rows", "p50", "p99", "p99.9", "max"));
+        for (Timer t : sorted()) {
+            LatencyHistogram h = t.latency;
+            sb.append(String.format("%-36s %9d %7d %10d %8.2f %8.2f %8.2f %8.2f%n", t.name, t.ok.sum(), t.failed.sum(),
+                    t.rows.sum(), h.percentile(0.50) / 1e6, h.percentile(0.99) / 1e6, h.percentile(0.999) / 1e6, h.max() / 1e6));
+        }
+        // only a pool that exists: creating one here would connect and migrate from the dump thread
+        ConnectionPool pool = DBUtil.poolIfStarted();
+        if (pool != null) sb.append(pool).append('\n');
+        return sb.toString();
+    }
+
+    static Map<String, Object> toJson() {
+        Map<String, Object> ops = new LinkedHashMap<>();
+        for (Timer t : sorted()) {
+            LatencyHistogram h = t.latency;
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("ok", t.ok.sum());
+            m.put("failed", t.failed.sum());
+            m.put("rows", t.rows.sum());
+            m.put("meanMs", h.mean() / 1e6);
+            m.put("p50Ms", h.percentile(0.50) / 1e6);
+            m.put("p99Ms", h.percentile(0.99) / 1e6);
+            m.put("p999Ms", h.percentile(0.999) / 1e6);
+            m.put("maxMs", h.max() / 1e6);
+            ops.put(t.name, m);
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("operations", ops);
+        return out;
+    }
+
+    // Prometheus text exposition: a summary per operation plus outcome and row counters.
+    static String prometheus() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# TYPE voting_op_seconds summary\n");
+        for (Timer t : sorted()) {
+            LatencyHistogram h = t.latency;
+            String op = "op=\"" + t.name + "\"";
+            for (double q : new double[] {0.5, 0.99, 0.999}) {
+                sb.append("voting_op_seconds{").append(op).append(",quantile=\"").append(q).append("\"} ")
+                        .append(h.percentile(q) / 1e9).append('\n');
+            }
+            sb.append("voting_op_seconds_count{").append(op).append("} ").append(h.count()).append('\n');
+            sb.append("voting_op_seconds_sum{").append(op).append("} ").append(h.mean() * h.count() / 1e9).append('\n');
+        }
+        sb.append("# TYPE voting_op_total counter\n");
+        for (Timer t : sorted()) {
+            sb.append("voting_op_total{op=\"").append(t.name).append("\",outcome=\"ok\"} ").append(t.ok.sum()).append('\n');
+            sb.append("voting_op_total{op=\"").append(t.name).append("\",outcome=\"failed\"} ").append(t.failed.sum()).append('\n');
+        }
+        sb.append("# TYPE voting_op_rows_total counter\n");
+        for (Timer t : sorted()) {
+            sb.append("voting_op_rows_total{op=\"").append(t.name).append("\"} ").append(t.rows.sum()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // Local-only endpoint, so a station's numbers can be scraped or curl'ed on the machine itself.
+    private static void serve(int port) throws IOException {
+        HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/metrics", ex -> {
+            boolean json = ex.getRequestURI().getPath().equals("/metrics.json");
+            byte[] out = (json ? Json.write(toJson()) : prometheus()).getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", json ? "application/json; charset=utf-8" : "text/plain; version=0.0.4");
+            ex.sendResponseHeaders(200, out.length);
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(out);
+            }
+        });
+        http.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "voting-metrics-http");
+            t.setDaemon(true);
+            return t;
+        }));
+        // the dispatcher thread inherits daemon status from the thread that starts the server,
+        // so start it from a daemon thread: metrics must not keep a finished program alive
+        Thread starter = new Thread(http::start, "voting-metrics-start");
+        starter.setDaemon(true);
+        starter.start();
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("Metrics on http://localhost:" + http.getAddress().getPort() + "/metrics");
+    }
+}
@@ -0,0 +1,122 @@
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import javax.imageio.ImageIO;
+
+// ---------------- Candidate photo thumbnail cache ----------------
+// Candidate queries no longer carry photo bytes; views ask this cache for a decoded,
+// pre-scaled thumbnail by candidate id instead. The cache is an LRU bounded by the
+// decoded pixel size of its entries (-Dvoting.photoCache.maxBytes, default 32 MB).
+class PhotoCache {
+    private static final PhotoCache SHARED = new PhotoCache(Long.getLong("voting.photoCache.maxBytes", 32L << 20));
+
+    // marker for candidates without a (readable) photo, so they are not re-queried on every view
+    private static final BufferedImage NO_PHOTO = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+    private final long maxBytes;
+    private final LinkedHashMap<Long, BufferedImage> entries = new LinkedHashMap<>(64, 0.75f, true); // access order
+    private long usedBytes;
+    private long hits;
+    private long misses;
+
+    PhotoCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    static PhotoCache shared() { return SHARED; }
+
+    // Returns the candidate photo scaled to size x size, or null if the candidate has no photo.
+    // The loader is only called on a miss and runs outside the cache lock.
+    public BufferedImage get(int candidateId, int size, IntFunction<byte[]> loader) {
+        Long key = key(candidateId, size);
+        synchronized (this) {
+            BufferedImage img = entries.get(key);
+            if (img != null) {
+                hits++;
+                return img == NO_PHOTO ? null : img;
+            }
+            misses++;
+        }
+
+        BufferedImage thumb = null;
+        byte[] bytes = loader.apply(candidateId);
+        if (bytes != null && bytes.length > 0) {
+            try {
+                BufferedImage full = ImageIO.read(new ByteArrayInputStream(bytes));
+                // stored thumbnails are already size x size: no scaling pass needed
+                if (full != null) thumb = full.getWidth() == size && full.getHeight() == size ? full : scale(full, size, size);
+            } catch (Exception e) { e.printStackTrace(); }
+        }
+        put(key, thumb != null ? thumb : NO_PHOTO);
+        return thumb;
+    }
+
+    // Drop every cached size for a candidate (after its photo was edited or it was deleted).
+    public synchronized void invalidate(int candidateId) {
+        Iterator<Map.Entry<Long, BufferedImage>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, BufferedImage> e = it.next();
+            if ((int) (e.getKey() >>> 32) == candidateId) {
+                usedBytes -= weight(e.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    public synchronized String stats() {
+        return "photoCache[entries=" + entries.size() + ", bytes=" + usedBytes + "/" + maxBytes
+                + ", hits=" + hits + ", misses=" + misses + "]";
+    }
+
+    private synchronized void put(Long key, BufferedImage img) {
+        BufferedImage old = entries.put(key, img);
+        if (old != null) usedBytes -= weight(old);
+        usedBytes += weight(img);
+        // evict least recently used entries until we fit again
+        Iterator<Map.Entry<Long, BufferedImage>> it = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            Map.Entry<Long, BufferedImage> e = it.next();
+            if (e.getKey().equals(key)) continue;
+            usedBytes -= weight(e.getValue());
+            it.remove();
+        }
+    }
+
+    private static Long key(int candidateId, int size) {
+        return ((long) candidateId << 32) | (size & 0xffffffffL);
+    }
+
+    private static long weight(BufferedImage img) {
+        return img == NO_PHOTO ? 16 : (long) img.getWidth() * img.getHeight() * 4;
+    }
+
+    // High quality downscale: halve repeatedly, then a final bilinear step to the exact size.
+    static BufferedImage scale(BufferedImage src, int w, int h) {
+        BufferedImage cur = src;
+        int cw = src.getWidth();
+        int ch = src.getHeight();
+        do {
+            cw = Math.max(w, cw / 2);
+            ch = Math.max(h, ch / 2);
+            if (cw < w * 2 || ch < h * 2) { cw = w; ch = h; }
+            BufferedImage next = new BufferedImage(cw, ch, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(cur, 0, 0, cw, ch, null);
+            g.dispose();
+            cur = next;
+        } while (cw != w || ch != h);
+        return cur;
+    }
+}
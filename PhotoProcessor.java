@@ -0,0 +1,148 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+// ---------------- Candidate photo processing (upload time) ----------------
+// A candidate photo is decoded exactly once, when it is uploaded, into:
+//  - thumbnails of 140px (lists) and 180px (details): centre-cropped squares, stored in
+//    candidates.thumb_140 / thumb_180, so viewers only ever decode a few KB;
+//  - a bounded original: at most -Dvoting.photo.maxSide px per side (default 1024). Uploads
+//    already within bounds are kept byte for byte.
+// Images with transparency are stored as PNG, everything else as JPEG.
+//
+// Existing photos without thumbnails: java -cp ".:mysql-connector.jar" PhotoProcessor
+final class PhotoProcessor {
+    static final int LIST_SIZE = 140;
+    static final int DETAIL_SIZE = 180;
+    private static final int MAX_SIDE = Integer.getInteger("voting.photo.maxSide", 1024);
+    private static final long MAX_ORIGINAL_BYTES = Long.getLong("voting.photo.maxBytes", 2L << 20);
+    private static final float JPEG_QUALITY = 0.85f;
+
+    static final class Processed {
+        final byte[] original;      // null when the upload is kept as-is: see source
+        final File source;          // upload to store unchanged (streamed, not read into memory)
+        final byte[] thumbList;     // LIST_SIZE x LIST_SIZE
+        final byte[] thumbDetail;   // DETAIL_SIZE x DETAIL_SIZE
+
+        Processed(byte[] original, File source, byte[] thumbList, byte[] thumbDetail) {
+            this.original = original;
+            this.source = source;
+            this.thumbList = thumbList;
+            this.thumbDetail = thumbDetail;
+        }
+    }
+
+    private PhotoProcessor() { }
+
+    static Processed process(File upload) throws IOException {
+        BufferedImage img = ImageIO.read(upload);
+        if (img == null) throw new IOException("Not a supported image: " + upload.getName());
+        boolean keep = fits(img) && upload.length() <= MAX_ORIGINAL_BYTES;
+        return process(img, keep ? upload : null, null);
+    }
+
+    static Processed process(byte[] bytes) throws IOException {
+        BufferedImage img = ImageIO.read(new ByteArrayInputStream(bytes));
+        if (img == null) throw new IOException("Not a supported image");
+        boolean keep = fits(img) && bytes.length <= MAX_ORIGINAL_BYTES;
+        return process(img, null, keep ? bytes : null);
+    }
+
+    // source and original both null: re-encode a downscaled copy
+    private static Processed process(BufferedImage img, File source, byte[] original) throws IOException {
+        boolean alpha = img.getColorModel().hasAlpha();
+        if (source == null && original == null) {
+            double f = Math.min(1.0, (double) MAX_SIDE / Math.max(img.getWidth(), img.getHeight()));
+            int w = Math.max(1, (int) Math.round(img.getWidth() * f));
+            int h = Math.max(1, (int) Math.round(img.getHeight() * f));
+            original = encode(f < 1.0 ? PhotoCache.scale(img, w, h) : img, alpha);
+        }
+        return new Processed(original, source, encode(square(img, LIST_SIZE), alpha), encode(square(img, DETAIL_SIZE), alpha));
+    }
+
+    private static boolean fits(BufferedImage img) {
+        return img.getWidth() <= MAX_SIDE && img.getHeight() <= MAX_SIDE;
+    }
+
+    // centre crop to a square, then scale
+    private static BufferedImage square(BufferedImage img, int size) {
+        int side = Math.min(img.getWidth(), img.getHeight());
+        BufferedImage crop = img.getSubimage((img.getWidth() - side) / 2, (img.getHeight() - side) / 2, side, side);
+        return PhotoCache.scale(crop, size, size);
+    }
+
+    private static byte[] encode(BufferedImage img, boolean alpha) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(img, "png", out);
+            return out.toByteArray();
+        }
+        // JPEG has no alpha channel: flatten onto white first
+        BufferedImage rgb = img;
+        if (img.getType() != BufferedImage.TYPE_INT_RGB) {
+            rgb = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = rgb.createGraphics();
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, img.getWidth(), img.getHeight());
+            g.drawImage(img, 0, 0, null);
+            g.dispose();
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    // Build thumbnails (and bound the original) for candidates stored before this existed.
+    public static void main(String[] args) throws Exception {
+        ArrayList<Integer> ids = new ArrayList<>();
+        try (Connection con = DBUtil.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id FROM candidates WHERE (photo IS NOT NULL OR photo_hash IS NOT NULL) AND (thumb_140 IS NULL OR thumb_180 IS NULL)")) {
+            while (rs.next()) ids.add(rs.getInt(1));
+        }
+        Admin admin = new Admin();
+        int done = 0;
+        // photos already in the MediaStore were bounded when they were stored; only thumbnails change
+        String sql = "UPDATE candidates SET photo = IF(photo_hash IS NULL, ?, NULL), thumb_140 = ?, thumb_180 = ? WHERE id = ?";
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            for (int id : ids) {
+                byte[] photo = admin.getCandidatePhoto(id);
+                if (photo == null) continue;
+                try {
+                    Processed p = process(photo);
+                    ps.setBytes(1, p.original);
+                    ps.setBytes(2, p.thumbList);
+                    ps.setBytes(3, p.thumbDetail);
+                    ps.setInt(4, id);
+                    ps.executeUpdate();
+                    done++;
+                } catch (IOException e) {
+                    System.out.println("Candidate " + id + ": " + e.getMessage());
+                }
+            }
+        }
+        System.out.println("Thumbnails built for " + done + " of " + ids.size() + " candidate(s).");
+    }
+}
@@ -0,0 +1,325 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// ---------------- Live results ----------------
+// Keeps one sorted leaderboard per position, with totals, margins and turnout, and updates
+// it from vote events instead of re-reading candidates on every refresh:
+//  - every ballot accepted in this JVM calls record(), which bumps the candidates' counts and
+//    moves each one up its leaderboard (one insertion step, no re-sort);
+//  - snapshot() returns an immutable Snapshot; unchanged positions are reused, so a read is
+//    O(1) when nothing changed and only touches the positions that did otherwise;
+//  - ballots cast by other processes are picked up by a light sync every
+//    -Dvoting.results.syncMs (default 5000) that reads id/votes of the candidates (no photos)
+//    and, every -Dvoting.results.turnoutSyncMs (default 30000), the turnout counts.
+// Syncing only runs while somebody has read a snapshot in the last minute. Local events that
+// race with a sync can be off by a vote until the next sync.
+final class ResultsAggregator {
+    private static final long SYNC_MS = Long.getLong("voting.results.syncMs", 5000L);
+    private static final long TURNOUT_SYNC_MS = Long.getLong("voting.results.turnoutSyncMs", 30_000L);
+    private static final long IDLE_MS = 60_000L;
+
+    // ---------------- Immutable snapshot ----------------
+    static final class Standing {
+        final int candidateId;
+        final String name;
+        final long votes;
+        final double share;     // of the position's votes, 0..1
+
+        Standing(int candidateId, String name, long votes, double share) {
+            this.candidateId = candidateId;
+            this.name = name;
+            this.votes = votes;
+            this.share = share;
+        }
+    }
+
+    static final class Leaderboard {
+        final String position;
+        final List<Standing> standings;   // most votes first
+        final long total;
+        final long margin;                // leader minus runner-up
+        final boolean tied;               // top two are level
+
+        Leaderboard(String position, List<Standing> standings, long total) {
+            this.position = position;
+            this.standings = Collections.unmodifiableList(standings);
+            this.total = total;
+            long first = standings.isEmpty() ? 0 : standings.get(0).votes;
+            long second = standings.size() > 1 ? standings.get(1).votes : 0;
+            this.margin = first - second;
+            this.tied = standings.size() > 1 && first == second;
+        }
+    }
+
+    static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(Collections.emptyList(), 0, 0, 0);
+
+        final List<Leaderboard> positions;
+        final long ballots;       // voters who have voted
+        final long eligible;      // verified voters
+        final long version;       // changes whenever any figure changes
+        final long takenAtMillis = System.currentTimeMillis();
+
+        Snapshot(List<Leaderboard> positions, long ballots, long eligible, long version) {
+            this.positions = Collections.unmodifiableList(positions);
+            this.ballots = ballots;
+            this.eligible = eligible;
+            this.version = version;
+        }
+
+        double turnout() { return eligible > 0 ? (double) ballots / eligible : 0; }
+
+        // position,candidate_id,name,votes,share
+        String toCsv() {
+            StringBuilder sb = new StringBuilder("position,candidate_id,name,votes,share\n");
+            for (Leaderboard b : positions) {
+                for (Standing s : b.standings) {
+                    sb.append(csv(b.position)).append(',').append(s.candidateId).append(',').append(csv(s.name))
+                            .append(',').append(s.votes).append(',').append(String.format("%.4f", s.share)).append('\n');
+                }
+            }
+            return sb.toString();
+        }
+
+        Map<String, Object> toJson() {
+            List<Object> list = new ArrayList<>();
+            for (Leaderboard b : positions) {
+                List<Object> standings = new ArrayList<>();
+                for (Standing s : b.standings) {
+                    Map<String, Object> sm = new LinkedHashMap<>();
+                    sm.put("id", s.candidateId);
+                    sm.put("name", s.name);
+                    sm.put("votes", s.votes);
+                    standings.add(sm);
+                }
+                Map<String, Object> bm = new LinkedHashMap<>();
+                bm.put("position", b.position);
+                bm.put("standings", standings);
+                list.add(bm);
+            }
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("version", version);
+            m.put("ballots", ballots);
+            m.put("eligible", eligible);
+            m.put("positions", list);
+            return m;
+        }
+
+        static Snapshot fromJson(Object json) {
+            Map<?, ?> m = (Map<?, ?>) json;
+            List<Leaderboard> boards = new ArrayList<>();
+            for (Object o : (List<?>) m.get("positions")) {
+                Map<?, ?> bm = (Map<?, ?>) o;
+                List<Object[]> rows = new ArrayList<>();
+                long total = 0;
+                for (Object so : (List<?>) bm.get("standings")) {
+                    Map<?, ?> sm = (Map<?, ?>) so;
+                    long votes = ((Number) sm.get("votes")).longValue();
+                    rows.add(new Object[]{((Number) sm.get("id")).intValue(), sm.get("name"), votes});
+                    total += votes;
+                }
+                List<Standing> standings = new ArrayList<>(rows.size());
+                for (Object[] r : rows) {
+                    long votes = (Long) r[2];
+                    standings.add(new Standing((Integer) r[0], (String) r[1], votes, total > 0 ? (double) votes / total : 0));
+                }
+                boards.add(new Leaderboard((String) bm.get("position"), standings, total));
+            }
+            return new Snapshot(boards, ((Number) m.get("ballots")).longValue(), ((Number) m.get("eligible")).longValue(),
+                    ((Number) m.get("version")).longValue());
+        }
+
+        private static String csv(String s) {
+            if (s == null) return "";
+            return s.indexOf(',') >= 0 || s.indexOf('"') >= 0 ? '"' + s.replace("\"", "\"\"") + '"' : s;
+        }
+    }
+
+    // ---------------- Mutable state (guarded by the class lock) ----------------
+    private static final class Entry {
+        final int candidateId;
+        final String name;
+        final Race race;
+        long base;      // count from the last sync
+        long delta;     // local events since then
+        int rank;       // index in race.order
+
+        Entry(int candidateId, String name, Race race) {
+            this.candidateId = candidateId;
+            this.name = name;
+            this.race = race;
+        }
+
+        long votes() { return base + delta; }
+    }
+
+    private static final class Race {
+        final String position;
+        final List<Entry> order = new ArrayList<>();   // most votes first
+        Leaderboard board;                              // null = changed since last snapshot
+
+        Race(String position) {
+            this.position = position;
+        }
+    }
+
+    private static Map<Integer, Entry> entries = new HashMap<>();
+    private static Map<String, Race> races = new TreeMap<>();
+    private static long ballotsBase, ballotsDelta, eligible;
+    private static long version;
+    private static volatile Snapshot snapshot = Snapshot.EMPTY;
+    private static volatile boolean dirty = true;
+    private static volatile long lastRead;
+    private static long lastTurnoutSync;
+    private static volatile ScheduledExecutorService syncer;
+
+    private ResultsAggregator() { }
+
+    // Count one accepted ballot. Call only after its transaction committed.
+    static synchronized void record(int[] candidateIds) {
+        if (syncer == null) return;   // not started: the first sync reads everything anyway
+        for (int cid : candidateIds) {
+            Entry e = entries.get(cid);
+            if (e == null) continue;  // added after the last sync; the next sync picks it up
+            e.delta++;
+            List<Entry> order = e.race.order;
+            while (e.rank > 0 && order.get(e.rank - 1).votes() < e.votes()) {
+                Entry above = order.get(e.rank - 1);
+                order.set(e.rank, above);
+                above.rank = e.rank;
+                order.set(--e.rank, e);
+            }
+            e.race.board = null;
+        }
+        ballotsDelta++;
+        dirty = true;
+    }
+
+    // Current results; cheap enough to call on every repaint.
+    static Snapshot snapshot() {
+        lastRead = System.currentTimeMillis();
+        if (syncer == null) ensureStarted();
+        if (!dirty) return snapshot;
+        synchronized (ResultsAggregator.class) {
+            if (!dirty) return snapshot;
+            List<Leaderboard> boards = new ArrayList<>(races.size());
+            for (Race r : races.values()) {
+                if (r.board == null) r.board = buildBoard(r);
+                boards.add(r.board);
+            }
+            snapshot = new Snapshot(boards, ballotsBase + ballotsDelta, eligible, ++version);
+            dirty = false;
+            return snapshot;
+        }
+    }
+
+    // Candidates, positions or votes were changed by an admin: re-read soon.
+    static void requestSync() {
+        ScheduledExecutorService s = syncer;
+        if (s != null) s.execute(() -> sync(true));
+    }
+
+    private static Leaderboard buildBoard(Race r) {
+        long total = 0;
+        for (Entry e : r.order) total += e.votes();
+        List<Standing> standings = new ArrayList<>(r.order.size());
+        for (Entry e : r.order) standings.add(new Standing(e.candidateId, e.name, e.votes(), total > 0 ? (double) e.votes() / total : 0));
+        return new Leaderboard(r.position, standings, total);
+    }
+
+    private static synchronized void ensureStarted() {
+        if (syncer != null) return;
+        syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "voting-results-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        sync(true);
+        syncer.scheduleWithFixedDelay(() -> {
+            if (System.currentTimeMillis() - lastRead < IDLE_MS) sync(false);
+        }, SYNC_MS, SYNC_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Re-read the counts and rebuild the leaderboards. Local events recorded before the read
+    // are part of the rows read, so only the ones that arrive during the read are kept.
+    private static void sync(boolean withTurnout) {
+        Map<Integer, Long> consumed = new HashMap<>();
+        long ballotsConsumed;
+        synchronized (ResultsAggregator.class) {
+            for (Entry e : entries.values()) consumed.put(e.candidateId, e.delta);
+            ballotsConsumed = ballotsDelta;
+        }
+        boolean turnout = withTurnout || System.currentTimeMillis() - lastTurnoutSync >= TURNOUT_SYNC_MS;
+
+        ArrayList<Candidate> candidates;
+        long voted = -1, verified = -1;
+        try {
+            candidates = VoteTally.merged(ResultsAggregator::readCandidates);
+            if (turnout) {
+                try (Connection con = DBUtil.getConnection();
+                     PreparedStatement ps = Sql.RESULTS_TURNOUT.prepare(con);
+                     ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        verified = rs.getLong(1);
+                        voted = rs.getLong(2);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        }
+
+        synchronized (ResultsAggregator.class) {
+            Map<Integer, Entry> newEntries = new HashMap<>();
+            Map<String, Race> newRaces = new TreeMap<>();
+            for (Candidate c : candidates) {
+                String pos = c.position != null ? c.position : "(no position)";
+                Race race = newRaces.computeIfAbsent(pos, Race::new);
+                Entry e = new Entry(c.id, c.name, race);
+                e.base = c.votes;
+                Entry old = entries.get(c.id);
+                if (old != null) e.delta = Math.max(0, old.delta - consumed.getOrDefault(c.id, 0L));
+                race.order.add(e);
+                newEntries.put(c.id, e);
+            }
+            for (Race r : newRaces.values()) {
+                r.order.sort((a, b) -> a.votes() != b.votes() ? Long.compare(b.votes(), a.votes()) : Integer.compare(a.candidateId, b.candidateId));
+                for (int i = 0; i < r.order.size(); i++) r.order.get(i).rank = i;
+            }
+            entries = newEntries;
+            races = newRaces;
+            if (turnout && voted >= 0) {
+                ballotsBase = voted;
+                ballotsDelta = Math.max(0, ballotsDelta - ballotsConsumed);
+                eligible = verified;
+                lastTurnoutSync = System.currentTimeMillis();
+            }
+            dirty = true;
+        }
+    }
+
+    private static ArrayList<Candidate> readCandidates() {
+        ArrayList<Candidate> list = new ArrayList<>();
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.RESULTS_TOTALS.prepare(con);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                list.add(new Candidate(rs.getInt("id"), rs.getString("name"), null, 0, rs.getString("position"),
+                        null, null, rs.getInt("votes")));
+            }
+        } catch (SQLException | ClassNotFoundException e) {
+            throw new IllegalStateException("Could not read candidate totals", e);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,460 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// ---------------- Schema migrations ----------------
+// Brings the database up to the schema this build expects, once per process, when DBUtil
+// creates the connection pool; the request paths then only run DML. Applied versions are
+// recorded in schema_version, so an up-to-date database costs a single SELECT at startup.
+//
+// Every step checks the catalog before changing it, so databases created by any earlier
+// votingdb.sql (which already has some of these) are fine. On MySQL the migrations run under
+// the advisory lock GET_LOCK('voting_schema'): a station that starts while another one is
+// migrating waits for it (up to -Dvoting.schema.lockWaitSec, default 600), re-reads the
+// version and finds nothing left to do. Other databases (the H2 stand-in) take no lock, so
+// only one process may start against an outdated schema at a time there. MySQL-only objects
+// (the ballots triggers) stay in votingdb.sql, except where a migration rebuilds the ballots
+// table.
+//
+// Skip with -Dvoting.schema.migrate=false (e.g. for a DB user without DDL rights), or run
+// it on its own:  java -cp ".:mysql-connector.jar" SchemaMigrator
+final class SchemaMigrator {
+    interface Step {
+        void apply(Connection con, Statement st) throws SQLException;
+    }
+
+    private static final class Migration {
+        final int version;
+        final String description;
+        final Step step;
+
+        Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    // append only: never change a migration that has shipped, add a new version instead
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "base tables and default rows", SchemaMigrator::baseTables),
+            new Migration(2, "photo, thumbnail and status-version columns, unique voter names", SchemaMigrator::laterColumns),
+            new Migration(3, "positions referenced by candidates: backfill, index and foreign key", SchemaMigrator::candidatePositions),
+            new Migration(4, "index on voters (verified, has_voted)", SchemaMigrator::voterStatusIndex),
+            new Migration(5, "positions by id, candidate slots, packed ballot records", SchemaMigrator::packedBallots));
+
+    static final int LATEST = MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+
+    private static final String LOCK = "voting_schema";
+    private static final int LOCK_WAIT_SEC = Integer.getInteger("voting.schema.lockWaitSec", 600);
+
+    private SchemaMigrator() { }
+
+    // Called by DBUtil with the new pool; failures are reported, not thrown, so a station
+    // whose database is briefly unreachable still starts (and retries on the next start).
+    static void migrate(ConnectionPool pool) {
+        if ("false".equals(System.getProperty("voting.schema.migrate"))) return;
+        try (Connection con = pool.borrow()) {
+            migrate(con);
+        } catch (SQLException e) {
+            System.out.println("Schema migration failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Applies every migration above the recorded version; returns how many ran.
+    static int migrate(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + "version INT PRIMARY KEY, "
+                    + "description VARCHAR(200) NOT NULL, "
+                    + "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            if (currentVersion(st) >= LATEST) return 0;
+            boolean locked = lock(con);
+            try {
+                // another station may have migrated while we waited for the lock
+                int current = currentVersion(st);
+                int applied = 0;
+                for (Migration m : MIGRATIONS) {
+                    if (m.version <= current) continue;
+                    m.step.apply(con, st);
+                    record(con, m);
+                    applied++;
+                    System.out.println("Schema migrated to version " + m.version + ": " + m.description);
+                }
+                return applied;
+            } finally {
+                if (locked) unlock(con);
+            }
+        }
+    }
+
+    // MySQL's named lock belongs to the session, so it survives the implicit commits of DDL
+    // and is released if the station dies. false if this database has no such lock.
+    private static boolean lock(Connection con) throws SQLException {
+        if (!isMySql(con)) return false;
+        try (PreparedStatement ps = con.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, LOCK);
+            ps.setInt(2, LOCK_WAIT_SEC);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Another station is still migrating the schema (waited " + LOCK_WAIT_SEC + " s)");
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void unlock(Connection con) {
+        try (PreparedStatement ps = con.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK);
+            ps.executeQuery().close();
+        } catch (SQLException e) { e.printStackTrace(); }
+    }
+
+    private static int currentVersion(Statement st) throws SQLException {
+        try (ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void record(Connection con, Migration m) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("INSERT INTO schema_version(version, description) VALUES(?, ?)")) {
+            ps.setInt(1, m.version);
+            ps.setString(2, m.description);
+            ps.executeUpdate();
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // another station recorded it first
+        }
+    }
+
+    // ---------------- Migrations ----------------
+    private static void baseTables(Connection con, Statement st) throws SQLException {
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS admin ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "username VARCHAR(50) NOT NULL UNIQUE, "
+                + "password VARCHAR(50) NOT NULL)");
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS voters ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(50) NOT NULL, "
+                + "password VARCHAR(50) NOT NULL, "
+                + "has_voted BOOLEAN DEFAULT 0, "
+                + "verified BOOLEAN DEFAULT 0, "
+                + "dob DATE, "
+                + "CONSTRAINT uq_voters_name UNIQUE (name))");
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS positions ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(255) UNIQUE)");
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS candidates ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(50) NOT NULL, "
+                + "symbol VARCHAR(50) NOT NULL, "
+                + "age INT, "
+                + "position VARCHAR(100), "
+                + "photo LONGBLOB, "
+                + "thumb_140 MEDIUMBLOB, "
+                + "thumb_180 MEDIUMBLOB, "
+                + "photo_hash CHAR(64), "
+                + "bio TEXT, "
+                + "votes INT DEFAULT 0)");
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS ballots ("
+                + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "ballot_key CHAR(36) NOT NULL, "
+                + "candidate_id INT NOT NULL, "
+                + "cast_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        // (a database created by a newer votingdb.sql already has the packed ledger, see 5)
+        if (hasColumn(con, "ballots", "candidate_id") && !hasIndexOn(con, "ballots", "candidate_id")) {
+            st.executeUpdate("CREATE INDEX idx_ballots_candidate ON ballots (candidate_id)");
+        }
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS voting_status ("
+                + "id INT PRIMARY KEY, "
+                + "is_active BOOLEAN DEFAULT 0, "
+                + "version BIGINT NOT NULL DEFAULT 0, "
+                + "changed_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3))");
+
+        // the status row is read on every poll and claim; it must exist before the first one
+        if (isEmpty(st, "SELECT 1 FROM voting_status WHERE id = 1")) {
+            // version may not exist yet on old databases (migration 2); it defaults to 0
+            ignoreDuplicate(st, "INSERT INTO voting_status(id, is_active) VALUES(1, 0)");
+        }
+        if (isEmpty(st, "SELECT 1 FROM admin")) {
+            ignoreDuplicate(st, "INSERT INTO admin(username, password) VALUES('admin', 'admin123')");
+        }
+    }
+
+    // Columns and keys that votingdb.sql added over time with information_schema checks.
+    private static void laterColumns(Connection con, Statement st) throws SQLException {
+        if (!hasColumn(con, "candidates", "thumb_140")) {
+            st.executeUpdate("ALTER TABLE candidates ADD COLUMN thumb_140 MEDIUMBLOB");
+        }
+        if (!hasColumn(con, "candidates", "thumb_180")) {
+            st.executeUpdate("ALTER TABLE candidates ADD COLUMN thumb_180 MEDIUMBLOB");
+        }
+        if (!hasColumn(con, "candidates", "photo_hash")) {
+            st.executeUpdate("ALTER TABLE candidates ADD COLUMN photo_hash CHAR(64)");
+        }
+        if (!hasColumn(con, "voting_status", "version")) {
+            st.executeUpdate("ALTER TABLE voting_status ADD COLUMN version BIGINT NOT NULL DEFAULT 0");
+        }
+        if (!hasColumn(con, "voting_status", "changed_at")) {
+            st.executeUpdate("ALTER TABLE voting_status ADD COLUMN changed_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3)");
+        }
+        // voter login looks up a single row by name
+        if (!hasIndexOn(con, "voters", "name")) {
+            st.executeUpdate("ALTER TABLE voters ADD CONSTRAINT uq_voters_name UNIQUE (name)");
+        }
+    }
+
+    // candidates.position used to be free text; every value becomes a positions row first,
+    // so the foreign key can be added to existing data.
+    private static void candidatePositions(Connection con, Statement st) throws SQLException {
+        if (!hasColumn(con, "candidates", "position")) return;   // already keyed by id (5)
+        st.executeUpdate("UPDATE candidates SET position = NULL WHERE TRIM(position) = ''");
+        st.executeUpdate("INSERT INTO positions(name) SELECT DISTINCT c.position FROM candidates c "
+                + "WHERE c.position IS NOT NULL AND NOT EXISTS (SELECT 1 FROM positions p WHERE p.name = c.position)");
+        if (!hasIndexOn(con, "candidates", "position")) {
+            st.executeUpdate("CREATE INDEX idx_candidates_position ON candidates (position)");
+        }
+        if (!hasForeignKey(con, "candidates", "position")) {
+            // renaming a position carries its candidates along; deleting one still in use fails
+            st.executeUpdate("ALTER TABLE candidates ADD CONSTRAINT fk_candidates_position "
+                    + "FOREIGN KEY (position) REFERENCES positions(name) ON UPDATE CASCADE");
+        }
+    }
+
+    // turnout (verified = 1, SUM(has_voted)) is answered from this index alone
+    private static void voterStatusIndex(Connection con, Statement st) throws SQLException {
+        if (!hasIndexOn(con, "voters", "verified")) {
+            st.executeUpdate("CREATE INDEX idx_voters_status ON voters (verified, has_voted)");
+        }
+    }
+
+    // Candidates reference positions by integer id, and each candidate gets a slot (1..255)
+    // within its position. The ballots ledger becomes one row per ballot holding the packed
+    // BallotRecord; existing per-selection rows are converted, grouped by ballot_key.
+    private static void packedBallots(Connection con, Statement st) throws SQLException {
+        boolean mysql = isMySql(con);
+        // a run that stopped between dropping the old ledger and renaming the new one
+        if (!hasTable(con, "ballots") && hasTable(con, "ballot_records")) {
+            st.executeUpdate("ALTER TABLE ballot_records RENAME TO ballots");
+            System.out.println("Ballots ledger: finished renaming ballot_records left by an interrupted migration.");
+            if (mysql) appendOnlyTriggers(st);
+        }
+        if (!hasColumn(con, "positions", "next_slot")) {
+            st.executeUpdate("ALTER TABLE positions ADD COLUMN next_slot INT NOT NULL DEFAULT 0");
+        }
+        if (!hasColumn(con, "candidates", "position_id")) {
+            st.executeUpdate("ALTER TABLE candidates ADD COLUMN position_id INT");
+        }
+        if (!hasColumn(con, "candidates", "slot")) {
+            st.executeUpdate("ALTER TABLE candidates ADD COLUMN slot SMALLINT");
+        }
+        if (hasColumn(con, "candidates", "position")) {
+            st.executeUpdate("UPDATE candidates SET position_id = "
+                    + "(SELECT p.id FROM positions p WHERE p.name = candidates.position) WHERE position_id IS NULL");
+        }
+        assignSlots(con, st);
+        if (!hasIndexOn(con, "candidates", "position_id")) {
+            st.executeUpdate("CREATE UNIQUE INDEX uq_candidates_slot ON candidates (position_id, slot)");
+        }
+        if (!hasForeignKey(con, "candidates", "position_id")) {
+            st.executeUpdate("ALTER TABLE candidates ADD CONSTRAINT fk_candidates_position_id "
+                    + "FOREIGN KEY (position_id) REFERENCES positions(id)");
+        }
+
+        if (hasColumn(con, "ballots", "candidate_id")) packLedger(con, st, mysql);
+
+        if (hasColumn(con, "candidates", "position")) {
+            String fk = foreignKeyName(con, "candidates", "position");
+            if (fk != null) {
+                st.executeUpdate("ALTER TABLE candidates DROP " + (mysql ? "FOREIGN KEY " : "CONSTRAINT ") + fk);
+            }
+            if (hasIndexOn(con, "candidates", "position")) {
+                st.executeUpdate(mysql ? "DROP INDEX idx_candidates_position ON candidates" : "DROP INDEX idx_candidates_position");
+            }
+            st.executeUpdate("ALTER TABLE candidates DROP COLUMN position");
+        }
+    }
+
+    // Numbers the candidates of each position 1, 2, ... in id order, after any slots already taken.
+    private static void assignSlots(Connection con, Statement st) throws SQLException {
+        Map<Integer, Integer> next = new HashMap<>();
+        try (ResultSet rs = st.executeQuery("SELECT id, next_slot FROM positions")) {
+            while (rs.next()) next.put(rs.getInt(1), rs.getInt(2));
+        }
+        List<int[]> slots = new ArrayList<>();
+        try (ResultSet rs = st.executeQuery("SELECT id, position_id FROM candidates "
+                + "WHERE position_id IS NOT NULL AND slot IS NULL ORDER BY position_id, id")) {
+            while (rs.next()) {
+                int slot = next.merge(rs.getInt(2), 1, Integer::sum);
+                if (slot > BallotRecord.MAX_SLOT) {
+                    throw new SQLException("Position " + rs.getInt(2) + " has more than " + BallotRecord.MAX_SLOT + " candidates");
+                }
+                slots.add(new int[] {rs.getInt(1), slot});
+            }
+        }
+        if (slots.isEmpty()) return;
+        try (PreparedStatement pc = con.prepareStatement("UPDATE candidates SET slot = ? WHERE id = ?");
+             PreparedStatement pp = con.prepareStatement("UPDATE positions SET next_slot = ? WHERE id = ?")) {
+            for (int[] s : slots) {
+                pc.setInt(1, s[1]);
+                pc.setInt(2, s[0]);
+                pc.addBatch();
+            }
+            pc.executeBatch();
+            for (Map.Entry<Integer, Integer> e : next.entrySet()) {
+                pp.setInt(1, e.getValue());
+                pp.setInt(2, e.getKey());
+                pp.addBatch();
+            }
+            pp.executeBatch();
+        }
+    }
+
+    // Rewrites the per-selection ledger (ballot_key, candidate_id) as one packed row per
+    // ballot in a new table that then takes the ballots name. Rows for candidates that no
+    // longer exist cannot be packed and are reported (TallyEngine reported them as orphans).
+    // The old ledger is only dropped once the copy is complete; a leftover ballot_records
+    // from an interrupted copy is discarded and rebuilt, a complete one is renamed above.
+    private static void packLedger(Connection con, Statement st, boolean mysql) throws SQLException {
+        st.executeUpdate("DROP TABLE IF EXISTS ballot_records");
+        st.executeUpdate("CREATE TABLE ballot_records ("
+                + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "choices VARBINARY(" + BallotRecord.MAX_POSITIONS + ") NOT NULL, "
+                + "cast_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+
+        Map<Integer, int[]> slotOf = new HashMap<>();   // candidate id -> {position id, slot}
+        int width = 0;
+        try (ResultSet rs = st.executeQuery("SELECT id, position_id, slot FROM candidates WHERE position_id IS NOT NULL")) {
+            while (rs.next()) {
+                slotOf.put(rs.getInt(1), new int[] {rs.getInt(2), rs.getInt(3)});
+                width = Math.max(width, rs.getInt(2));
+            }
+        }
+
+        long ballots = 0, orphans = 0;
+        try (Statement read = con.createStatement();
+             ResultSet rs = read.executeQuery("SELECT ballot_key, candidate_id, cast_at FROM ballots ORDER BY ballot_key, id");
+             PreparedStatement ins = con.prepareStatement("INSERT INTO ballot_records(choices, cast_at) VALUES(?, ?)")) {
+            String key = null;
+            BallotRecord record = null;
+            Timestamp castAt = null;
+            int pending = 0;
+            while (rs.next()) {
+                String k = rs.getString(1);
+                if (!k.equals(key)) {
+                    if (record != null) { addRecord(ins, record, castAt); ballots++; pending++; }
+                    if (pending >= 1000) { ins.executeBatch(); pending = 0; }
+                    key = k;
+                    record = new BallotRecord(width);
+                    castAt = rs.getTimestamp(3);
+                }
+                int[] ps = slotOf.get(rs.getInt(2));
+                if (ps == null) orphans++; else record.set(ps[0], ps[1]);
+            }
+            if (record != null) { addRecord(ins, record, castAt); ballots++; }
+            ins.executeBatch();
+        }
+
+        st.executeUpdate("DROP TABLE ballots");
+        st.executeUpdate("ALTER TABLE ballot_records RENAME TO ballots");
+        System.out.println("Ballots ledger packed: " + ballots + " ballot(s)"
+                + (orphans > 0 ? ", " + orphans + " selection(s) for deleted candidates dropped" : "") + ".");
+        if (mysql) appendOnlyTriggers(st);
+    }
+
+    // a ballot whose every choice was a deleted candidate is kept as a blank one: it was cast
+    private static void addRecord(PreparedStatement ins, BallotRecord record, Timestamp castAt) throws SQLException {
+        ins.setBytes(1, record.toBytes());
+        ins.setTimestamp(2, castAt);
+        ins.addBatch();
+    }
+
+    // Same triggers as votingdb.sql; they went with the old table. Creating triggers can need
+    // privileges a station's DB user lacks, so a failure is reported rather than fatal.
+    private static void appendOnlyTriggers(Statement st) {
+        try {
+            st.executeUpdate("CREATE TRIGGER ballots_no_update BEFORE UPDATE ON ballots FOR EACH ROW "
+                    + "SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'ballots is append-only'");
+            st.executeUpdate("CREATE TRIGGER ballots_no_delete BEFORE DELETE ON ballots FOR EACH ROW "
+                    + "SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'ballots is append-only'");
+        } catch (SQLException e) {
+            System.out.println("Could not recreate the ballots triggers (" + e.getMessage()
+                    + "); run the trigger statements from votingdb.sql.");
+        }
+    }
+
+    // ---------------- Catalog checks ----------------
+    // Names are compared case-insensitively: MySQL and H2 (DATABASE_TO_LOWER) report them differently.
+    private static boolean hasTable(Connection con, String table) throws SQLException {
+        try (ResultSet rs = con.getMetaData().getTables(con.getCatalog(), con.getSchema(), null, new String[] {"TABLE"})) {
+            while (rs.next()) {
+                if (table.equalsIgnoreCase(rs.getString("TABLE_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasColumn(Connection con, String table, String column) throws SQLException {
+        try (ResultSet rs = con.getMetaData().getColumns(con.getCatalog(), con.getSchema(), table, null)) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+
+    // true if some index (or key) on the table starts with the column
+    private static boolean hasIndexOn(Connection con, String table, String column) throws SQLException {
+        try (ResultSet rs = con.getMetaData().getIndexInfo(con.getCatalog(), con.getSchema(), table, false, true)) {
+            while (rs.next()) {
+                if (rs.getShort("ORDINAL_POSITION") == 1 && column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasForeignKey(Connection con, String table, String column) throws SQLException {
+        return foreignKeyName(con, table, column) != null;
+    }
+
+    private static String foreignKeyName(Connection con, String table, String column) throws SQLException {
+        try (ResultSet rs = con.getMetaData().getImportedKeys(con.getCatalog(), con.getSchema(), table)) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("FKCOLUMN_NAME"))) return rs.getString("FK_NAME");
+            }
+        }
+        return null;
+    }
+
+    private static boolean isMySql(Connection con) throws SQLException {
+        return con.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+    }
+
+    private static boolean isEmpty(Statement st, String query) throws SQLException {
+        try (ResultSet rs = st.executeQuery(query)) {
+            return !rs.next();
+        }
+    }
+
+    private static void ignoreDuplicate(Statement st, String insert) throws SQLException {
+        try {
+            st.executeUpdate(insert);
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // inserted concurrently by another station
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (Connection con = DBUtil.getConnection();
+             Statement st = con.createStatement()) {
+            // DBUtil has migrated already when the pool was created; this reports the result
+            int applied = migrate(con);
+            System.out.println("Schema at version " + currentVersion(st) + " (latest " + LATEST + ")"
+                    + (applied > 0 ? ", " + applied + " migration(s) applied." : "."));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// ---------------- Named SQL statements ----------------
+// The fixed SQL of the Admin/Voter/ballot data paths, registered once by name:
+//
+//   try (PreparedStatement ps = Sql.VOTER_LOGIN.prepare(con)) { ... }
+//
+// Pooled connections keep every prepared statement open (ConnectionPool statement cache),
+// so each of these is parsed once per physical connection; the hot ones are prepared as
+// soon as the pool opens a connection (DBUtil), so the first voter on a fresh connection
+// does not pay for it either. SQL that is built per call (search filters, IN lists) is
+// still written in place and cached by its text.
+enum Sql {
+    // ---------------- Voter paths (hot) ----------------
+    VOTER_LOGIN(true, "SELECT id, name, password, has_voted, verified, dob FROM voters WHERE name=? AND password=?"),
+    VOTER_REGISTER(true, "INSERT INTO voters(name, password, dob, has_voted, verified) VALUES(?, ?, ?, 0, 0)"),
+    // claims the voter for one ballot: matches nothing if already voted, unverified or voting closed
+    VOTER_CLAIM(true, "UPDATE voters SET has_voted = 1 WHERE id = ? AND has_voted = 0 AND verified = 1 "
+            + "AND EXISTS (SELECT 1 FROM voting_status WHERE id = 1 AND is_active = 1)"),
+    // one row per ballot: the packed BallotRecord
+    BALLOT_INSERT(true, "INSERT INTO ballots(choices) VALUES(?)"),
+    CANDIDATE_ADD_VOTE(true, "UPDATE candidates SET votes = votes + 1 WHERE id = ?"),
+    VOTE_REJECTION(false, "SELECT v.has_voted, v.verified, s.is_active FROM voters v "
+            + "LEFT JOIN voting_status s ON s.id = 1 WHERE v.id = ?"),
+    STATUS_POLL(true, "SELECT is_active, version FROM voting_status WHERE id=1"),
+    // striped tally flush (VoteTally)
+    TALLY_ADD_VOTES(false, "UPDATE candidates SET votes = votes + ? WHERE id = ?"),
+    BALLOT_LOAD(false, "SELECT p.id AS position_id, p.name AS position, c.id, c.slot, c.name, c.symbol, c.age "
+            + "FROM positions p JOIN candidates c ON c.position_id = p.id "
+            + "ORDER BY p.name, c.slot"),
+
+    // ---------------- Live results (ResultsAggregator) ----------------
+    RESULTS_TOTALS(false, "SELECT c.id, c.name, p.name AS position, c.votes "
+            + "FROM candidates c LEFT JOIN positions p ON p.id = c.position_id"),
+    RESULTS_TURNOUT(false, "SELECT COUNT(*), COALESCE(SUM(has_voted), 0) FROM voters WHERE verified = 1"),
+
+    // ---------------- Admin ----------------
+    ADMIN_LOGIN(false, "SELECT * FROM admin WHERE username=? AND password=?"),
+    VOTING_START(false, "UPDATE voting_status SET is_active=1, version = version + 1 WHERE id=1"),
+    VOTING_STOP(false, "UPDATE voting_status SET is_active=0, version = version + 1 WHERE id=1"),
+    VOTING_ACTIVE(false, "SELECT is_active FROM voting_status WHERE id=1"),
+
+    POSITIONS_ALL(false, "SELECT name FROM positions ORDER BY name"),
+    POSITION_ADD(false, "INSERT IGNORE INTO positions(name) VALUES(?)"),
+    // fails on the candidates foreign key while the position has candidates
+    POSITION_DELETE(false, "DELETE FROM positions WHERE name = ?"),
+    POSITION_ID(false, "SELECT id FROM positions WHERE name = ?"),
+    // slot allocation: the UPDATE also locks the position row until the candidate is written
+    POSITION_TAKE_SLOT(false, "UPDATE positions SET next_slot = next_slot + 1 WHERE id = ?"),
+    POSITION_LAST_SLOT(false, "SELECT next_slot FROM positions WHERE id = ?"),
+    POSITIONS_RESET_SLOTS(false, "UPDATE positions SET next_slot = 0"),
+
+    CANDIDATE_ADD(false, "INSERT INTO candidates(name, symbol, age, position_id, slot, photo, photo_hash, thumb_140, thumb_180, bio, votes) "
+            + "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)"),
+    CANDIDATE_SLOT(false, "SELECT position_id, slot FROM candidates WHERE id = ?"),
+    CANDIDATE_EDIT(false, "UPDATE candidates SET name=?, symbol=?, age=?, position_id=?, slot=?, bio=? WHERE id=?"),
+    CANDIDATE_EDIT_WITH_PHOTO(false, "UPDATE candidates SET name=?, symbol=?, age=?, position_id=?, slot=?, bio=?, "
+            + "photo=?, photo_hash=?, thumb_140=?, thumb_180=? WHERE id=?"),
+    CANDIDATE_DELETE(false, "DELETE FROM candidates WHERE id=?"),
+    CANDIDATES_ALL(false, "SELECT c.id, c.name, c.symbol, c.age, p.name AS position, c.bio, c.votes "
+            + "FROM candidates c LEFT JOIN positions p ON p.id = c.position_id"),
+    CANDIDATES_BY_POSITION(false, "SELECT c.id, c.name, c.symbol, c.age, p.name AS position, c.bio, c.votes "
+            + "FROM candidates c JOIN positions p ON p.id = c.position_id WHERE p.name = ?"),
+    CANDIDATE_PHOTO(false, "SELECT photo, photo_hash FROM candidates WHERE id = ?"),
+    CANDIDATE_THUMB_140(false, "SELECT thumb_140 FROM candidates WHERE id = ?"),
+    CANDIDATE_THUMB_180(false, "SELECT thumb_180 FROM candidates WHERE id = ?"),
+
+    VOTERS_PENDING(false, "SELECT id, name, has_voted, verified, dob FROM voters WHERE verified = 0 AND id > ? ORDER BY id LIMIT ?"),
+    VOTER_SET_VERIFIED(false, "UPDATE voters SET verified = ? WHERE id = ?"),
+    VOTERS_ALL(false, "SELECT * FROM voters"),
+    VOTER_BY_ID(false, "SELECT id, name, password, has_voted, verified, dob FROM voters WHERE id = ?"),
+    VOTER_EDIT(false, "UPDATE voters SET name = COALESCE(?, name), password = COALESCE(?, password), dob = COALESCE(?, dob), "
+            + "has_voted = COALESCE(?, has_voted), verified = COALESCE(?, verified) WHERE id = ?"),
+    VOTER_DELETE(false, "DELETE FROM voters WHERE id = ?");
+
+    final String text;
+    // prepared on every new pooled connection
+    final boolean hot;
+
+    Sql(boolean hot, String text) {
+        this.hot = hot;
+        this.text = text;
+    }
+
+    PreparedStatement prepare(Connection con) throws SQLException {
+        return con.prepareStatement(text);
+    }
+
+    static List<String> hot() {
+        List<String> out = new ArrayList<>();
+        for (Sql s : values()) if (s.hot) out.add(s.text);
+        return out;
+    }
+}
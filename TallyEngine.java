@@ -0,0 +1,191 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// ---------------- Ballot ledger recount ----------------
+// Recounts every vote from the append-only ballots table and checks the totals against
+// candidates.votes. Each ledger row is a packed BallotRecord; the ledger is streamed with a
+// forward-only cursor and every choice is folded into a counter indexed by (position id,
+// slot), so memory use depends on the number of candidates, not ballots.
+// Candidates and ballots are read in one REPEATABLE READ transaction, i.e. from the same
+// snapshot, so the check is exact even while voting is running (in striped tally mode
+// pending counts are flushed first; ballots committed after that show up as a difference).
+// Choices of candidates that were deleted since (the ledger keeps them) have no total to
+// check against; they are counted and listed separately and do not fail the verdict.
+//
+// Run standalone with: java -cp ".:mysql-connector.jar" TallyEngine
+final class TallyEngine {
+
+    static final class CandidateTotal {
+        final int candidateId;
+        final String name;
+        final String position;
+        final long recorded;   // candidates.votes
+        long counted;          // ballots in the ledger that chose this candidate
+
+        CandidateTotal(int candidateId, String name, String position, long recorded) {
+            this.candidateId = candidateId;
+            this.name = name;
+            this.position = position;
+            this.recorded = recorded;
+        }
+    }
+
+    static final class Report {
+        final Map<String, List<CandidateTotal>> byPosition = new TreeMap<>();
+        final Map<String, Long> positionTotals = new TreeMap<>();
+        final List<String> mismatches = new ArrayList<>();
+        long ballots;
+        long selections;
+        long orphans;      // choices of candidates that no longer exist; not part of the verdict
+        long elapsedMs;
+
+        // every remaining candidate's total matches the ledger
+        boolean isConsistent() { return mismatches.isEmpty(); }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Ballots: ").append(ballots).append(", selections: ").append(selections)
+                    .append(" (").append(elapsedMs).append(" ms)\n");
+            for (Map.Entry<String, List<CandidateTotal>> e : byPosition.entrySet()) {
+                sb.append('\n').append(e.getKey()).append(" - ").append(positionTotals.get(e.getKey())).append(" votes\n");
+                for (CandidateTotal t : e.getValue()) {
+                    sb.append("  ").append(t.name).append(": ").append(t.counted);
+                    if (t.counted != t.recorded) sb.append("  (recorded ").append(t.recorded).append(')');
+                    sb.append('\n');
+                }
+            }
+            if (orphans > 0) sb.append("\nSelections of deleted candidates (not checked): ").append(orphans).append('\n');
+            sb.append('\n').append(isConsistent() ? "Ledger matches candidate totals." : mismatches.size() + " candidate total(s) differ from the ledger.");
+            return sb.toString();
+        }
+    }
+
+    private TallyEngine() { }
+
+    static Report recount() throws SQLException, ClassNotFoundException {
+        if (VoteTally.isStriped()) VoteTally.flush();
+        long start = System.nanoTime();
+        Report report = new Report();
+        Map<Integer, CandidateTotal> totals = new HashMap<>();
+
+        try (Connection con = DBUtil.getConnection()) {
+            int isolation = con.getTransactionIsolation();
+            con.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            con.setAutoCommit(false);
+            try {
+                try (Statement st = con.createStatement();
+                     ResultSet rs = st.executeQuery("SELECT c.id, c.name, p.name AS position, c.votes "
+                             + "FROM candidates c LEFT JOIN positions p ON p.id = c.position_id")) {
+                    while (rs.next()) {
+                        CandidateTotal t = new CandidateTotal(rs.getInt("id"), rs.getString("name"),
+                                rs.getString("position"), rs.getLong("votes"));
+                        totals.put(t.candidateId, t);
+                    }
+                }
+                LedgerCount count = countLedger(con);
+                Map<Integer, Long> counted = count.byCandidate();
+                for (CandidateTotal t : totals.values()) t.counted = counted.getOrDefault(t.candidateId, 0L);
+                report.ballots = count.ballots;
+                report.selections = count.selections;
+                report.orphans = count.orphans;
+                con.commit();
+            } finally {
+                con.setAutoCommit(true);
+                con.setTransactionIsolation(isolation);
+            }
+        }
+
+        for (CandidateTotal t : totals.values()) {
+            String pos = t.position != null ? t.position : "(no position)";
+            report.byPosition.computeIfAbsent(pos, k -> new ArrayList<>()).add(t);
+            report.positionTotals.merge(pos, t.counted, Long::sum);
+            if (t.counted != t.recorded) {
+                report.mismatches.add(t.name + " (id " + t.candidateId + "): ledger " + t.counted + ", recorded " + t.recorded);
+            }
+        }
+        for (List<CandidateTotal> list : report.byPosition.values()) {
+            list.sort((a, b) -> Long.compare(b.counted, a.counted));
+        }
+        report.elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        return report;
+    }
+
+    // Votes per candidate decoded from the ledger (also used by VoteTally to rebuild
+    // candidates.votes). Runs in the caller's transaction.
+    static final class LedgerCount {
+        private final int[] candidateAt;   // BallotRecord.key(position id, slot) -> candidate id, 0 = none
+        private final long[] countAt;
+        long ballots;
+        long selections;
+        long orphans;
+
+        LedgerCount(int width) {
+            candidateAt = new int[BallotRecord.key(width + 1, 0)];
+            countAt = new long[candidateAt.length];
+        }
+
+        // candidate id -> votes, for every candidate on a position
+        Map<Integer, Long> byCandidate() {
+            Map<Integer, Long> out = new HashMap<>();
+            for (int k = 0; k < candidateAt.length; k++) {
+                if (candidateAt[k] != 0) out.put(candidateAt[k], countAt[k]);
+            }
+            return out;
+        }
+    }
+
+    static LedgerCount countLedger(Connection con) throws SQLException {
+        List<int[]> slots = new ArrayList<>();
+        int width = 0;
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, position_id, slot FROM candidates WHERE position_id IS NOT NULL")) {
+            while (rs.next()) {
+                slots.add(new int[] {rs.getInt(1), rs.getInt(2), rs.getInt(3)});
+                width = Math.max(width, rs.getInt(2));
+            }
+        }
+        LedgerCount count = new LedgerCount(width);
+        for (int[] c : slots) count.candidateAt[BallotRecord.key(c[1], c[2])] = c[0];
+
+        try (Statement st = con.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            streamRows(st);
+            try (ResultSet rs = st.executeQuery("SELECT choices FROM ballots")) {
+                while (rs.next()) {
+                    byte[] choices = rs.getBytes(1);
+                    count.ballots++;
+                    for (int i = 0; i < choices.length; i++) {
+                        int slot = choices[i] & 0xff;
+                        if (slot == 0) continue;
+                        count.selections++;
+                        int k = BallotRecord.key(i + 1, slot);
+                        // positions created after the snapshot's last candidate are past the table
+                        if (k >= count.candidateAt.length || count.candidateAt[k] == 0) count.orphans++;
+                        else count.countAt[k]++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    // MySQL Connector/J only streams row by row with fetch size Integer.MIN_VALUE;
+    // other drivers reject that value, so fall back to a large fetch size.
+    private static void streamRows(Statement st) throws SQLException {
+        try {
+            st.setFetchSize(Integer.MIN_VALUE);
+        } catch (SQLException e) {
+            st.setFetchSize(Integer.getInteger("voting.tally.fetchSize", 10_000));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Report report = recount();
+        System.out.println(report);
+        System.exit(report.isConsistent() ? 0 : 1);
+    }
+}
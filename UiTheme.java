@@ -0,0 +1,27 @@
+import java.awt.Color;
+import java.awt.Font;
+
+// ---------------- Shared UI look ----------------
+// The GUI's colors and fonts, created once. Font and Color are immutable, so every screen,
+// dialog and ballot row shares these instances instead of allocating its own.
+final class UiTheme {
+    static final Color BG_DARK = Color.decode("#000000");
+    static final Color BG_GREY = Color.decode("#222222");
+    static final Color ACCENT1 = Color.decode("#1DCD9F");
+    static final Color ACCENT2 = Color.decode("#169976");
+    static final Color HIGHLIGHT = new Color(255, 255, 255, 40);
+
+    static final Font PLAIN_13 = new Font("Arial", Font.PLAIN, 13);
+    static final Font PLAIN_14 = new Font("Arial", Font.PLAIN, 14);
+    static final Font PLAIN_16 = new Font("Arial", Font.PLAIN, 16);
+    static final Font PLAIN_18 = new Font("Arial", Font.PLAIN, 18);
+    static final Font BOLD_14 = new Font("Arial", Font.BOLD, 14);
+    static final Font BOLD_16 = new Font("Arial", Font.BOLD, 16);
+    static final Font BOLD_20 = new Font("Arial", Font.BOLD, 20);
+    static final Font BOLD_22 = new Font("Arial", Font.BOLD, 22);
+    static final Font BOLD_24 = new Font("Arial", Font.BOLD, 24);
+    static final Font BOLD_32 = new Font("Arial", Font.BOLD, 32);
+    static final Font MONO_14 = new Font("Monospaced", Font.PLAIN, 14);
+
+    private UiTheme() { }
+}
@@ -0,0 +1,149 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// ---------------- Striped vote tally (optional) ----------------
+// With -Dvoting.tally.mode=striped a ballot transaction only claims the voter and appends
+// its rows to the ballots table; it never touches the hot candidates rows. Accepted votes are
+// counted in per-candidate LongAdders and a background flusher folds them into
+// candidates.votes in one batched transaction (-Dvoting.tally.flushMs, default 1000).
+//
+// The ballots table is the durable record: on start-up candidates.votes is rebuilt from it,
+// so counts that were still in memory when the process died are not lost. Because of that,
+// run striped mode in exactly one process that owns the voting writes (e.g. the vote server);
+// several stations each holding their own unflushed counters would double count on restart.
+final class VoteTally {
+    private static final boolean STRIPED = "striped".equalsIgnoreCase(System.getProperty("voting.tally.mode", "direct"));
+    private static final long FLUSH_MS = Long.getLong("voting.tally.flushMs", 1000L);
+
+    private static final ConcurrentHashMap<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+    // counts taken out of the adders by a flush that has not committed yet; guarded by the write lock
+    private static final Map<Integer, Long> inFlight = new TreeMap<>();
+    // readers hold the read lock across "read candidates + add pending" so they never see a vote
+    // twice (or not at all) while a flush is committing
+    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static volatile boolean started;
+    private static ScheduledExecutorService flusher;
+
+    private VoteTally() { }
+
+    static boolean isStriped() { return STRIPED; }
+
+    // Count an accepted ballot. Call only after its transaction committed.
+    static void record(int[] candidateIds) {
+        for (int cid : candidateIds) pending.computeIfAbsent(cid, k -> new LongAdder()).increment();
+    }
+
+    // Run a candidate query and add the not-yet-flushed counts to the vote totals.
+    static ArrayList<Candidate> merged(Supplier<ArrayList<Candidate>> dbRead) {
+        if (!STRIPED) return dbRead.get();
+        ensureStarted();
+        lock.readLock().lock();
+        try {
+            ArrayList<Candidate> list = dbRead.get();
+            for (Candidate c : list) c.votes += (int) pendingFor(c.id);
+            return list;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long pendingFor(int candidateId) {
+        LongAdder a = pending.get(candidateId);
+        Long f = inFlight.get(candidateId);
+        return (a != null ? a.sum() : 0) + (f != null ? f : 0);
+    }
+
+    // Rebuild candidates.votes from the ballots table, then start the background flusher.
+    static synchronized void ensureStarted() {
+        if (!STRIPED || started) return;
+        try (Connection con = DBUtil.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement("UPDATE candidates SET votes = ? WHERE id = ?")) {
+                for (Map.Entry<Integer, Long> e : TallyEngine.countLedger(con).byCandidate().entrySet()) {
+                    ps.setLong(1, e.getValue());
+                    ps.setInt(2, e.getKey());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                con.commit();
+            } catch (Exception e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        } catch (Exception e) { e.printStackTrace(); }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "voting-tally-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(VoteTally::flush, FLUSH_MS, FLUSH_MS, TimeUnit.MILLISECONDS);
+        // best effort; anything missed is recovered from the ballots table on the next start
+        Runtime.getRuntime().addShutdownHook(new Thread(VoteTally::flush, "voting-tally-final-flush"));
+        started = true;
+        System.out.println("Striped vote tally enabled (flush every " + FLUSH_MS + " ms).");
+    }
+
+    // Move pending counts into candidates.votes in one transaction.
+    static synchronized void flush() {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Integer, LongAdder> e : pending.entrySet()) {
+                long n = e.getValue().sumThenReset();
+                if (n != 0) inFlight.merge(e.getKey(), n, Long::sum);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (inFlight.isEmpty()) return;
+
+        try (Connection con = DBUtil.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = Sql.TALLY_ADD_VOTES.prepare(con)) {
+                // inFlight is only modified by flush(), which is synchronized; TreeMap = id order
+                for (Map.Entry<Integer, Long> e : inFlight.entrySet()) {
+                    ps.setLong(1, e.getValue());
+                    ps.setInt(2, e.getKey());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                lock.writeLock().lock();
+                try {
+                    con.commit();
+                    inFlight.clear();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } catch (Exception e) {
+                // counts stay in inFlight and are retried with the next flush
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        } catch (Exception e) { e.printStackTrace(); }
+    }
+
+    // Forget all in-memory counts (after Admin.resetVotes).
+    static synchronized void reset() {
+        lock.writeLock().lock();
+        try {
+            pending.clear();
+            inFlight.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,402 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// ---------------- Bulk voter roll import ----------------
+// Streams a CSV roll (name,password,dob as YYYY-MM-DD; header optional) into the voters table:
+//   reader (this thread) -> chunks of N lines -> parallel validation (parse + 18+ check)
+//   -> ordered writer: one transaction per chunk, duplicate names checked per chunk with a
+//      single SELECT ... IN, then a JDBC batch insert.
+// Only a bounded number of chunks is in flight, so memory stays flat for any file size.
+// After each commit the number of consumed lines is written to <file>.checkpoint; --resume
+// continues after it. A crash between commit and checkpoint replays one chunk, whose rows are
+// then found as duplicates, so nothing is inserted twice. Rejected lines go to <file>.rejects.
+//
+//   java -cp ".:mysql-connector.jar" VoterImport roll.csv [--chunk 1000] [--threads N]
+//        [--resume] [--verified] [--update-duplicates]
+final class VoterImport {
+
+    static final class Options {
+        int chunkSize = Integer.getInteger("voting.import.chunkSize", 1000);
+        int threads = Integer.getInteger("voting.import.threads", Runtime.getRuntime().availableProcessors());
+        boolean resume;
+        boolean verified;           // imported roll is already vetted: mark voters verified
+        boolean updateDuplicates;   // existing names get the file's password/dob instead of being skipped
+        long progressMs = 5000;
+    }
+
+    static final class Result {
+        long lines;
+        long inserted;
+        long updated;
+        long duplicates;
+        long rejected;
+        long skipped;       // lines before the checkpoint on --resume
+        long elapsedMs;
+
+        double rowsPerSecond() { return elapsedMs > 0 ? (lines - skipped) * 1000.0 / elapsedMs : 0; }
+
+        @Override
+        public String toString() {
+            return String.format("%d lines: %d inserted, %d updated, %d duplicate, %d rejected%s in %.1f s (%.0f rows/s)",
+                    lines, inserted, updated, duplicates, rejected,
+                    skipped > 0 ? ", " + skipped + " skipped from checkpoint" : "",
+                    elapsedMs / 1000.0, rowsPerSecond());
+        }
+    }
+
+    private static final class Row {
+        final String name;
+        final String password;
+        final LocalDate dob;
+
+        Row(String name, String password, LocalDate dob) {
+            this.name = name;
+            this.password = password;
+            this.dob = dob;
+        }
+    }
+
+    private static final class Chunk {
+        final long firstLine;        // 1-based line number of the first line
+        final List<String> lines;
+        final List<Row> rows = new ArrayList<>();
+        final List<String> rejects = new ArrayList<>();
+
+        Chunk(long firstLine, List<String> lines) {
+            this.firstLine = firstLine;
+            this.lines = lines;
+        }
+    }
+
+    // column positions, from the header if there is one
+    private int nameCol = 0, passwordCol = 1, dobCol = 2;
+    private final Options opts;
+    private final LocalDate today = LocalDate.now();
+
+    private VoterImport(Options opts) {
+        this.opts = opts;
+    }
+
+    static Result run(Path csv, Options opts) throws IOException, SQLException, ClassNotFoundException, InterruptedException {
+        return new VoterImport(opts).importFile(csv);
+    }
+
+    private Result importFile(Path csv) throws IOException, SQLException, ClassNotFoundException, InterruptedException {
+        Result result = new Result();
+        Path checkpoint = Paths.get(csv + ".checkpoint");
+        Path rejectsFile = Paths.get(csv + ".rejects");
+        String fingerprint = Files.size(csv) + ":" + Files.getLastModifiedTime(csv).toMillis();
+        long resumeAfter = opts.resume ? readCheckpoint(checkpoint, fingerprint) : 0;
+
+        long start = System.nanoTime();
+        long lastReport = start;
+        ExecutorService validators = Executors.newFixedThreadPool(Math.max(1, opts.threads), r -> {
+            Thread t = new Thread(r, "voter-import-validate");
+            t.setDaemon(true);
+            return t;
+        });
+        // chunks in flight, in file order; the writer always takes the oldest
+        ArrayDeque<CompletableFuture<Chunk>> inFlight = new ArrayDeque<>();
+        int maxInFlight = Math.max(2, opts.threads * 2);
+
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE,
+                     opts.resume ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+             Connection con = DBUtil.getConnection()) {
+
+            long lineNo = 0;
+            String line = in.readLine();
+            if (line != null && line.startsWith("\uFEFF")) line = line.substring(1);
+            if (line != null && readHeader(line)) {
+                lineNo++;
+                line = in.readLine();
+            }
+            for (; line != null && lineNo < resumeAfter; line = in.readLine()) lineNo++;
+            result.skipped = lineNo;
+            result.lines = lineNo;
+
+            con.setAutoCommit(false);
+            try {
+                List<String> batch = new ArrayList<>(opts.chunkSize);
+                long firstLine = lineNo + 1;
+                while (line != null) {
+                    lineNo++;
+                    batch.add(line);
+                    line = in.readLine();
+                    if (batch.size() == opts.chunkSize || line == null) {
+                        Chunk chunk = new Chunk(firstLine, batch);
+                        inFlight.add(CompletableFuture.supplyAsync(() -> validate(chunk), validators));
+                        batch = new ArrayList<>(opts.chunkSize);
+                        firstLine = lineNo + 1;
+                        // back-pressure: write the oldest chunk before reading further ahead
+                        while (inFlight.size() >= maxInFlight || (line == null && !inFlight.isEmpty())) {
+                            write(con, inFlight.poll().join(), result, rejects, checkpoint, fingerprint);
+                        }
+                    }
+                    long now = System.nanoTime();
+                    if ((now - lastReport) / 1_000_000 >= opts.progressMs) {
+                        lastReport = now;
+                        result.elapsedMs = (now - start) / 1_000_000;
+                        System.out.println("Import progress: " + result);
+                    }
+                }
+            } finally {
+                con.setAutoCommit(true);
+            }
+        } finally {
+            validators.shutdownNow();
+        }
+        result.elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        // finished cleanly: a later run starts from the top again
+        Files.deleteIfExists(checkpoint);
+        return result;
+    }
+
+    // ---------------- Validation (parallel) ----------------
+    private boolean readHeader(String line) {
+        List<String> cols = splitCsv(line);
+        if (cols == null || cols.isEmpty() || !"name".equalsIgnoreCase(cols.get(0).trim()) && !cols.contains("dob")) return false;
+        for (int i = 0; i < cols.size(); i++) {
+            String c = cols.get(i).trim().toLowerCase();
+            if (c.equals("name")) nameCol = i;
+            else if (c.equals("password")) passwordCol = i;
+            else if (c.equals("dob")) dobCol = i;
+        }
+        return true;
+    }
+
+    private Chunk validate(Chunk chunk) {
+        int need = Math.max(nameCol, Math.max(passwordCol, dobCol));
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < chunk.lines.size(); i++) {
+            long lineNo = chunk.firstLine + i;
+            String line = chunk.lines.get(i);
+            if (line.trim().isEmpty()) continue;
+            List<String> cols = splitCsv(line);
+            String reason = null;
+            Row row = null;
+            if (cols == null || cols.size() <= need) {
+                reason = "malformed line";
+            } else {
+                String name = cols.get(nameCol).trim();
+                String password = cols.get(passwordCol);
+                LocalDate dob = null;
+                try { dob = LocalDate.parse(cols.get(dobCol).trim()); } catch (DateTimeParseException e) { /* reported below */ }
+                if (name.isEmpty() || name.length() > 50) reason = "name must be 1-50 characters";
+                else if (password.isEmpty() || password.length() > 50) reason = "password must be 1-50 characters";
+                else if (dob == null) reason = "dob is not YYYY-MM-DD";
+                else if (!Voter.isEligible(dob, today)) reason = "under " + Voter.MIN_AGE;
+                else if (!seen.add(name)) reason = "duplicate name in file";
+                else row = new Row(name, password, dob);
+            }
+            if (row != null) chunk.rows.add(row);
+            else chunk.rejects.add(lineNo + "," + reason + "," + line);
+        }
+        return chunk;
+    }
+
+    // Splits one CSV line; quoted fields may contain commas and "" escapes. null if a quote is unclosed.
+    static List<String> splitCsv(String line) {
+        List<String> out = new ArrayList<>(4);
+        if (line.indexOf('"') < 0) {
+            int from = 0;
+            for (int comma; (comma = line.indexOf(',', from)) >= 0; from = comma + 1) out.add(line.substring(from, comma));
+            out.add(line.substring(from));
+            return out;
+        }
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') { field.append('"'); i++; }
+                    else quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) return null;
+        out.add(field.toString());
+        return out;
+    }
+
+    // ---------------- Writer (ordered, one transaction per chunk) ----------------
+    private void write(Connection con, Chunk chunk, Result result, BufferedWriter rejects,
+                       Path checkpoint, String fingerprint) throws SQLException, IOException {
+        for (String r : chunk.rejects) {
+            rejects.write(r);
+            rejects.newLine();
+        }
+        result.rejected += chunk.rejects.size();
+
+        List<Row> rows = chunk.rows;
+        Set<String> existing = rows.isEmpty() ? new HashSet<>() : existingNames(con, rows);
+        String insert = "INSERT INTO voters(name, password, dob, has_voted, verified) VALUES(?, ?, ?, 0, ?)";
+        String update = "UPDATE voters SET password = ?, dob = ? WHERE name = ?";
+        long inserted = 0, updated = 0, duplicates = 0;
+        try (PreparedStatement ins = con.prepareStatement(insert);
+             PreparedStatement upd = con.prepareStatement(update)) {
+            for (Row r : rows) {
+                if (existing.contains(r.name)) {
+                    if (!opts.updateDuplicates) { duplicates++; continue; }
+                    upd.setString(1, r.password);
+                    upd.setDate(2, Date.valueOf(r.dob));
+                    upd.setString(3, r.name);
+                    upd.addBatch();
+                    updated++;
+                } else {
+                    ins.setString(1, r.name);
+                    ins.setString(2, r.password);
+                    ins.setDate(3, Date.valueOf(r.dob));
+                    ins.setBoolean(4, opts.verified);
+                    ins.addBatch();
+                    inserted++;
+                }
+            }
+            if (inserted > 0) ins.executeBatch();
+            if (updated > 0) upd.executeBatch();
+            con.commit();
+        } catch (SQLIntegrityConstraintViolationException | BatchUpdateException e) {
+            // a name was registered between the duplicate check and the insert: redo row by row
+            con.rollback();
+            long[] counts = writeRowByRow(con, rows);
+            inserted = counts[0];
+            updated = counts[1];
+            duplicates = counts[2];
+        } catch (SQLException e) {
+            con.rollback();
+            throw e;
+        }
+        result.inserted += inserted;
+        result.updated += updated;
+        result.duplicates += duplicates;
+        result.lines = chunk.firstLine - 1 + chunk.lines.size();
+
+        rejects.flush();
+        writeCheckpoint(checkpoint, fingerprint, result.lines);
+    }
+
+    private Set<String> existingNames(Connection con, List<Row> rows) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT name FROM voters WHERE name IN (");
+        for (int i = 0; i < rows.size(); i++) sql.append(i == 0 ? "?" : ",?");
+        sql.append(')');
+        Set<String> names = new HashSet<>();
+        try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
+            for (int i = 0; i < rows.size(); i++) ps.setString(i + 1, rows.get(i).name);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    // Slow path for a chunk that hit a conflict: {inserted, updated, duplicates}.
+    private long[] writeRowByRow(Connection con, List<Row> rows) throws SQLException {
+        long[] counts = new long[3];
+        String insert = "INSERT INTO voters(name, password, dob, has_voted, verified) VALUES(?, ?, ?, 0, ?)";
+        String update = "UPDATE voters SET password = ?, dob = ? WHERE name = ?";
+        try (PreparedStatement ins = con.prepareStatement(insert);
+             PreparedStatement upd = con.prepareStatement(update)) {
+            for (Row r : rows) {
+                Savepoint sp = con.setSavepoint();
+                try {
+                    ins.setString(1, r.name);
+                    ins.setString(2, r.password);
+                    ins.setDate(3, Date.valueOf(r.dob));
+                    ins.setBoolean(4, opts.verified);
+                    ins.executeUpdate();
+                    counts[0]++;
+                } catch (SQLIntegrityConstraintViolationException dup) {
+                    con.rollback(sp);
+                    if (opts.updateDuplicates) {
+                        upd.setString(1, r.password);
+                        upd.setDate(2, Date.valueOf(r.dob));
+                        upd.setString(3, r.name);
+                        upd.executeUpdate();
+                        counts[1]++;
+                    } else {
+                        counts[2]++;
+                    }
+                }
+            }
+            con.commit();
+        } catch (SQLException e) {
+            con.rollback();
+            throw e;
+        }
+        return counts;
+    }
+
+    // ---------------- Checkpoint ----------------
+    private static long readCheckpoint(Path checkpoint, String fingerprint) throws IOException {
+        if (!Files.exists(checkpoint)) return 0;
+        Properties p = new Properties();
+        try (BufferedReader r = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+            p.load(r);
+        }
+        if (!fingerprint.equals(p.getProperty("file"))) {
+            throw new IOException("The file changed since the checkpoint was written; delete " + checkpoint + " to start over.");
+        }
+        long lines = Long.parseLong(p.getProperty("lines", "0"));
+        System.out.println("Resuming after line " + lines + ".");
+        return lines;
+    }
+
+    // written to a temp file and moved into place, so a crash never leaves a torn checkpoint
+    private static void writeCheckpoint(Path checkpoint, String fingerprint, long lines) throws IOException {
+        Path tmp = Paths.get(checkpoint + ".tmp");
+        Files.write(tmp, ("file=" + fingerprint + "\nlines=" + lines + "\n").getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new Options();
+        Path csv = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--chunk": opts.chunkSize = Integer.parseInt(args[++i]); break;
+                case "--threads": opts.threads = Integer.parseInt(args[++i]); break;
+                case "--resume": opts.resume = true; break;
+                case "--verified": opts.verified = true; break;
+                case "--update-duplicates": opts.updateDuplicates = true; break;
+                default: csv = Paths.get(args[i]);
+            }
+        }
+        if (csv == null) {
+            System.out.println("Usage: VoterImport roll.csv [--chunk N] [--threads N] [--resume] [--verified] [--update-duplicates]");
+            System.exit(2);
+        }
+        Result result = run(csv, opts);
+        System.out.println("Import finished: " + result);
+        if (result.rejected > 0) System.out.println("Rejected lines written to " + csv + ".rejects");
+    }
+}
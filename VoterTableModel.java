@@ -0,0 +1,127 @@
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// ---------------- Lazy voter roll table ----------------
+// TableModel over the voters table that never holds the whole roll. The row count comes from
+// a page index (first id of every page, see Admin.getVoterPageIndex); rows are read one
+// keyset page at a time, only when the JTable asks for them, and kept in a small LRU of pages
+// (-Dvoting.voters.pageSize, default 200; -Dvoting.voters.cachePages, default 25). The next or
+// previous page is prefetched when a row near a page edge is shown. All state is touched on
+// the EDT only; the queries run through VotingService.
+final class VoterTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final int PAGE_SIZE = Integer.getInteger("voting.voters.pageSize", 200);
+    private static final int MAX_PAGES = Math.max(4, Integer.getInteger("voting.voters.cachePages", 25));
+    private static final String[] COLUMNS = {"ID", "Name", "Voted", "Verified", "DOB"};
+    private static final Class<?>[] TYPES = {Integer.class, String.class, Boolean.class, Boolean.class, String.class};
+
+    private final VotingService service;
+    private final Admin admin;
+    private final Map<Integer, List<Voter>> pages = new LinkedHashMap<Integer, List<Voter>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Voter>> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+    private final Set<Integer> loading = new HashSet<>();
+    private VoterPageIndex index = VoterPageIndex.EMPTY;
+    private String search = "";
+    private int generation;   // bumped on every reload; late pages from an older search are dropped
+    private Runnable onReload = () -> { };
+
+    VoterTableModel(VotingService service, Admin admin) {
+        this.service = service;
+        this.admin = admin;
+    }
+
+    // Called on the EDT after every (re)load of the page index.
+    void setOnReload(Runnable onReload) {
+        this.onReload = onReload;
+    }
+
+    // New search (name prefix or id); empty shows the whole roll.
+    void search(String text) {
+        search = text == null ? "" : text.trim();
+        refresh();
+    }
+
+    // Re-read the index and drop cached pages, e.g. after an edit.
+    void refresh() {
+        int gen = ++generation;
+        pages.clear();
+        loading.clear();
+        String s = search;
+        service.call(() -> admin.getVoterPageIndex(s, PAGE_SIZE)).whenComplete((idx, err) -> SwingUtilities.invokeLater(() -> {
+            if (gen != generation) return;
+            if (err != null) err.printStackTrace();
+            index = err != null ? VoterPageIndex.EMPTY : idx;
+            fireTableDataChanged();
+            onReload.run();
+        }));
+    }
+
+    // The voter shown in a row, or null while its page is still loading.
+    Voter getVoter(int row) {
+        List<Voter> page = pages.get(row / PAGE_SIZE);
+        int offset = row % PAGE_SIZE;
+        return page != null && offset < page.size() ? page.get(offset) : null;
+    }
+
+    @Override
+    public int getRowCount() { return index.total; }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int column) { return COLUMNS[column]; }
+
+    @Override
+    public Class<?> getColumnClass(int column) { return TYPES[column]; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int p = row / PAGE_SIZE;
+        int offset = row % PAGE_SIZE;
+        List<Voter> page = pages.get(p);
+        if (page == null) {
+            request(p);
+            return column == 1 ? "Loading..." : null;
+        }
+        // scrolling towards the next/previous page: fetch it before it is needed
+        if (offset >= PAGE_SIZE * 3 / 4) request(p + 1);
+        else if (offset < PAGE_SIZE / 4) request(p - 1);
+        if (offset >= page.size()) return null;   // roll shrank since the index was read
+        Voter v = page.get(offset);
+        switch (column) {
+            case 0: return v.getId();
+            case 1: return v.getName();
+            case 2: return v.isHasVoted();
+            case 3: return v.isVerified();
+            default: return v.getDob() != null ? v.getDob().toString() : "";
+        }
+    }
+
+    private void request(int p) {
+        if (p < 0 || p >= index.pageStarts.length || pages.containsKey(p) || !loading.add(p)) return;
+        int gen = generation;
+        int fromId = index.pageStarts[p];
+        String s = search;
+        service.call(() -> admin.getVotersPage(fromId, PAGE_SIZE, s)).whenComplete((rows, err) -> SwingUtilities.invokeLater(() -> {
+            if (gen != generation) return;
+            loading.remove(p);
+            if (err != null) err.printStackTrace();
+            // a failed page stays empty until the next refresh instead of being retried on every repaint
+            pages.put(p, err != null ? Collections.emptyList() : rows);
+            int first = p * PAGE_SIZE;
+            int last = Math.min(index.total, first + PAGE_SIZE) - 1;
+            if (last >= first) fireTableRowsUpdated(first, last);
+        }));
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// ---------------- Vote server client ----------------
+// Talks to a VotingServer over HTTP/JSON. With -Dvoting.server.url=http://host:8080 the GUI's
+// voter screens (login, ballot, vote, status) go through the server instead of the database;
+// the admin console keeps using the DB directly. One HttpClient is shared, so connections are
+// kept alive and reused across requests. Also used by VotingLoadGen.
+final class VotingClient {
+    private static final String URL = System.getProperty("voting.server.url");
+    private static volatile VotingClient shared;
+
+    // long poll length for status updates
+    static final long STATUS_WAIT_MS = Long.getLong("voting.status.waitMs", 25_000L);
+
+    static final class Status {
+        final boolean active;
+        final long seq;
+
+        Status(boolean active, long seq) {
+            this.active = active;
+            this.seq = seq;
+        }
+    }
+
+    // an API call that came back with a non-200 status
+    static final class ApiError extends IOException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        ApiError(int status, String message) {
+            super(status + ": " + message);
+            this.status = status;
+        }
+    }
+
+    private final String baseUrl;
+    private final HttpClient http;
+    // session tokens of voters logged in through this client
+    private final Map<Voter, String> tokens = Collections.synchronizedMap(new WeakHashMap<>());
+
+    VotingClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        // HTTP/1.1: the JDK server does not speak h2c, so skip the upgrade attempt
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    static boolean isConfigured() {
+        return URL != null && !URL.isEmpty();
+    }
+
+    // The client for -Dvoting.server.url, or null when the GUI talks to the DB directly.
+    static VotingClient shared() {
+        if (!isConfigured()) return null;
+        VotingClient c = shared;
+        if (c == null) {
+            synchronized (VotingClient.class) {
+                c = shared;
+                if (c == null) shared = c = new VotingClient(URL);
+            }
+        }
+        return c;
+    }
+
+    // ---------------- Calls ----------------
+    Object call(String path, Object body) throws IOException, InterruptedException {
+        return call(path, body, Duration.ofSeconds(30));
+    }
+
+    private Object call(String path, Object body, Duration timeout) throws IOException, InterruptedException {
+        HttpRequest req = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body == null ? "" : Json.write(body), StandardCharsets.UTF_8))
+                .build();
+        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        Object json = resp.body().isEmpty() ? null : Json.parse(resp.body());
+        if (resp.statusCode() != 200) throw new ApiError(resp.statusCode(), errorMessage(json));
+        return json;
+    }
+
+    // Voter for the credentials, or null if they are wrong or the account is not verified.
+    Voter login(String name, String password) throws IOException, InterruptedException {
+        try {
+            return voterFrom(call("/api/voter/login", body("name", name, "password", password)));
+        } catch (ApiError e) {
+            if (e.status == 401) return null;
+            throw e;
+        }
+    }
+
+    Ballot ballot() throws IOException, InterruptedException {
+        return ballotFrom(call("/api/ballot", null));
+    }
+
+    VoteResult castBallot(Voter voter, int[] candidateIds) throws IOException, InterruptedException {
+        return vote(voter, "candidateIds", candidateIds);
+    }
+
+    // the packed ballot goes over the wire as one slot per position id
+    VoteResult castBallot(Voter voter, BallotRecord record) throws IOException, InterruptedException {
+        return vote(voter, "choices", record.toArray());
+    }
+
+    private VoteResult vote(Voter voter, String field, int[] selection) throws IOException, InterruptedException {
+        String token = tokens.get(voter);
+        if (token == null) return VoteResult.FAILED;
+        Map<String, Object> body = body("token", token);
+        body.put(field, selection);
+        VoteResult result;
+        try {
+            Map<?, ?> m = (Map<?, ?>) call("/api/vote", body);
+            result = VoteResult.valueOf(String.valueOf(m.get("result")));
+        } catch (ApiError e) {
+            if (e.status == 409) {
+                result = VoteResult.ALREADY_VOTED;
+            } else if (e.status == 401) {
+                // session expired or lost in a server restart: nothing was cast, the voter logs in again
+                tokens.remove(voter);
+                System.out.println("Vote server session expired; please log in again.");
+                return VoteResult.FAILED;
+            } else {
+                throw e;
+            }
+        }
+        // same as a local cast: the voter object now knows it has voted
+        if (result == VoteResult.ACCEPTED || result == VoteResult.ALREADY_VOTED) voter.markVoted();
+        return result;
+    }
+
+    ResultsAggregator.Snapshot results() throws IOException, InterruptedException {
+        return ResultsAggregator.Snapshot.fromJson(call("/api/results", null));
+    }
+
+    // Returns at once if the server's status seq differs from since, else waits up to waitMs.
+    Status status(long since, long waitMs) throws IOException, InterruptedException {
+        Map<?, ?> m = (Map<?, ?>) call("/api/status", body("since", since, "waitMs", waitMs),
+                Duration.ofMillis(waitMs + 10_000));
+        return new Status(Boolean.TRUE.equals(m.get("active")), ((Number) m.get("seq")).longValue());
+    }
+
+    // Several calls in one round trip, run in order by the server. Each response is {status, body}.
+    List<Object> batch(List<Map<String, Object>> requests) throws IOException, InterruptedException {
+        Map<?, ?> m = (Map<?, ?>) call("/api/batch", body("requests", requests));
+        return new ArrayList<>((List<?>) m.get("responses"));
+    }
+
+    static Map<String, Object> request(String path, Map<String, Object> body) {
+        return body("path", path, "body", body);
+    }
+
+    // ---------------- JSON -> model ----------------
+    Voter voterFrom(Object json) {
+        Map<?, ?> m = (Map<?, ?>) json;
+        Map<?, ?> v = (Map<?, ?>) m.get("voter");
+        // the password stays on the server side; the session token stands in for it
+        Voter voter = new Voter(((Number) v.get("id")).intValue(), (String) v.get("name"), null,
+                Boolean.TRUE.equals(v.get("hasVoted")), Boolean.TRUE.equals(v.get("verified")), null);
+        tokens.put(voter, (String) m.get("token"));
+        return voter;
+    }
+
+    String tokenOf(Voter voter) {
+        return tokens.get(voter);
+    }
+
+    static Ballot ballotFrom(Object json) {
+        Map<?, ?> m = (Map<?, ?>) json;
+        List<Ballot.Race> races = new ArrayList<>();
+        for (Object r : (List<?>) m.get("races")) {
+            Map<?, ?> rm = (Map<?, ?>) r;
+            int positionId = ((Number) rm.get("positionId")).intValue();
+            List<Ballot.Choice> choices = new ArrayList<>();
+            for (Object c : (List<?>) rm.get("choices")) {
+                Map<?, ?> cm = (Map<?, ?>) c;
+                choices.add(new Ballot.Choice(((Number) cm.get("id")).intValue(), positionId,
+                        ((Number) cm.get("slot")).intValue(), (String) cm.get("name"),
+                        (String) cm.get("symbol"), ((Number) cm.get("age")).intValue()));
+            }
+            races.add(new Ballot.Race(positionId, (String) rm.get("position"), choices));
+        }
+        return Ballot.of(((Number) m.get("version")).longValue(), races);
+    }
+
+    private static Map<String, Object> body(Object... kv) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        for (int i = 0; i < kv.length; i += 2) m.put((String) kv[i], kv[i + 1]);
+        return m;
+    }
+
+    private static String errorMessage(Object json) {
+        if (json instanceof Map && ((Map<?, ?>) json).get("error") != null) return String.valueOf(((Map<?, ?>) json).get("error"));
+        return "request failed";
+    }
+}
@@ -1,11 +1,9 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.RoundRectangle2D;
-import java.util.Enumeration;
 import java.awt.event.*;
 import java.io.File;
 import java.nio.file.Files;
-import java.sql.*;
 import java.util.ArrayList;
 import javax.swing.border.EmptyBorder;
 
@@ -15,15 +13,18 @@ import javax.swing.border.EmptyBorder;
 // ------------------------ GUI ------------------------
 public class VotingGUI extends JFrame {
     private Admin adminLogic = new Admin();
+    private final VotingService service = new VotingService(adminLogic);
     private Voter currentVoter;
+    private BallotView ballotView;   // built by showBallot, reused while the ballot is unchanged
+    private Runnable voterPanelRefresh = () -> { };
 
     private JPanel mainPanel;
     private CardLayout cardLayout;
 
-    private final Color bgDark = Color.decode("#000000");
-    private final Color bgGrey = Color.decode("#222222");
-    private final Color accent1 = Color.decode("#1DCD9F");
-    private final Color accent2 = Color.decode("#169976");
+    private final Color bgDark = UiTheme.BG_DARK;
+    private final Color bgGrey = UiTheme.BG_GREY;
+    private final Color accent1 = UiTheme.ACCENT1;
+    private final Color accent2 = UiTheme.ACCENT2;
 
     public VotingGUI() {
         setTitle("Voting System");
@@ -38,16 +39,127 @@ public class VotingGUI extends JFrame {
         mainPanel = new JPanel(cardLayout);
         mainPanel.setBackground(bgDark);
 
-        mainPanel.add(getWelcomePanel(), "WELCOME");
-        mainPanel.add(getHomePanel(), "HOME");
-        mainPanel.add(getAdminLoginPanel(), "ADMIN_LOGIN");
-        mainPanel.add(getAdminPanel(), "ADMIN_PANEL");
-        mainPanel.add(getVoterLoginPanel(), "VOTER_LOGIN");
-        mainPanel.add(getVoterPanel(), "VOTER_PANEL");
+        // screens are built the first time they are shown (see showCard)
+        cards.put("WELCOME", this::getWelcomePanel);
+        cards.put("HOME", this::getHomePanel);
+        cards.put("ADMIN_LOGIN", this::getAdminLoginPanel);
+        cards.put("ADMIN_PANEL", this::getAdminPanel);
+        cards.put("VOTER_LOGIN", this::getVoterLoginPanel);
+        cards.put("VOTER_PANEL", this::getVoterPanel);
 
         add(mainPanel);
-        cardLayout.show(mainPanel, "WELCOME");
+        setGlassPane(createBusyPane());
+        showCard("WELCOME");
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) { startupDone(); }
+        });
         setVisible(true);
+        if (Boolean.getBoolean("voting.ui.edtProbe")) startEdtProbe();
+    }
+
+    // ---------------- Screens ----------------
+    private final java.util.Map<String, java.util.function.Supplier<JPanel>> cards = new java.util.LinkedHashMap<>();
+    private final java.util.Set<String> builtCards = new java.util.HashSet<>();
+
+    private void showCard(String name) {
+        if (builtCards.add(name)) mainPanel.add(cards.get(name).get(), name);
+        cardLayout.show(mainPanel, name);
+    }
+
+    // ---------------- Startup ----------------
+    // The first frame only needs the welcome screen; the pool (driver, schema check, hot
+    // statements), the voting status and the ballot are loaded behind it, so the first
+    // login does not pay for them. -Dvoting.ui.warmup=false skips that (e.g. admin-only PCs).
+    // -Dvoting.ui.train=true opens every screen, waits for the warm-up and exits: the run
+    // LaunchVoting.sh records its class-data sharing archive from.
+    private static final long JVM_START_MS = ProcessHandle.current().info().startInstant()
+            .map(java.time.Instant::toEpochMilli).orElse(System.currentTimeMillis());
+
+    private void startupDone() {
+        System.out.println("Startup: first frame " + (System.currentTimeMillis() - JVM_START_MS) + " ms after JVM start");
+        boolean train = Boolean.getBoolean("voting.ui.train");
+        java.util.concurrent.CompletableFuture<Void> warm = !train && "false".equals(System.getProperty("voting.ui.warmup"))
+                ? java.util.concurrent.CompletableFuture.completedFuture(null)
+                : service.warmUp().whenComplete((v, err) -> {
+                    if (err != null) err.printStackTrace();
+                    else System.out.println("Startup: warm-up done " + (System.currentTimeMillis() - JVM_START_MS) + " ms after JVM start");
+                });
+        if (train) {
+            for (String name : cards.keySet()) showCard(name);
+            showCard("WELCOME");
+            warm.whenComplete((v, err) -> SwingUtilities.invokeLater(() -> {
+                dispose();
+                System.exit(0);
+            }));
+        }
+    }
+
+    // ---------------- Background work ----------------
+    // All DB calls go through VotingService so the EDT never blocks on JDBC. While a call is
+    // running the window shows a wait cursor and a glass pane that swallows mouse input;
+    // the result (or error) is applied back on the EDT.
+    private int busyCount;
+
+    private JComponent createBusyPane() {
+        JPanel pane = new JPanel(new GridBagLayout());
+        pane.setOpaque(false);
+        JLabel lbl = new JLabel("Please wait...");
+        lbl.setOpaque(true);
+        lbl.setBackground(bgGrey);
+        lbl.setForeground(accent1);
+        lbl.setFont(UiTheme.BOLD_16);
+        lbl.setBorder(new EmptyBorder(10, 20, 10, 20));
+        pane.add(lbl);
+        pane.addMouseListener(new MouseAdapter() { });
+        pane.addMouseMotionListener(new MouseMotionAdapter() { });
+        return pane;
+    }
+
+    private void setBusy(boolean busy) {
+        busyCount += busy ? 1 : -1;
+        boolean show = busyCount > 0;
+        getGlassPane().setVisible(show);
+        setCursor(show ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+    }
+
+    private <T> void runAsync(java.util.concurrent.CompletableFuture<T> work,
+                              java.util.function.Consumer<T> onSuccess,
+                              java.util.function.Consumer<Throwable> onError) {
+        setBusy(true);
+        work.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            setBusy(false);
+            if (error != null) {
+                Throwable cause = error instanceof java.util.concurrent.CompletionException && error.getCause() != null ? error.getCause() : error;
+                cause.printStackTrace();
+                onError.accept(cause);
+            } else if (onSuccess != null) {
+                onSuccess.accept(result);
+            }
+        }));
+    }
+
+    private <T> void runAsync(java.util.concurrent.CompletableFuture<T> work,
+                              java.util.function.Consumer<T> onSuccess, String errorMessage) {
+        runAsync(work, onSuccess, err -> showStyledDialog("Error", errorMessage, false));
+    }
+
+    // -Dvoting.ui.edtProbe=true: log whenever the EDT takes longer than one 60 Hz frame to respond
+    private void startEdtProbe() {
+        Thread probe = new Thread(() -> {
+            while (true) {
+                long posted = System.nanoTime();
+                try {
+                    SwingUtilities.invokeAndWait(() -> {
+                        long lagMs = (System.nanoTime() - posted) / 1_000_000;
+                        if (lagMs > 16) System.out.println("EDT stalled for " + lagMs + " ms");
+                    });
+                    Thread.sleep(100);
+                } catch (Exception e) { return; }
+            }
+        }, "voting-edt-probe");
+        probe.setDaemon(true);
+        probe.start();
     }
 
     private JButton createStyledButton(String text){
@@ -55,23 +167,40 @@ public class VotingGUI extends JFrame {
         btn.setBackground(accent1);
         btn.setForeground(Color.WHITE);
         btn.setFocusPainted(false);
-        btn.setFont(new Font("Arial", Font.PLAIN, 13));
+        btn.setFont(UiTheme.PLAIN_13);
         btn.setPreferredSize(new Dimension(120,34));
         return btn;
     }
 
     private JButton createPrimaryButton(String text) {
         JButton btn = createStyledButton(text);
-        btn.setFont(new Font("Arial", Font.BOLD, 16));
+        btn.setFont(UiTheme.BOLD_16);
         btn.setPreferredSize(new Dimension(180,48));
         return btn;
     }
 
     // Rounded button with a subtle 3D gradient and rounded corners
-    private class RoundedButton extends JButton {
-        private final int arc = 16;
-        private float scale = 1f;
-        private Timer bounceTimer;
+    // Rounded gradient button with a short "bounce" on press. Each look it can show (one per
+    // bounce frame) is rendered once into an image for the current size, colors, font, text
+    // and screen scale, so a repaint is a single image copy with no allocation. All bouncing
+    // buttons share one Timer, and each tick repaints them in the same event, so Swing
+    // coalesces their repaints into one paint pass.
+    private static class RoundedButton extends JButton {
+        private static final int ARC = 16;
+        private static final float[] FRAMES = {0.96f, 1.04f, 0.98f, 1f};
+        private static final int REST = FRAMES.length - 1;
+        private static final ArrayList<RoundedButton> bouncing = new ArrayList<>();
+        private static final Timer BOUNCE = new Timer(40, e -> tick());
+
+        private int frame = REST;
+        private final java.awt.image.BufferedImage[] skins = new java.awt.image.BufferedImage[FRAMES.length];
+        // what the skins were rendered for
+        private int skinW, skinH;
+        private Color skinBg, skinFg;
+        private Font skinFont;
+        private String skinText;
+        private GraphicsConfiguration skinGc;
+        private double skinScale = 1;
 
         RoundedButton(String text) {
             super(text);
@@ -89,28 +218,56 @@ public class VotingGUI extends JFrame {
         }
 
         private void startBounce() {
-            if (bounceTimer != null && bounceTimer.isRunning()) return;
-            final float[] frames = new float[]{0.96f, 1.04f, 0.98f, 1f};
-            final int[] idx = {0};
-            bounceTimer = new Timer(40, ae -> {
-                scale = frames[idx[0]++];
-                repaint();
-                if (idx[0] >= frames.length) {
-                    bounceTimer.stop();
-                    scale = 1f;
-                    repaint();
-                }
-            });
-            bounceTimer.setInitialDelay(0);
-            bounceTimer.start();
+            if (frame != REST) return;
+            frame = 0;
+            repaint();
+            bouncing.add(this);
+            if (!BOUNCE.isRunning()) BOUNCE.start();
+        }
+
+        private static void tick() {
+            for (int i = bouncing.size() - 1; i >= 0; i--) {
+                RoundedButton b = bouncing.get(i);
+                b.frame++;
+                b.repaint();
+                if (b.frame == REST) bouncing.remove(i);
+            }
+            if (bouncing.isEmpty()) BOUNCE.stop();
         }
 
         @Override
         protected void paintComponent(Graphics g) {
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
             int w = getWidth();
             int h = getHeight();
+            if (w <= 0 || h <= 0) return;
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            if (w != skinW || h != skinH || getBackground() != skinBg || getForeground() != skinFg
+                    || getFont() != skinFont || getText() != skinText || gc != skinGc) {
+                java.util.Arrays.fill(skins, null);
+                skinW = w;
+                skinH = h;
+                skinBg = getBackground();
+                skinFg = getForeground();
+                skinFont = getFont();
+                skinText = getText();
+                skinGc = gc;
+                // HiDPI: render at device resolution, drawn back at component size
+                skinScale = gc != null ? gc.getDefaultTransform().getScaleX() : 1;
+            }
+            java.awt.image.BufferedImage skin = skins[frame];
+            if (skin == null) skin = skins[frame] = renderSkin(FRAMES[frame]);
+            g.drawImage(skin, 0, 0, w, h, null);
+        }
+
+        private java.awt.image.BufferedImage renderSkin(float scale) {
+            int w = skinW;
+            int h = skinH;
+            java.awt.image.BufferedImage img = new java.awt.image.BufferedImage(
+                    (int) Math.ceil(w * skinScale), (int) Math.ceil(h * skinScale), java.awt.image.BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2 = img.createGraphics();
+            g2.scale(skinScale, skinScale);
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
             // scaled dimensions centered
             int sw = Math.max(2, Math.round(w * scale));
@@ -118,39 +275,34 @@ public class VotingGUI extends JFrame {
             int sx = (w - sw) / 2;
             int sy = (h - sh) / 2;
 
-            RoundRectangle2D.Float rr = new RoundRectangle2D.Float(sx, sy, sw-1, sh-1, arc, arc);
+            RoundRectangle2D.Float rr = new RoundRectangle2D.Float(sx, sy, sw-1, sh-1, ARC, ARC);
 
             // gradient for 3D effect
-            Color base = getBackground() != null ? getBackground() : accent1;
-            Color top = base.brighter();
-            Color bottom = base.darker();
-            GradientPaint gp = new GradientPaint(0, sy, top, 0, sy + sh, bottom);
-            g2.setPaint(gp);
+            Color base = skinBg != null ? skinBg : UiTheme.ACCENT1;
+            g2.setPaint(new GradientPaint(0, sy, base.brighter(), 0, sy + sh, base.darker()));
             g2.fill(rr);
 
             // subtle inner highlight
-            g2.setStroke(new BasicStroke(1f));
-            g2.setColor(new Color(255,255,255,40));
-            RoundRectangle2D.Float inner = new RoundRectangle2D.Float(sx+1, sy+1, sw-3, sh/2, Math.max(0, arc-4), Math.max(0, arc-4));
-            g2.fill(inner);
+            g2.setColor(UiTheme.HIGHLIGHT);
+            g2.fill(new RoundRectangle2D.Float(sx+1, sy+1, sw-3, sh/2, Math.max(0, ARC-4), Math.max(0, ARC-4)));
 
             // border
             g2.setColor(base.darker().darker());
             g2.draw(rr);
 
-            // draw text centered within scaled rect
-            String text = getText();
-            Font font = getFont();
-            // slightly scale font with button
-            Font use = font.deriveFont(font.getSize2D() * scale);
-            g2.setFont(use);
-            FontMetrics fm = g2.getFontMetrics(use);
-            int tx = sx + (sw - fm.stringWidth(text)) / 2;
-            int ty = sy + (sh - fm.getHeight()) / 2 + fm.getAscent();
-            g2.setColor(getForeground());
-            g2.drawString(text, tx, ty);
+            // draw text centered within scaled rect, font scaled with the button
+            if (skinText != null && skinFont != null) {
+                Font use = skinFont.deriveFont(skinFont.getSize2D() * scale);
+                g2.setFont(use);
+                FontMetrics fm = g2.getFontMetrics(use);
+                int tx = sx + (sw - fm.stringWidth(skinText)) / 2;
+                int ty = sy + (sh - fm.getHeight()) / 2 + fm.getAscent();
+                g2.setColor(skinFg);
+                g2.drawString(skinText, tx, ty);
+            }
 
             g2.dispose();
+            return img;
         }
     }
 
@@ -160,7 +312,7 @@ public class VotingGUI extends JFrame {
         p.setBackground(bgDark);
         JLabel lbl = new JLabel("<html><body style='width:420px;color:#FFFFFF;'>" + message + "</body></html>");
         lbl.setForeground(Color.WHITE);
-        lbl.setFont(new Font("Arial", Font.BOLD, 14));
+        lbl.setFont(UiTheme.BOLD_14);
         p.add(lbl, BorderLayout.CENTER);
         JOptionPane.showMessageDialog(this, p, title,
             info ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.PLAIN_MESSAGE);
@@ -175,10 +327,10 @@ public class VotingGUI extends JFrame {
         l.setOpaque(true);
         l.setBackground(Color.WHITE);
         l.setForeground(Color.BLACK);
-        l.setFont(new Font("Arial", Font.PLAIN, 16));
+        l.setFont(UiTheme.PLAIN_16);
         JTextField tf = new JTextField(initial != null ? initial : "", 30);
         tf.setBackground(Color.WHITE); tf.setForeground(Color.BLACK);
-        tf.setFont(new Font("Arial", Font.PLAIN, 16));
+        tf.setFont(UiTheme.PLAIN_16);
         p.add(l, BorderLayout.NORTH);
         p.add(tf, BorderLayout.CENTER);
         int res = JOptionPane.showConfirmDialog(this, p, title, JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
@@ -195,12 +347,12 @@ public class VotingGUI extends JFrame {
         l.setOpaque(true);
         l.setBackground(Color.WHITE);
         l.setForeground(Color.BLACK);
-        l.setFont(new Font("Arial", Font.PLAIN, 16));
+        l.setFont(UiTheme.PLAIN_16);
         JComboBox<String> cb = new JComboBox<>();
         for (Object o : options) cb.addItem(o.toString());
         if (initial != null) cb.setSelectedItem(initial.toString());
         cb.setBackground(Color.WHITE); cb.setForeground(Color.BLACK);
-        cb.setFont(new Font("Arial", Font.PLAIN, 16));
+        cb.setFont(UiTheme.PLAIN_16);
         p.add(l, BorderLayout.NORTH);
         p.add(cb, BorderLayout.CENTER);
         int res = JOptionPane.showConfirmDialog(this, p, title, JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
@@ -214,7 +366,7 @@ public class VotingGUI extends JFrame {
         p.setBackground(bgDark);
         JLabel l = new JLabel("<html><body style='width:420px;color:#FFFFFF;'>" + message + "</body></html>");
         l.setForeground(Color.WHITE);
-            l.setFont(new Font("Arial", Font.PLAIN, 14));
+            l.setFont(UiTheme.PLAIN_14);
         p.add(l, BorderLayout.CENTER);
         return JOptionPane.showConfirmDialog(this, p, title, JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
     }
@@ -224,11 +376,11 @@ public class VotingGUI extends JFrame {
     panel.setBackground(bgDark);
         JLabel welcome = new JLabel("Welcome to the Voting System", SwingConstants.CENTER);
         welcome.setForeground(accent1);
-        welcome.setFont(new Font("Arial", Font.BOLD, 32));
+        welcome.setFont(UiTheme.BOLD_32);
         panel.add(welcome, BorderLayout.CENTER);
 
     JButton continueBtn = createPrimaryButton("Continue");
-        continueBtn.addActionListener(e -> cardLayout.show(mainPanel, "HOME"));
+        continueBtn.addActionListener(e -> showCard("HOME"));
         JPanel btnPanel = new JPanel(); btnPanel.setBackground(bgDark); btnPanel.add(continueBtn);
         panel.add(btnPanel, BorderLayout.SOUTH);
 
@@ -245,8 +397,8 @@ public class VotingGUI extends JFrame {
     JButton adminBtn = createPrimaryButton("Admin");
     JButton voterBtn = createPrimaryButton("Voter");
 
-        adminBtn.addActionListener(e -> cardLayout.show(mainPanel,"ADMIN_LOGIN"));
-        voterBtn.addActionListener(e -> cardLayout.show(mainPanel,"VOTER_LOGIN"));
+        adminBtn.addActionListener(e -> showCard("ADMIN_LOGIN"));
+        voterBtn.addActionListener(e -> showCard("VOTER_LOGIN"));
 
         gbc.gridx = 0; gbc.gridy = 0; panel.add(adminBtn, gbc);
         gbc.gridx = 1; gbc.gridy = 0; panel.add(voterBtn, gbc);
@@ -277,13 +429,15 @@ public class VotingGUI extends JFrame {
         loginBtn.addActionListener(e -> {
             String user = userField.getText();
             String pass = new String(passField.getPassword());
-            if(adminLogic.login(user, pass)){
-                showStyledDialog("Success", "Admin Login Successful", false);
-                cardLayout.show(mainPanel,"ADMIN_PANEL");
-            } else showStyledDialog("Error", "Login Failed", false);
+            runAsync(service.adminLogin(user, pass), ok -> {
+                if(ok){
+                    showStyledDialog("Success", "Admin Login Successful", false);
+                    showCard("ADMIN_PANEL");
+                } else showStyledDialog("Error", "Login Failed", false);
+            }, "Login Failed");
         });
 
-        backBtn.addActionListener(e -> cardLayout.show(mainPanel,"HOME"));
+        backBtn.addActionListener(e -> showCard("HOME"));
         return panel;
     }
 
@@ -305,12 +459,14 @@ public class VotingGUI extends JFrame {
         JButton stopVoteBtn = createStyledButton("Stop Voting");
         JButton resetVoteBtn = createStyledButton("Reset Votes");
     JButton managePositionsBtn = createStyledButton("Manage Positions");
+        JButton verifyTallyBtn = createStyledButton("Verify Tally");
+        JButton importVotersBtn = createStyledButton("Import Voters");
         JButton backBtn = createStyledButton("Back");
 
     panel.add(addCandidateBtn); panel.add(editCandidateBtn); panel.add(deleteCandidateBtn); panel.add(displayCandidatesBtn);
     panel.add(addVoterBtn); panel.add(editVoterBtn); panel.add(deleteVoterBtn); panel.add(displayVotersBtn);
     panel.add(startVoteBtn); panel.add(stopVoteBtn); panel.add(resetVoteBtn); panel.add(managePositionsBtn);
-    panel.add(new JLabel()); panel.add(new JLabel()); panel.add(new JLabel()); panel.add(backBtn);
+    panel.add(verifyTallyBtn); panel.add(importVotersBtn); panel.add(new JLabel()); panel.add(backBtn);
 
         addCandidateBtn.addActionListener(e -> addCandidateAction());
         editCandidateBtn.addActionListener(e -> editCandidateAction());
@@ -318,90 +474,54 @@ public class VotingGUI extends JFrame {
     displayCandidatesBtn.addActionListener(e -> showCandidateList(false));
 
         addVoterBtn.addActionListener(e -> addVoterAction());
-    editVoterBtn.addActionListener(e -> manageVotersDialog());
-    deleteVoterBtn.addActionListener(e -> manageVotersDialog());
+    editVoterBtn.addActionListener(e -> showVoterList());
+    deleteVoterBtn.addActionListener(e -> showVoterList());
         displayVotersBtn.addActionListener(e -> showVoterList());
 
-        startVoteBtn.addActionListener(e -> { adminLogic.startVoting(); showStyledDialog("Success","Voting Started",false); });
-        stopVoteBtn.addActionListener(e -> { adminLogic.stopVoting(); showStyledDialog("Success","Voting Stopped",false); });
-        resetVoteBtn.addActionListener(e -> { adminLogic.resetVotes(); showStyledDialog("Success","Votes Reset",false); });
+        startVoteBtn.addActionListener(e -> runAsync(service.startVoting(), v -> showStyledDialog("Success","Voting Started",false), "Failed to start voting."));
+        stopVoteBtn.addActionListener(e -> runAsync(service.stopVoting(), v -> showStyledDialog("Success","Voting Stopped",false), "Failed to stop voting."));
+        resetVoteBtn.addActionListener(e -> runAsync(service.resetVotes(), v -> showStyledDialog("Success","Votes Reset",false), "Failed to reset votes."));
     managePositionsBtn.addActionListener(e -> managePositionsDialog());
+        verifyTallyBtn.addActionListener(e -> verifyTallyAction());
+        importVotersBtn.addActionListener(e -> importVotersAction());
 
-        backBtn.addActionListener(e -> cardLayout.show(mainPanel,"HOME"));
+        backBtn.addActionListener(e -> showCard("HOME"));
         return panel;
     }
 
     // ---------------- Position management ----------------
-    private ArrayList<String> getAllPositions() {
-        ArrayList<String> positions = new ArrayList<>();
-        String createSql = "CREATE TABLE IF NOT EXISTS positions (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) UNIQUE)";
-        String sel = "SELECT name FROM positions ORDER BY name";
-        try (Connection con = DBUtil.getConnection(); Statement st = con.createStatement()) {
-            st.executeUpdate(createSql);
-            try (ResultSet rs = st.executeQuery(sel)) {
-                while (rs.next()) positions.add(rs.getString("name"));
-            }
-        } catch (Exception e) { e.printStackTrace(); }
-        return positions;
-    }
-
-    private void addPositionToDB(String name) throws SQLException, ClassNotFoundException {
-        String ins = "INSERT IGNORE INTO positions(name) VALUES(?)";
-        try (Connection con = DBUtil.getConnection(); PreparedStatement ps = con.prepareStatement(ins)) {
-            ps.setString(1, name);
-            ps.executeUpdate();
-        }
-    }
-
-    private void deletePositionFromDB(String name) throws SQLException, ClassNotFoundException {
-        String cntSql = "SELECT COUNT(*) AS c FROM candidates WHERE position = ?";
-        String delSql = "DELETE FROM positions WHERE name = ?";
-        try (Connection con = DBUtil.getConnection();
-             PreparedStatement pc = con.prepareStatement(cntSql);
-             PreparedStatement pd = con.prepareStatement(delSql)) {
-            pc.setString(1, name);
-            try (ResultSet rs = pc.executeQuery()) {
-                if (rs.next() && rs.getInt("c") > 0) {
-                    throw new SQLException("Position has candidates and cannot be deleted");
-                }
-            }
-            pd.setString(1, name);
-            pd.executeUpdate();
-        }
-    }
-
     private void managePositionsDialog() {
-        // present a small management dialog allowing Add / Delete / Close
+        // present a small management dialog allowing Add / Delete / Close;
+        // DB work runs in the background and the dialog re-opens when it is done
         String[] actions = new String[]{"Add Position", "Delete Position", "Close"};
-        while (true) {
-            int sel = JOptionPane.showOptionDialog(this, "Manage positions:", "Positions",
-                    JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, actions, actions[0]);
-            if (sel == 0) {
-                String pos = showTextInput("Add Position", "Enter new position name:", "");
-                if (pos == null) continue;
-                pos = pos.trim();
-                if (pos.isEmpty()) { showStyledDialog("Error","Position name cannot be empty",false); continue; }
-                try { addPositionToDB(pos); showStyledDialog("Success","Position added.",true); }
-                catch (Exception ex) { ex.printStackTrace(); showStyledDialog("Error","Failed to add position.",false); }
-            } else if (sel == 1) {
-                ArrayList<String> positions = getAllPositions();
-                if (positions.isEmpty()) { showStyledDialog("Info","No positions to delete.",true); continue; }
+        int sel = JOptionPane.showOptionDialog(this, "Manage positions:", "Positions",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, actions, actions[0]);
+        if (sel == 0) {
+            String pos = showTextInput("Add Position", "Enter new position name:", "");
+            if (pos == null) { managePositionsDialog(); return; }
+            String name = pos.trim();
+            if (name.isEmpty()) { showStyledDialog("Error","Position name cannot be empty",false); managePositionsDialog(); return; }
+            runAsync(service.call(() -> { adminLogic.addPosition(name); return null; }),
+                    v -> { showStyledDialog("Success","Position added.",true); managePositionsDialog(); },
+                    ex -> { showStyledDialog("Error","Failed to add position: " + ex.getMessage(),false); managePositionsDialog(); });
+        } else if (sel == 1) {
+            runAsync(service.positions(), positions -> {
+                if (positions.isEmpty()) { showStyledDialog("Info","No positions to delete.",true); managePositionsDialog(); return; }
                 Object[] opts = positions.toArray();
                 String chosen = showOptionInput("Delete Position", "Select position to delete:", opts, opts[0]);
-                if (chosen == null) continue;
+                if (chosen == null) { managePositionsDialog(); return; }
                 int conf = JOptionPane.showConfirmDialog(this, "Delete position '" + chosen + "'? This cannot be undone.", "Confirm Delete", JOptionPane.YES_NO_OPTION);
-                if (conf != JOptionPane.YES_OPTION) continue;
-                try {
-                    deletePositionFromDB(chosen);
-                    showStyledDialog("Success", "Position deleted.", true);
-                } catch (SQLException sq) {
-                    // likely because candidates reference this position
-                    showStyledDialog("Error", "Cannot delete position: it has candidates or an error occurred.", false);
-                } catch (Exception ex) {
-                    ex.printStackTrace(); showStyledDialog("Error","Failed to delete position.",false);
-                }
-            } else break; // Close or dialog dismissed
-        }
+                if (conf != JOptionPane.YES_OPTION) { managePositionsDialog(); return; }
+                runAsync(service.call(() -> { adminLogic.deletePosition(chosen); return null; }),
+                        v -> { showStyledDialog("Success", "Position deleted.", true); managePositionsDialog(); },
+                        ex -> {
+                            // SQLException: likely because candidates reference this position
+                            if (ex instanceof java.sql.SQLException) showStyledDialog("Error", "Cannot delete position: it has candidates or an error occurred.", false);
+                            else showStyledDialog("Error","Failed to delete position.",false);
+                            managePositionsDialog();
+                        });
+            }, "Failed to load positions.");
+        } // Close or dialog dismissed
     }
 
     private JPanel getVoterLoginPanel() {
@@ -428,20 +548,17 @@ public class VotingGUI extends JFrame {
             String name = nameField.getText();
             String pass = new String(passField.getPassword());
 
-            // --- Voter login using Admin logic ---
-            Voter v = adminLogic.getAllVoters().stream()
-                    .filter(x -> x.getName().equals(name) && x.getPassword().equals(pass))
-                    .findFirst()
-                    .orElse(null);
-
-            if(v != null){
-                currentVoter = v;
-                showStyledDialog("Success","Login Successful", false);
-                cardLayout.show(mainPanel,"VOTER_PANEL");
-            } else showStyledDialog("Error","Login Failed", false);
+            // --- Voter login: indexed single-row lookup (verified accounts only) ---
+            runAsync(service.voterLogin(name, pass), v -> {
+                if(v != null){
+                    currentVoter = v;
+                    showStyledDialog("Success","Login Successful", false);
+                    showCard("VOTER_PANEL");
+                } else showStyledDialog("Error","Login Failed (check credentials or wait for admin verification)", false);
+            }, "Login Failed");
         });
 
-        backBtn.addActionListener(e -> cardLayout.show(mainPanel,"HOME"));
+        backBtn.addActionListener(e -> showCard("HOME"));
         return panel;
     }
 
@@ -469,69 +586,64 @@ public class VotingGUI extends JFrame {
         statusLabel.setPreferredSize(new Dimension(0,28));
         panel.add(statusLabel, BorderLayout.SOUTH);
 
-        Timer timer = new Timer(1000, e -> {
-            boolean isActive = updateVotingStatus(statusLabel);
-            viewResultsBtn.setEnabled(!isActive);
-            voteBtn.setEnabled(isActive && currentVoter != null && !currentVoter.isHasVoted());
+        // status comes from the shared VotingStatus watcher; we only listen while the panel is on screen
+        java.util.function.Consumer<Boolean> statusListener = active -> SwingUtilities.invokeLater(() -> {
+            statusLabel.setText(active ? "Voting is ACTIVE" : "Voting is INACTIVE");
+            viewResultsBtn.setEnabled(!active);
+            voteBtn.setEnabled(active && currentVoter != null && !currentVoter.isHasVoted());
+        });
+        voterPanelRefresh = () -> {
+            Boolean active = VotingStatus.current();
+            if (active != null) statusListener.accept(active);
+        };
+        panel.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentShown(ComponentEvent e) { VotingStatus.addListener(statusListener); }
+            @Override
+            public void componentHidden(ComponentEvent e) { VotingStatus.removeListener(statusListener); }
         });
-        timer.start();
 
         voteBtn.addActionListener(e -> votePanelAction());
-        backBtn.addActionListener(e -> cardLayout.show(mainPanel, "HOME"));
-        viewResultsBtn.addActionListener(e -> showCandidateList(false));
+        backBtn.addActionListener(e -> showCard("HOME"));
+        viewResultsBtn.addActionListener(e -> showResults());
 
         // Removed manage positions button from voter panel
 
         return panel;
     }
 
-    private boolean updateVotingStatus(JLabel statusLabel) {
-        boolean isActive = false;
-        try (Connection con = DBUtil.getConnection();
-             Statement st = con.createStatement();
-             ResultSet rs = st.executeQuery("SELECT is_active FROM voting_status WHERE id=1")) {
-
-            if(rs.next()) {
-                isActive = rs.getBoolean("is_active");
-                statusLabel.setText(isActive ? "Voting is ACTIVE" : "Voting is INACTIVE");
-            } else {
-                st.executeUpdate("INSERT INTO voting_status(id,is_active) VALUES(1,0)");
-                statusLabel.setText("Voting is INACTIVE");
-            }
-        } catch (Exception e) { e.printStackTrace(); }
-        return isActive;
-    }
-
     // ---------------- Actions ----------------
     private void addCandidateAction() {
-        JTextField nameF = new JTextField(); JTextField symF = new JTextField();
-        JTextField ageF = new JTextField(); JTextField posF = new JTextField();
         JFileChooser fc = new JFileChooser();
         fc.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Image files","jpg","png","jpeg"));
         int r = fc.showOpenDialog(this);
-        String path = null;
-        if(r==JFileChooser.APPROVE_OPTION) path = fc.getSelectedFile().getAbsolutePath();
+        String path = r==JFileChooser.APPROVE_OPTION ? fc.getSelectedFile().getAbsolutePath() : null;
+        runAsync(service.positions(), positions -> addCandidateForm(positions, path), "Failed to load positions.");
+    }
+
+    private void addCandidateForm(ArrayList<String> positions, String path) {
+        JTextField nameF = new JTextField(); JTextField symF = new JTextField();
+        JTextField ageF = new JTextField();
 
     JPanel panel = new JPanel(new GridLayout(0,1));
     panel.setBackground(bgDark);
-    JLabel nameLbl = new JLabel("Name:"); nameLbl.setForeground(Color.WHITE); nameLbl.setFont(new Font("Arial", Font.PLAIN, 16));
-    JLabel symLbl = new JLabel("Symbol:"); symLbl.setForeground(Color.WHITE); symLbl.setFont(new Font("Arial", Font.PLAIN, 16));
-    JLabel ageLbl = new JLabel("Age:"); ageLbl.setForeground(Color.WHITE); ageLbl.setFont(new Font("Arial", Font.PLAIN, 16));
-    nameF.setBackground(Color.DARK_GRAY); nameF.setForeground(Color.WHITE); nameF.setFont(new Font("Arial", Font.PLAIN, 16));
-    symF.setBackground(Color.DARK_GRAY); symF.setForeground(Color.WHITE); symF.setFont(new Font("Arial", Font.PLAIN, 16));
-    ageF.setBackground(Color.DARK_GRAY); ageF.setForeground(Color.WHITE); ageF.setFont(new Font("Arial", Font.PLAIN, 16));
+    JLabel nameLbl = new JLabel("Name:"); nameLbl.setForeground(Color.WHITE); nameLbl.setFont(UiTheme.PLAIN_16);
+    JLabel symLbl = new JLabel("Symbol:"); symLbl.setForeground(Color.WHITE); symLbl.setFont(UiTheme.PLAIN_16);
+    JLabel ageLbl = new JLabel("Age:"); ageLbl.setForeground(Color.WHITE); ageLbl.setFont(UiTheme.PLAIN_16);
+    nameF.setBackground(Color.DARK_GRAY); nameF.setForeground(Color.WHITE); nameF.setFont(UiTheme.PLAIN_16);
+    symF.setBackground(Color.DARK_GRAY); symF.setForeground(Color.WHITE); symF.setFont(UiTheme.PLAIN_16);
+    ageF.setBackground(Color.DARK_GRAY); ageF.setForeground(Color.WHITE); ageF.setFont(UiTheme.PLAIN_16);
     panel.add(nameLbl); panel.add(nameF);
     panel.add(symLbl); panel.add(symF);
     panel.add(ageLbl); panel.add(ageF);
 
     // Positions dropdown (editable) populated from DB positions table
-    ArrayList<String> positions = getAllPositions();
     JComboBox<String> posCombo = new JComboBox<>();
     posCombo.addItem("-- Select or type position --");
     for (String p : positions) posCombo.addItem(p);
     posCombo.setEditable(true);
-    JLabel posLbl = new JLabel("Position:"); posLbl.setForeground(Color.WHITE); posLbl.setFont(new Font("Arial", Font.PLAIN, 16));
-    posCombo.setBackground(Color.DARK_GRAY); posCombo.setForeground(Color.WHITE); posCombo.setFont(new Font("Arial", Font.PLAIN, 16));
+    JLabel posLbl = new JLabel("Position:"); posLbl.setForeground(Color.WHITE); posLbl.setFont(UiTheme.PLAIN_16);
+    posCombo.setBackground(Color.DARK_GRAY); posCombo.setForeground(Color.WHITE); posCombo.setFont(UiTheme.PLAIN_16);
     panel.add(posLbl); panel.add(posCombo);
 
     int res = JOptionPane.showConfirmDialog(this,panel,"Add Candidate",JOptionPane.OK_CANCEL_OPTION);
@@ -543,106 +655,107 @@ public class VotingGUI extends JFrame {
                 showStyledDialog("Error","Please select or type a position.",false);
                 return;
             }
-            // ensure position exists in DB
-            try { addPositionToDB(chosenPos); } catch (Exception ex) { /* ignore */ }
-            // VotingLogic2.Admin.addCandidate expects (String name, String symbol, int age, String position, File photoFile, String bio)
-            adminLogic.addCandidate(nameF.getText(), symF.getText(),
-                    Integer.parseInt(ageF.getText()), chosenPos, photoFile, bio);
-            showStyledDialog("Success","Candidate Added",false);
+            int age;
+            try { age = Integer.parseInt(ageF.getText().trim()); } catch (NumberFormatException ex) { showStyledDialog("Error","Invalid age.",false); return; }
+            String name = nameF.getText(), symbol = symF.getText();
+            runAsync(service.call(() -> {
+                // ensure position exists in DB (a no-op if it does)
+                adminLogic.addPosition(chosenPos);
+                adminLogic.addCandidate(name, symbol, age, chosenPos, photoFile, bio);
+                return null;
+            }), v -> showStyledDialog("Success","Candidate Added",false),
+                    err -> showStyledDialog("Error", "Failed to add candidate: " + err.getMessage(), false));
         }
     }
 
+    // Recount from the ballots ledger and show per-position totals plus any mismatch
+    private void verifyTallyAction() {
+        runAsync(service.verifyTally(), this::showTallyReport, "Failed to recount the ballots.");
+    }
+
+    private void showTallyReport(TallyEngine.Report report) {
+        if (report == null) { showStyledDialog("Error", "Failed to recount the ballots.", false); return; }
+        JTextArea ta = new JTextArea(report.toString());
+        ta.setEditable(false);
+        ta.setFont(UiTheme.MONO_14);
+        ta.setCaretPosition(0);
+        ta.setBackground(Color.DARK_GRAY);
+        ta.setForeground(Color.WHITE);
+        JScrollPane sp = new JScrollPane(ta);
+        sp.getViewport().setBackground(Color.DARK_GRAY);
+        sp.setPreferredSize(new Dimension(600, 300));
+        JOptionPane.showMessageDialog(this, sp, report.isConsistent() ? "Tally Verified" : "Tally Mismatch", JOptionPane.PLAIN_MESSAGE);
+    }
+
     private void editCandidateAction() { showCandidateList(true); }
     private void deleteCandidateAction() { showCandidateList(true); }
     private void addVoterAction() {
         JTextField nameF = new JTextField(); JTextField passF = new JTextField();
         JPanel panel = new JPanel(new GridLayout(0,1));
         panel.setBackground(bgDark);
-    JLabel nLab = new JLabel("Name:"); nLab.setForeground(Color.WHITE); nLab.setFont(new Font("Arial", Font.PLAIN, 16));
-    JLabel pLab = new JLabel("Password:"); pLab.setForeground(Color.WHITE); pLab.setFont(new Font("Arial", Font.PLAIN, 16));
-    nameF.setBackground(Color.DARK_GRAY); nameF.setForeground(Color.WHITE); nameF.setFont(new Font("Arial", Font.PLAIN, 16));
-    passF.setBackground(Color.DARK_GRAY); passF.setForeground(Color.WHITE); passF.setFont(new Font("Arial", Font.PLAIN, 16));
+    JLabel nLab = new JLabel("Name:"); nLab.setForeground(Color.WHITE); nLab.setFont(UiTheme.PLAIN_16);
+    JLabel pLab = new JLabel("Password:"); pLab.setForeground(Color.WHITE); pLab.setFont(UiTheme.PLAIN_16);
+    nameF.setBackground(Color.DARK_GRAY); nameF.setForeground(Color.WHITE); nameF.setFont(UiTheme.PLAIN_16);
+    passF.setBackground(Color.DARK_GRAY); passF.setForeground(Color.WHITE); passF.setFont(UiTheme.PLAIN_16);
         panel.add(nLab); panel.add(nameF);
         panel.add(pLab); panel.add(passF);
         int res = JOptionPane.showConfirmDialog(this,panel,"Add Voter",JOptionPane.OK_CANCEL_OPTION);
         if(res==JOptionPane.OK_OPTION){
             // VotingLogic2 provides Voter.register(name, password, dob). Prompt for DOB.
             String dobStr = showTextInput("DOB", "Enter DOB (YYYY-MM-DD):", "2000-01-01");
+            java.time.LocalDate dob;
             try {
-                java.time.LocalDate dob = java.time.LocalDate.parse(dobStr);
-                boolean ok = Voter.register(nameF.getText(), passF.getText(), dob);
-                if(ok) showStyledDialog("Success","Voter Added (awaiting verification)",false);
-                else showStyledDialog("Error","Failed to add voter",false);
+                dob = java.time.LocalDate.parse(dobStr);
             } catch(Exception ex) {
                 showStyledDialog("Error","Invalid DOB format. Use YYYY-MM-DD.",false);
+                return;
             }
+            String name = nameF.getText(), pass = passF.getText();
+            runAsync(service.call(() -> Voter.register(name, pass, dob)), ok -> {
+                if(ok) showStyledDialog("Success","Voter Added (awaiting verification)",false);
+                else showStyledDialog("Error","Failed to add voter",false);
+            }, "Failed to add voter");
         }
     }
+    // Bulk import of a CSV roll (name,password,dob) through VoterImport.
+    private void importVotersAction() {
+        JFileChooser jfc = new JFileChooser();
+        jfc.setDialogTitle("Select voter roll (CSV)");
+        if (jfc.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        java.nio.file.Path csv = jfc.getSelectedFile().toPath();
+        VoterImport.Options opts = new VoterImport.Options();
+        opts.resume = java.nio.file.Files.exists(java.nio.file.Paths.get(csv + ".checkpoint"))
+                && JOptionPane.showConfirmDialog(this, "An unfinished import of this file was found. Resume it?", "Import Voters",
+                        JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+        opts.verified = JOptionPane.showConfirmDialog(this, "Mark imported voters as verified?", "Import Voters",
+                JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+        runAsync(service.call(() -> VoterImport.run(csv, opts)),
+                r -> showStyledDialog("Import Voters", r + (r.rejected > 0 ? "<br>Rejected lines: " + csv + ".rejects" : ""), true),
+                err -> showStyledDialog("Error", "Import failed: " + err.getMessage(), false));
+    }
+
     private void editVoterAction() { showVoterList(); }
     private void deleteVoterAction() { showVoterList(); }
-    private void manageVotersDialog() {
-        ArrayList<Voter> list = adminLogic.getAllVoters();
-        if (list == null || list.isEmpty()) { showStyledDialog("Info", "No voters found.", true); return; }
-        String[] opts = list.stream().map(v -> v.getId() + ": " + v.getName() + " (Verified:" + v.isVerified() + ")").toArray(String[]::new);
-        String sel = showOptionInput("Voters", "Select a voter:", opts, opts[0]);
-        if (sel == null) return;
-        int selId;
-        try { selId = Integer.parseInt(sel.split(":")[0].trim()); } catch (Exception ex) { return; }
-        Voter selected = null; for (Voter v : list) if (v.getId() == selId) { selected = v; break; }
-        if (selected == null) return;
-        String[] acts = new String[]{"View Details", "Edit", selected.isVerified() ? "Unverify" : "Verify", "Delete", "Cancel"};
-        int act = JOptionPane.showOptionDialog(this, "Choose action for " + selected.getName(), "Voter",
-                JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, acts, acts[0]);
-        if (act == 0) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("ID: ").append(selected.getId()).append('\n');
-            sb.append("Name: ").append(selected.getName()).append('\n');
-            sb.append("Has Voted: ").append(selected.isHasVoted()).append('\n');
-            sb.append("Verified: ").append(selected.isVerified()).append('\n');
-            sb.append("DOB: ").append(selected.getDob() != null ? selected.getDob().toString() : "").append('\n');
-            JTextArea ta = new JTextArea(sb.toString()); ta.setEditable(false); ta.setFont(new Font("Arial", Font.PLAIN, 16)); ta.setBackground(Color.DARK_GRAY); ta.setForeground(Color.WHITE);
-            JScrollPane sp = new JScrollPane(ta); sp.setPreferredSize(new Dimension(500,200));
-            JOptionPane.showMessageDialog(this, sp, "Voter Details", JOptionPane.PLAIN_MESSAGE);
-        } else if (act == 1) {
-            // Edit
-            String newName = showTextInput("Edit Voter", "Name:", selected.getName()); if (newName == null) return;
-            String newPass = showTextInput("Edit Voter", "Password:", selected.getPassword()); if (newPass == null) return;
-            String dobStr = showTextInput("Edit Voter", "DOB (YYYY-MM-DD):", selected.getDob() != null ? selected.getDob().toString() : "2000-01-01"); if (dobStr == null) return;
-            java.time.LocalDate dob = null; try { dob = java.time.LocalDate.parse(dobStr); } catch (Exception e) { showStyledDialog("Error","Invalid DOB format.",false); return; }
-            // keep hasVoted and verified as is (or you could add inputs)
-            try { adminLogic.editVoter(selected.getId(), newName, newPass, dob, selected.isHasVoted(), selected.isVerified()); showStyledDialog("Success","Voter updated.",true); }
-            catch (Exception ex) { ex.printStackTrace(); showStyledDialog("Error","Failed to update voter.",false); }
-        } else if (act == 2) {
-            // Verify/Unverify
-            boolean to = !selected.isVerified();
-            try { adminLogic.setVoterVerified(selected.getId(), to); showStyledDialog("Success", (to?"Voter verified.":"Voter unverified."), true); }
-            catch (Exception ex) { ex.printStackTrace(); showStyledDialog("Error","Failed to change verification.",false); }
-        } else if (act == 3) {
-            int conf = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete " + selected.getName() + "?", "Confirm", JOptionPane.YES_NO_OPTION);
-            if (conf == JOptionPane.YES_OPTION) {
-                try { adminLogic.deleteVoter(selected.getId()); showStyledDialog("Success","Voter deleted.",true); }
-                catch (Exception ex) { ex.printStackTrace(); showStyledDialog("Error","Failed to delete voter.",false); }
-            }
-        }
-    }
     private void showCandidateList(boolean forEdit) {
+        if (forEdit) {
+            runAsync(service.candidates(null, 0), list -> showCandidateList(list, true), "Failed to load candidates.");
+            return;
+        }
         // When viewing (not editing), allow filtering by position
-        ArrayList<String> positions = getAllPositions();
-        String[] posOptions = new String[positions.size() + 1];
-        posOptions[0] = "All";
-        for (int i = 0; i < positions.size(); i++) posOptions[i + 1] = positions.get(i);
-
-        ArrayList<Candidate> list = null;
-        if (!forEdit) {
+        runAsync(service.positions(), positions -> {
+            String[] posOptions = new String[positions.size() + 1];
+            posOptions[0] = "All";
+            for (int i = 0; i < positions.size(); i++) posOptions[i + 1] = positions.get(i);
             String chosenPos = (String) JOptionPane.showInputDialog(this, "Filter by position:", "Positions",
                     JOptionPane.PLAIN_MESSAGE, null, posOptions, posOptions[0]);
             if (chosenPos == null) return;
-            if (chosenPos.equals("All")) list = adminLogic.getAllCandidates();
-            else list = adminLogic.getCandidatesByPosition(chosenPos);
-        } else {
-            list = adminLogic.getAllCandidates();
-        }
+            // thumbnails are decoded in the background together with the list
+            runAsync(service.candidates(chosenPos.equals("All") ? null : chosenPos, 140),
+                    list -> showCandidateList(list, false), "Failed to load candidates.");
+        }, "Failed to load positions.");
+    }
 
+    private void showCandidateList(ArrayList<Candidate> list, boolean forEdit) {
         if (list == null || list.isEmpty()) {
             showStyledDialog("Info", "No candidates found.", true);
             return;
@@ -665,15 +778,7 @@ public class VotingGUI extends JFrame {
                 JLabel imgLabel = new JLabel();
                 imgLabel.setHorizontalAlignment(SwingConstants.LEFT);
                 imgLabel.setPreferredSize(new Dimension(140,140));
-                if (c.photo != null && c.photo.length > 0) {
-                    try {
-                        ImageIcon icon = new ImageIcon(c.photo);
-                        Image img = icon.getImage().getScaledInstance(140, 140, Image.SCALE_SMOOTH);
-                        imgLabel.setIcon(new ImageIcon(img));
-                    } catch (Exception ex) { imgLabel.setText("No photo"); }
-                } else {
-                    imgLabel.setText("No photo");
-                }
+                loadThumbnail(imgLabel, c.id, 140);
 
                 // Right side: details panel (name, symbol, meta) and bio next to image
                 JPanel right = new JPanel();
@@ -684,14 +789,14 @@ public class VotingGUI extends JFrame {
                 JPanel meta = new JPanel(new GridLayout(0,1));
                 meta.setBackground(bgDark);
                 JLabel nameL = new JLabel("Name: " + c.name);
-                nameL.setFont(new Font("Arial", Font.BOLD, 22));
+                nameL.setFont(UiTheme.BOLD_22);
                 nameL.setForeground(accent1);
                 JLabel symbolL = new JLabel("Symbol: " + c.symbol);
-                symbolL.setFont(new Font("Arial", Font.PLAIN, 18)); symbolL.setForeground(Color.WHITE);
+                symbolL.setFont(UiTheme.PLAIN_18); symbolL.setForeground(Color.WHITE);
                 JLabel posL = new JLabel("Position: " + c.position);
-                posL.setFont(new Font("Arial", Font.PLAIN, 18)); posL.setForeground(Color.WHITE);
+                posL.setFont(UiTheme.PLAIN_18); posL.setForeground(Color.WHITE);
                 JLabel ageL = new JLabel("Age: " + c.age + "    Votes: " + c.votes);
-                ageL.setFont(new Font("Arial", Font.PLAIN, 18)); ageL.setForeground(Color.WHITE);
+                ageL.setFont(UiTheme.PLAIN_18); ageL.setForeground(Color.WHITE);
                 meta.add(nameL); meta.add(symbolL); meta.add(posL); meta.add(ageL);
 
                 // Bio area (wrapped)
@@ -699,7 +804,7 @@ public class VotingGUI extends JFrame {
                 bioArea.setLineWrap(true);
                 bioArea.setWrapStyleWord(true);
                 bioArea.setEditable(false);
-                bioArea.setFont(new Font("Arial", Font.PLAIN, 16));
+                bioArea.setFont(UiTheme.PLAIN_16);
                 bioArea.setBackground(Color.DARK_GRAY);
                 bioArea.setForeground(Color.WHITE);
 
@@ -743,218 +848,437 @@ public class VotingGUI extends JFrame {
                 JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, acts, acts[0]);
 
         if (act == 0) {
-            // View single candidate
-            StringBuilder sb = new StringBuilder();
-            sb.append("ID: ").append(selected.id).append('\n');
-            sb.append("Name: ").append(selected.name).append('\n');
-            sb.append("Symbol: ").append(selected.symbol).append('\n');
-            sb.append("Position: ").append(selected.position).append('\n');
-            sb.append("Age: ").append(selected.age).append('\n');
-            sb.append("Votes: ").append(selected.votes).append('\n');
-            sb.append("Bio: ").append(selected.bio != null ? selected.bio : "").append('\n');
-
-            JPanel p = new JPanel(new BorderLayout(12,12));
-            p.setBackground(bgDark);
-            p.setBorder(BorderFactory.createEmptyBorder(10,10,10,10));
-
-            JLabel imgLabel = new JLabel();
-            imgLabel.setPreferredSize(new Dimension(180,180));
-            imgLabel.setHorizontalAlignment(SwingConstants.LEFT);
-            if (selected.photo != null && selected.photo.length > 0) {
-                try {
-                    ImageIcon icon = new ImageIcon(selected.photo);
-                    Image img = icon.getImage().getScaledInstance(180, 180, Image.SCALE_SMOOTH);
-                    imgLabel.setIcon(new ImageIcon(img));
-                } catch (Exception ex) { imgLabel.setText("No photo"); }
-            } else imgLabel.setText("No photo");
-
-            JPanel right = new JPanel(new BorderLayout(6,6));
-            right.setBackground(bgDark);
-            JPanel meta = new JPanel(new GridLayout(0,1));
-            meta.setBackground(bgDark);
-            JLabel nameL = new JLabel("Name: " + selected.name);
-            nameL.setFont(new Font("Arial", Font.BOLD, 24));
-            nameL.setForeground(accent1);
-            JLabel symbolL = new JLabel("Symbol: " + selected.symbol);
-            symbolL.setFont(new Font("Arial", Font.PLAIN, 18)); symbolL.setForeground(Color.WHITE);
-            JLabel posL = new JLabel("Position: " + selected.position);
-            posL.setFont(new Font("Arial", Font.PLAIN, 18)); posL.setForeground(Color.WHITE);
-            JLabel ageL = new JLabel("Age: " + selected.age + "    Votes: " + selected.votes);
-            ageL.setFont(new Font("Arial", Font.PLAIN, 18)); ageL.setForeground(Color.WHITE);
-            meta.add(nameL); meta.add(symbolL); meta.add(posL); meta.add(ageL);
-
-            JTextArea ta = new JTextArea(sb.toString());
-            ta.setEditable(false);
-            ta.setFont(new Font("Arial", Font.PLAIN, 18));
-            ta.setLineWrap(true); ta.setWrapStyleWord(true);
-            ta.setCaretPosition(0);
-            ta.setBackground(Color.DARK_GRAY);
-            ta.setForeground(Color.WHITE);
-
-            right.add(meta, BorderLayout.NORTH);
-            JScrollPane taSp = new JScrollPane(ta);
-            taSp.getViewport().setBackground(Color.DARK_GRAY);
-            right.add(taSp, BorderLayout.CENTER);
-
-            p.add(imgLabel, BorderLayout.WEST);
-            p.add(right, BorderLayout.CENTER);
-            JOptionPane.showMessageDialog(this, p, "Candidate Details", JOptionPane.PLAIN_MESSAGE);
-            return;
+            Candidate c = selected;
+            runAsync(service.thumbnail(c.id, 180),
+                    thumb -> showCandidateDetails(c, thumb), "Failed to load candidate.");
         } else if (act == 1) {
-            // Edit flow - prompt for new values (leave blank to keep)
-            String newName = showTextInput("Edit Candidate", "Name:", selected.name);
-            if (newName == null) return; // cancelled
-            String newSymbol = showTextInput("Edit Candidate", "Symbol:", selected.symbol);
-            if (newSymbol == null) return;
-            String ageStr = showTextInput("Edit Candidate", "Age (leave blank to keep):", String.valueOf(selected.age));
-            if (ageStr == null) return;
-            Integer newAge = null;
-            try { if (!ageStr.trim().isEmpty()) newAge = Integer.parseInt(ageStr.trim()); } catch (Exception e) { showStyledDialog("Error","Invalid age.",false); return; }
-
-            String newPos = showTextInput("Edit Candidate", "Position:", selected.position);
-            if (newPos == null) return;
-            // Use a file chooser for selecting a new photo (optional)
-            File newPhoto = null;
-            int choose = JOptionPane.showConfirmDialog(this, "Do you want to change the photo?", "Photo", JOptionPane.YES_NO_CANCEL_OPTION);
-            if (choose == JOptionPane.YES_OPTION) {
-                JFileChooser jfc = new JFileChooser();
-                jfc.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Image files","jpg","png","jpeg"));
-                int r = jfc.showOpenDialog(this);
-                if (r == JFileChooser.APPROVE_OPTION) newPhoto = jfc.getSelectedFile();
-            } else if (choose == JOptionPane.CANCEL_OPTION) {
-                return; // cancel edit
-            }
-            String newBio = showTextInput("Edit Candidate", "Bio:", selected.bio != null ? selected.bio : "");
-            if (newBio == null) return;
-
-            try {
-                adminLogic.editCandidate(selected.id, newName, newSymbol, newAge, newPos, newPhoto, newBio);
-                showStyledDialog("Success", "Candidate updated.", true);
-            } catch (Exception ex) { ex.printStackTrace(); showStyledDialog("Error","Failed to update candidate.",false); }
-
+            editCandidateFlow(selected);
         } else if (act == 2) {
             int conf = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete " + selected.name + "?", "Confirm", JOptionPane.YES_NO_OPTION);
             if (conf == JOptionPane.YES_OPTION) {
-                try { adminLogic.deleteCandidate(selected.id); showStyledDialog("Success","Candidate deleted.",true); }
-                catch (Exception ex) { ex.printStackTrace(); showStyledDialog("Error","Failed to delete candidate.",false); }
+                int id = selected.id;
+                runAsync(service.run(() -> adminLogic.deleteCandidate(id)),
+                        r -> showStyledDialog("Success","Candidate deleted.",true), "Failed to delete candidate.");
             }
         }
     }
-    private void showVoterList() {
-        ArrayList<Voter> list = adminLogic.getAllVoters();
-        if (list == null || list.isEmpty()) {
-            showStyledDialog("Info", "No voters found.", true);
-            return;
-        }
+
+    // The thumbnail is set once it is loaded off the EDT: usually a PhotoCache hit, but an entry
+    // evicted since the list was loaded means a DB read.
+    private void loadThumbnail(JLabel label, int candidateId, int size) {
+        label.setText("Loading...");
+        service.thumbnail(candidateId, size).whenComplete((img, error) -> SwingUtilities.invokeLater(() -> {
+            if (img != null) {
+                label.setText(null);
+                label.setIcon(new ImageIcon(img));
+            } else {
+                label.setText("No photo");
+            }
+        }));
+    }
+
+    private void showCandidateDetails(Candidate selected, Image thumb) {
+        // View single candidate
         StringBuilder sb = new StringBuilder();
-        for (Voter v : list) {
-            sb.append("ID: ").append(v.getId()).append('\n');
-            sb.append("Name: ").append(v.getName()).append('\n');
-            sb.append("Has Voted: ").append(v.isHasVoted()).append('\n');
-            sb.append("Verified: ").append(v.isVerified()).append('\n');
-            sb.append("DOB: ").append(v.getDob() != null ? v.getDob().toString() : "").append('\n');
-            sb.append("-------------------------").append('\n');
-        }
+        sb.append("ID: ").append(selected.id).append('\n');
+        sb.append("Name: ").append(selected.name).append('\n');
+        sb.append("Symbol: ").append(selected.symbol).append('\n');
+        sb.append("Position: ").append(selected.position).append('\n');
+        sb.append("Age: ").append(selected.age).append('\n');
+        sb.append("Votes: ").append(selected.votes).append('\n');
+        sb.append("Bio: ").append(selected.bio != null ? selected.bio : "").append('\n');
+
+        JPanel p = new JPanel(new BorderLayout(12,12));
+        p.setBackground(bgDark);
+        p.setBorder(BorderFactory.createEmptyBorder(10,10,10,10));
+
+        JLabel imgLabel = new JLabel();
+        imgLabel.setPreferredSize(new Dimension(180,180));
+        imgLabel.setHorizontalAlignment(SwingConstants.LEFT);
+        if (thumb != null) imgLabel.setIcon(new ImageIcon(thumb));
+        else imgLabel.setText("No photo");
+
+        JPanel right = new JPanel(new BorderLayout(6,6));
+        right.setBackground(bgDark);
+        JPanel meta = new JPanel(new GridLayout(0,1));
+        meta.setBackground(bgDark);
+        JLabel nameL = new JLabel("Name: " + selected.name);
+        nameL.setFont(UiTheme.BOLD_24);
+        nameL.setForeground(accent1);
+        JLabel symbolL = new JLabel("Symbol: " + selected.symbol);
+        symbolL.setFont(UiTheme.PLAIN_18); symbolL.setForeground(Color.WHITE);
+        JLabel posL = new JLabel("Position: " + selected.position);
+        posL.setFont(UiTheme.PLAIN_18); posL.setForeground(Color.WHITE);
+        JLabel ageL = new JLabel("Age: " + selected.age + "    Votes: " + selected.votes);
+        ageL.setFont(UiTheme.PLAIN_18); ageL.setForeground(Color.WHITE);
+        meta.add(nameL); meta.add(symbolL); meta.add(posL); meta.add(ageL);
+
         JTextArea ta = new JTextArea(sb.toString());
         ta.setEditable(false);
-        ta.setFont(new Font("Arial", Font.PLAIN, 14));
+        ta.setFont(UiTheme.PLAIN_18);
+        ta.setLineWrap(true); ta.setWrapStyleWord(true);
         ta.setCaretPosition(0);
         ta.setBackground(Color.DARK_GRAY);
         ta.setForeground(Color.WHITE);
-        JScrollPane sp = new JScrollPane(ta);
+
+        right.add(meta, BorderLayout.NORTH);
+        JScrollPane taSp = new JScrollPane(ta);
+        taSp.getViewport().setBackground(Color.DARK_GRAY);
+        right.add(taSp, BorderLayout.CENTER);
+
+        p.add(imgLabel, BorderLayout.WEST);
+        p.add(right, BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(this, p, "Candidate Details", JOptionPane.PLAIN_MESSAGE);
+    }
+
+    private void editCandidateFlow(Candidate selected) {
+        // Edit flow - prompt for new values (leave blank to keep)
+        String newName = showTextInput("Edit Candidate", "Name:", selected.name);
+        if (newName == null) return; // cancelled
+        String newSymbol = showTextInput("Edit Candidate", "Symbol:", selected.symbol);
+        if (newSymbol == null) return;
+        String ageStr = showTextInput("Edit Candidate", "Age (leave blank to keep):", String.valueOf(selected.age));
+        if (ageStr == null) return;
+        Integer newAge = null;
+        try { if (!ageStr.trim().isEmpty()) newAge = Integer.parseInt(ageStr.trim()); } catch (Exception e) { showStyledDialog("Error","Invalid age.",false); return; }
+
+        String newPos = showTextInput("Edit Candidate", "Position:", selected.position);
+        if (newPos == null) return;
+        // Use a file chooser for selecting a new photo (optional)
+        File newPhoto = null;
+        int choose = JOptionPane.showConfirmDialog(this, "Do you want to change the photo?", "Photo", JOptionPane.YES_NO_CANCEL_OPTION);
+        if (choose == JOptionPane.YES_OPTION) {
+            JFileChooser jfc = new JFileChooser();
+            jfc.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Image files","jpg","png","jpeg"));
+            int r = jfc.showOpenDialog(this);
+            if (r == JFileChooser.APPROVE_OPTION) newPhoto = jfc.getSelectedFile();
+        } else if (choose == JOptionPane.CANCEL_OPTION) {
+            return; // cancel edit
+        }
+        String newBio = showTextInput("Edit Candidate", "Bio:", selected.bio != null ? selected.bio : "");
+        if (newBio == null) return;
+
+        Integer age = newAge; File photo = newPhoto;
+        String pos = newPos.trim().isEmpty() ? null : newPos.trim();
+        runAsync(service.call(() -> {
+            // a newly typed position must exist before candidates can reference it
+            if (pos != null) adminLogic.addPosition(pos);
+            adminLogic.editCandidate(selected.id, newName, newSymbol, age, pos, photo, newBio);
+            return null;
+        }), r -> showStyledDialog("Success", "Candidate updated.", true),
+                err -> showStyledDialog("Error", "Failed to update candidate: " + err.getMessage(), false));
+    }
+    // Voter roll: a lazily paged JTable with server-side search, so the admin console never
+    // loads the whole roll. The buttons act on the selected row.
+    private void showVoterList() {
+        JDialog dlg = new JDialog(this, "Voters", true);
+        VoterTableModel model = new VoterTableModel(service, adminLogic);
+        JTable table = new JTable(model);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setFont(UiTheme.PLAIN_14);
+        table.setRowHeight(22);
+        table.setBackground(Color.DARK_GRAY);
+        table.setForeground(Color.WHITE);
+        table.setGridColor(bgGrey);
+        table.setSelectionBackground(accent2);
+        table.getColumnModel().getColumn(0).setPreferredWidth(70);
+        table.getColumnModel().getColumn(1).setPreferredWidth(260);
+        JScrollPane sp = new JScrollPane(table);
         sp.getViewport().setBackground(Color.DARK_GRAY);
-        sp.setPreferredSize(new Dimension(600, 300));
-        JOptionPane.showMessageDialog(this, sp, "Voters", JOptionPane.PLAIN_MESSAGE);
+
+        JTextField searchF = new JTextField(20);
+        searchF.setFont(UiTheme.PLAIN_16);
+        JLabel searchL = new JLabel("Name or ID:");
+        searchL.setForeground(Color.WHITE);
+        searchL.setFont(UiTheme.PLAIN_16);
+        JLabel countL = new JLabel(" ");
+        countL.setForeground(accent1);
+        countL.setFont(UiTheme.BOLD_14);
+        JButton searchBtn = createStyledButton("Search");
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 6));
+        top.setBackground(bgDark);
+        top.add(searchL); top.add(searchF); top.add(searchBtn); top.add(countL);
+
+        JButton detailsBtn = createStyledButton("Details");
+        JButton editBtn = createStyledButton("Edit");
+        JButton verifyBtn = createStyledButton("(Un)verify");
+        JButton bulkBtn = createStyledButton("Bulk Verify");
+        JButton deleteBtn = createStyledButton("Delete");
+        JButton closeBtn = createStyledButton("Close");
+        JPanel bottom = new JPanel(new FlowLayout(FlowLayout.CENTER, 8, 6));
+        bottom.setBackground(bgDark);
+        bottom.add(detailsBtn); bottom.add(editBtn); bottom.add(verifyBtn); bottom.add(bulkBtn); bottom.add(deleteBtn); bottom.add(closeBtn);
+
+        JPanel content = new JPanel(new BorderLayout(6, 6));
+        content.setBackground(bgDark);
+        content.setBorder(new EmptyBorder(8, 8, 8, 8));
+        content.add(top, BorderLayout.NORTH);
+        content.add(sp, BorderLayout.CENTER);
+        content.add(bottom, BorderLayout.SOUTH);
+
+        model.setOnReload(() -> countL.setText(model.getRowCount() + " voter(s)"));
+        ActionListener doSearch = e -> model.search(searchF.getText());
+        searchF.addActionListener(doSearch);
+        searchBtn.addActionListener(doSearch);
+        java.util.function.Supplier<Voter> selected = () -> {
+            int row = table.getSelectedRow();
+            Voter v = row >= 0 ? model.getVoter(table.convertRowIndexToModel(row)) : null;
+            if (v == null) showStyledDialog("Info", "Select a voter first.", true);
+            return v;
+        };
+        detailsBtn.addActionListener(e -> { Voter v = selected.get(); if (v != null) showVoterDetails(v); });
+        editBtn.addActionListener(e -> { Voter v = selected.get(); if (v != null) editVoterFlow(v.getId(), model::refresh); });
+        verifyBtn.addActionListener(e -> {
+            Voter v = selected.get();
+            if (v == null) return;
+            boolean to = !v.isVerified();
+            runAsync(service.run(() -> adminLogic.setVoterVerified(v.getId(), to)),
+                    r -> model.refresh(), "Failed to change verification.");
+        });
+        deleteBtn.addActionListener(e -> {
+            Voter v = selected.get();
+            if (v == null) return;
+            int conf = JOptionPane.showConfirmDialog(dlg, "Are you sure you want to delete " + v.getName() + "?", "Confirm", JOptionPane.YES_NO_OPTION);
+            if (conf != JOptionPane.YES_OPTION) return;
+            runAsync(service.run(() -> adminLogic.deleteVoter(v.getId())),
+                    r -> { showStyledDialog("Success","Voter deleted.",true); model.refresh(); }, "Failed to delete voter.");
+        });
+        bulkBtn.addActionListener(e -> bulkVerifyDialog(searchF.getText().trim(), model::refresh));
+        closeBtn.addActionListener(e -> dlg.dispose());
+        table.addMouseListener(new MouseAdapter() {
+            @Override public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) { Voter v = selected.get(); if (v != null) showVoterDetails(v); }
+            }
+        });
+
+        dlg.setContentPane(content);
+        dlg.setSize(880, 520);
+        dlg.setLocationRelativeTo(this);
+        model.refresh();
+        dlg.setVisible(true);
     }
 
-    // New vote flow: show candidates grouped by position, sectioned list
-    private void votePanelAction() {
-        ArrayList<String> positions = getAllPositions();
-        if (positions.isEmpty()) { showStyledDialog("Info", "No positions available.", true); return; }
-        JPanel main = new JPanel();
-        main.setLayout(new BoxLayout(main, BoxLayout.Y_AXIS));
-        main.setBackground(bgDark);
-
-        ArrayList<Candidate> allCandidates = adminLogic.getAllCandidates();
-        boolean any = false;
-        // Store ButtonGroups for each position
-        java.util.Map<String, ButtonGroup> positionGroups = new java.util.LinkedHashMap<>();
-        java.util.Map<String, JPanel> positionPanels = new java.util.LinkedHashMap<>();
-        for (String pos : positions) {
-            ArrayList<Candidate> candidates = adminLogic.getCandidatesByPosition(pos);
-            if (candidates.isEmpty()) continue;
-            any = true;
-            JLabel posLabel = new JLabel(pos);
-            posLabel.setFont(new Font("Arial", Font.BOLD, 20));
-            posLabel.setForeground(accent1);
-            main.add(posLabel);
-
-            ButtonGroup group = new ButtonGroup();
-            JPanel candPanel = new JPanel();
-            candPanel.setLayout(new BoxLayout(candPanel, BoxLayout.Y_AXIS));
-            candPanel.setBackground(bgDark);
-            for (Candidate c : candidates) {
-                JRadioButton rb = new JRadioButton(c.name + " (" + c.symbol + "), Age: " + c.age);
-                rb.setFont(new Font("Arial", Font.PLAIN, 16));
-                rb.setForeground(Color.WHITE);
-                rb.setBackground(bgDark);
-                rb.putClientProperty("cid", c.id);
-                group.add(rb);
-                candPanel.add(rb);
+    // Bulk verification runs as chunked set-based updates (see Admin.verifyPending).
+    private void bulkVerifyDialog(String search, Runnable onDone) {
+        String[] acts = {"All pending aged " + Voter.MIN_AGE + "+", "Pending in ID range", "Pending matching search", "Review one by one", "Cancel"};
+        int act = JOptionPane.showOptionDialog(this, "Verify which pending voters?", "Bulk Verify",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, acts, acts[0]);
+        java.util.concurrent.Callable<Integer> work;
+        if (act == 0) {
+            java.time.LocalDate cutoff = java.time.LocalDate.now().minusYears(Voter.MIN_AGE);
+            work = () -> adminLogic.verifyVotersBornBy(cutoff);
+        } else if (act == 1) {
+            String from = showTextInput("Bulk Verify", "From ID:", "1"); if (from == null) return;
+            String to = showTextInput("Bulk Verify", "To ID:", from); if (to == null) return;
+            int lo, hi;
+            try { lo = Integer.parseInt(from.trim()); hi = Integer.parseInt(to.trim()); }
+            catch (NumberFormatException ex) { showStyledDialog("Error", "IDs must be numbers.", false); return; }
+            work = () -> adminLogic.verifyVoterRange(lo, hi);
+        } else if (act == 2) {
+            if (search.isEmpty()) { showStyledDialog("Info", "Enter a name prefix in the search box first.", true); return; }
+            work = () -> adminLogic.verifyPending(null, null, search, null);
+        } else if (act == 3) {
+            reviewPendingVoters(adminLogic.pendingVoters(), new ArrayList<>(), onDone);
+            return;
+        } else {
+            return;
+        }
+        runAsync(service.call(work), n -> { showStyledDialog("Success", n + " voter(s) verified.", true); onDone.run(); },
+                "Bulk verification failed.");
+    }
+
+    // Steps through the pending queue with a keyset cursor; approvals are applied in one bulk call.
+    private void reviewPendingVoters(java.util.Iterator<Voter> cursor, ArrayList<Integer> approved, Runnable onDone) {
+        runAsync(service.call(() -> cursor.hasNext() ? cursor.next() : null), v -> {
+            int act = 2;
+            if (v != null) {
+                String[] acts = {"Verify", "Skip", "Finish"};
+                String info = v.getName() + " (ID " + v.getId() + "), DOB: " + (v.getDob() != null ? v.getDob() : "unknown")
+                        + (Voter.isEligible(v.getDob(), java.time.LocalDate.now()) ? "" : "  - UNDER " + Voter.MIN_AGE);
+                act = JOptionPane.showOptionDialog(this, info, "Review pending (" + approved.size() + " approved)",
+                        JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, acts, acts[0]);
+                if (act == 0) approved.add(v.getId());
             }
-            positionGroups.put(pos, group);
-            positionPanels.put(pos, candPanel);
-            main.add(candPanel);
-            main.add(Box.createRigidArea(new Dimension(0,12)));
+            if (act == 0 || act == 1) { reviewPendingVoters(cursor, approved, onDone); return; }
+            if (approved.isEmpty()) { onDone.run(); return; }
+            int[] ids = approved.stream().mapToInt(Integer::intValue).toArray();
+            runAsync(service.call(() -> adminLogic.setVotersVerified(ids, true)),
+                    n -> { showStyledDialog("Success", n + " voter(s) verified.", true); onDone.run(); }, "Failed to verify voters.");
+        }, "Failed to read pending voters.");
+    }
+
+    private void showVoterDetails(Voter v) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("ID: ").append(v.getId()).append('\n');
+        sb.append("Name: ").append(v.getName()).append('\n');
+        sb.append("Has Voted: ").append(v.isHasVoted()).append('\n');
+        sb.append("Verified: ").append(v.isVerified()).append('\n');
+        sb.append("DOB: ").append(v.getDob() != null ? v.getDob().toString() : "").append('\n');
+        JTextArea ta = new JTextArea(sb.toString()); ta.setEditable(false); ta.setFont(UiTheme.PLAIN_16); ta.setBackground(Color.DARK_GRAY); ta.setForeground(Color.WHITE);
+        JScrollPane sp = new JScrollPane(ta); sp.setPreferredSize(new Dimension(500,200));
+        JOptionPane.showMessageDialog(this, sp, "Voter Details", JOptionPane.PLAIN_MESSAGE);
+    }
+
+    // Table rows carry no password, so the full record is read before editing.
+    private void editVoterFlow(int voterId, Runnable onDone) {
+        runAsync(service.call(() -> adminLogic.getVoter(voterId)), selected -> {
+            if (selected == null) { showStyledDialog("Info", "Voter no longer exists.", true); onDone.run(); return; }
+            String newName = showTextInput("Edit Voter", "Name:", selected.getName()); if (newName == null) return;
+            String newPass = showTextInput("Edit Voter", "Password:", selected.getPassword()); if (newPass == null) return;
+            String dobStr = showTextInput("Edit Voter", "DOB (YYYY-MM-DD):", selected.getDob() != null ? selected.getDob().toString() : "2000-01-01"); if (dobStr == null) return;
+            java.time.LocalDate dob = null; try { dob = java.time.LocalDate.parse(dobStr); } catch (Exception e) { showStyledDialog("Error","Invalid DOB format.",false); return; }
+            // keep hasVoted and verified as is
+            java.time.LocalDate newDob = dob;
+            runAsync(service.run(() -> adminLogic.editVoter(selected.getId(), newName, newPass, newDob, selected.isHasVoted(), selected.isVerified())),
+                    r -> { showStyledDialog("Success","Voter updated.",true); onDone.run(); }, "Failed to update voter.");
+        }, "Failed to load voter.");
+    }
+
+    // Live results from ResultsAggregator: snapshots are cheap, so the dialog simply polls
+    // once a second and only re-renders when the snapshot version changed.
+    private void showResults() {
+        JDialog dlg = new JDialog(this, "Results", true);
+        JPanel boards = new JPanel();
+        boards.setLayout(new BoxLayout(boards, BoxLayout.Y_AXIS));
+        boards.setBackground(bgDark);
+        boards.setBorder(new EmptyBorder(8, 8, 8, 8));
+        JScrollPane sp = new JScrollPane(boards);
+        sp.getViewport().setBackground(bgDark);
+        sp.getVerticalScrollBar().setUnitIncrement(16);
+
+        JLabel turnoutL = new JLabel("Loading results...");
+        turnoutL.setForeground(Color.WHITE);
+        turnoutL.setFont(UiTheme.BOLD_16);
+        turnoutL.setBorder(new EmptyBorder(8, 8, 8, 8));
+
+        JButton exportBtn = createStyledButton("Export CSV");
+        JButton closeBtn = createStyledButton("Close");
+        JPanel bottom = new JPanel(new FlowLayout(FlowLayout.CENTER, 8, 6));
+        bottom.setBackground(bgDark);
+        bottom.add(exportBtn); bottom.add(closeBtn);
+
+        JPanel content = new JPanel(new BorderLayout());
+        content.setBackground(bgDark);
+        content.add(turnoutL, BorderLayout.NORTH);
+        content.add(sp, BorderLayout.CENTER);
+        content.add(bottom, BorderLayout.SOUTH);
+
+        ResultsAggregator.Snapshot[] shown = {null};
+        boolean[] loading = {false};
+        Runnable refresh = () -> {
+            if (loading[0]) return;
+            loading[0] = true;
+            service.results().whenComplete((snap, err) -> SwingUtilities.invokeLater(() -> {
+                loading[0] = false;
+                if (err != null) { err.printStackTrace(); return; }
+                if (shown[0] != null && shown[0].version == snap.version) return;
+                shown[0] = snap;
+                renderResults(boards, turnoutL, snap);
+            }));
+        };
+        Timer timer = new Timer(1000, e -> refresh.run());
+        exportBtn.addActionListener(e -> {
+            if (shown[0] == null) return;
+            JFileChooser jfc = new JFileChooser();
+            jfc.setSelectedFile(new File("results.csv"));
+            if (jfc.showSaveDialog(dlg) != JFileChooser.APPROVE_OPTION) return;
+            java.nio.file.Path out = jfc.getSelectedFile().toPath();
+            String csv = shown[0].toCsv();
+            runAsync(service.call(() -> Files.write(out, csv.getBytes(java.nio.charset.StandardCharsets.UTF_8))),
+                    p -> showStyledDialog("Success", "Results exported.", true), "Failed to export results.");
+        });
+        closeBtn.addActionListener(e -> dlg.dispose());
+
+        dlg.setContentPane(content);
+        dlg.setSize(700, 560);
+        dlg.setLocationRelativeTo(this);
+        refresh.run();
+        timer.start();
+        dlg.setVisible(true);
+        timer.stop();
+    }
+
+    private void renderResults(JPanel boards, JLabel turnoutL, ResultsAggregator.Snapshot snap) {
+        turnoutL.setText(String.format("Turnout: %d of %d verified voters (%.1f%%)", snap.ballots, snap.eligible, snap.turnout() * 100));
+        boards.removeAll();
+        if (snap.positions.isEmpty()) {
+            JLabel none = new JLabel("No candidates available.");
+            none.setForeground(Color.WHITE);
+            boards.add(none);
         }
-        if (!any) { showStyledDialog("Info", "No candidates available.", true); return; }
-
-        int res = JOptionPane.showConfirmDialog(this, main, "Vote - Select Candidate", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
-        if (res == JOptionPane.OK_OPTION) {
-            // For each position, check if a candidate is selected
-            java.util.List<Integer> selectedIds = new java.util.ArrayList<>();
-            java.util.List<String> selectedNames = new java.util.ArrayList<>();
-            for (String pos : positions) {
-                ButtonGroup group = positionGroups.get(pos);
-                if (group == null) continue;
-                for (Enumeration<AbstractButton> e = group.getElements(); e.hasMoreElements();) {
-                    AbstractButton ab = e.nextElement();
-                    if (ab.isSelected()) {
-                        Object cid = ab.getClientProperty("cid");
-                        if (cid instanceof Integer) {
-                            selectedIds.add((Integer) cid);
-                            selectedNames.add(pos + ": " + ab.getText());
-                        }
-                    }
-                }
+        for (ResultsAggregator.Leaderboard b : snap.positions) {
+            JLabel posL = new JLabel(b.position + "  -  " + b.total + " votes"
+                    + (b.total == 0 ? "" : b.tied ? "  (tied)" : "  (lead " + b.margin + ")"));
+            posL.setFont(UiTheme.BOLD_20);
+            posL.setForeground(accent1);
+            posL.setBorder(new EmptyBorder(10, 0, 4, 0));
+            boards.add(posL);
+            for (ResultsAggregator.Standing s : b.standings) {
+                JPanel row = new JPanel(new BorderLayout(10, 0));
+                row.setBackground(bgDark);
+                row.setMaximumSize(new Dimension(Integer.MAX_VALUE, 28));
+                JLabel nameL = new JLabel(s.name);
+                nameL.setPreferredSize(new Dimension(220, 24));
+                nameL.setForeground(Color.WHITE);
+                nameL.setFont(UiTheme.PLAIN_16);
+                JProgressBar bar = new JProgressBar(0, 1000);
+                bar.setValue((int) Math.round(s.share * 1000));
+                bar.setStringPainted(true);
+                bar.setString(s.votes + " (" + String.format("%.1f%%", s.share * 100) + ")");
+                bar.setForeground(accent2);
+                row.add(nameL, BorderLayout.WEST);
+                row.add(bar, BorderLayout.CENTER);
+                boards.add(row);
             }
-            if (selectedIds.isEmpty()) { showStyledDialog("Error", "Please select a candidate for at least one position.", false); return; }
-
-            // Show confirmation dialog with selected candidates
-            StringBuilder confMsg = new StringBuilder("You have selected:\n\n");
-            for (String s : selectedNames) confMsg.append(s).append("\n");
-            confMsg.append("\nDo you want to submit your vote?");
-            int confirm = JOptionPane.showConfirmDialog(this, confMsg.toString(), "Confirm Vote", JOptionPane.YES_NO_OPTION);
-            if (confirm != JOptionPane.YES_OPTION) return;
-
-            // Only one candidate per position can be selected due to ButtonGroup
-            try (Connection con = DBUtil.getConnection()) {
-                for (int selectedId : selectedIds) {
-                    try (PreparedStatement pst1 = con.prepareStatement("UPDATE candidates SET votes=votes+1 WHERE id=?")) {
-                        pst1.setInt(1, selectedId); pst1.executeUpdate();
-                    }
-                }
-                try (PreparedStatement pst2 = con.prepareStatement("UPDATE voters SET has_voted=1 WHERE id=?")) {
-                    pst2.setInt(1, currentVoter.getId()); pst2.executeUpdate();
-                }
-                currentVoter = new Voter(currentVoter.getId(), currentVoter.getName(),
-                    currentVoter.getPassword(), true, currentVoter.isVerified(), currentVoter.getDob());
-                showStyledDialog("Success","Vote Cast Successfully", false);
-            } catch(Exception ex) { ex.printStackTrace(); }
+        }
+        boards.revalidate();
+        boards.repaint();
+    }
+
+    // New vote flow: show candidates grouped by position, sectioned list
+    private void votePanelAction() {
+        // shared ballot: one query per election state, not one per position per voter
+        runAsync(service.ballot(), this::showBallot, "Failed to load the ballot.");
+    }
+
+    private void showBallot(Ballot ballot) {
+        if (ballot.isEmpty()) { showStyledDialog("Info", "No candidates available.", true); return; }
+        // one view per ballot version, reset for each voter
+        if (ballotView == null || !ballotView.shows(ballot)) ballotView = new BallotView(ballot);
+        BallotView view = ballotView;
+        view.clearSelection();
+
+        int res = JOptionPane.showConfirmDialog(this, view, "Vote - Select Candidate", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (res != JOptionPane.OK_OPTION) { view.clearSelection(); return; }
+        if (!view.hasSelection()) { showStyledDialog("Error", "Please select a candidate for at least one position.", false); return; }
+        BallotRecord record = view.toRecord();
+        java.util.List<String> selectedNames = view.summary();
+        // don't leave this voter's choices in the view for the next one
+        view.clearSelection();
+
+        // Show confirmation dialog with selected candidates
+        StringBuilder confMsg = new StringBuilder("You have selected:\n\n");
+        for (String s : selectedNames) confMsg.append(s).append("\n");
+        confMsg.append("\nDo you want to submit your vote?");
+        int confirm = JOptionPane.showConfirmDialog(this, confMsg.toString(), "Confirm Vote", JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) return;
+
+        // Only one candidate per position can be selected due to ButtonGroup
+        runAsync(service.castBallot(currentVoter, record), this::showVoteResult, "Failed to cast vote. Please try again.");
+    }
+
+    private void showVoteResult(VoteResult result) {
+        switch (result) {
+            case ACCEPTED: voterPanelRefresh.run(); showStyledDialog("Success","Vote Cast Successfully", false); break;
+            case ALREADY_VOTED: voterPanelRefresh.run(); showStyledDialog("Error","You have already voted.", false); break;
+            case NOT_VERIFIED: showStyledDialog("Error","Your account is not verified by admin.", false); break;
+            case VOTING_CLOSED: showStyledDialog("Error","Voting is not active now.", false); break;
+            case INVALID_SELECTION: Ballot.invalidate(); showStyledDialog("Error","The ballot has changed, please vote again.", false); break;
+            default: showStyledDialog("Error","Failed to cast vote. Please try again.", false); break;
         }
     }
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(VotingGUI2::new);
+        SwingUtilities.invokeLater(VotingGUI::new);
     }
 }
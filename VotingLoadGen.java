@@ -0,0 +1,485 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// ---------------- Election-day load generator ----------------
+// Rehearses polling-day load: each simulated voter logs in, loads the ballot, thinks, picks one
+// candidate per position and casts the ballot. Voters arrive along a configurable curve and
+// run on virtual threads where the JDK has them (21+). At the end it reports latency
+// percentiles, throughput, lock waits and checks that no vote was lost or counted twice.
+//
+//   java -cp ".:mysql-connector.jar" VotingLoadGen [options]
+//     --mode http|direct            through a VotingServer (default) or in-process against the DB
+//     --url http://localhost:8080   vote server (http mode)
+//     --voters 1000                 simulated voters (loadvoter1..N)
+//     --concurrency 50              voters in flight at once
+//     --arrival burst               burst (all at once), uniform, ramp (rising) or peaks
+//                                   (morning and evening rush) spread over --duration
+//     --duration 60                 seconds over which voters arrive (not for burst)
+//     --think 0                     mean think time in ms between loading the ballot and voting
+//     --revote 0                    percent of voters who submit their ballot twice at once
+//                                   (two stations / double click); one must be rejected
+//     --seed                        create/reset the load voters in the DB first (verified, not voted)
+//     --positions 0 --candidates 3  with --seed: make sure the ballot has this many load
+//                                   positions with this many candidates each
+//     --start                       start voting in the DB before the run
+//     --batch                       login + ballot in one /api/batch round trip (http mode)
+//     --no-check                    skip the invariant check (needs DB access)
+//     --prefix loadvoter --password loadpass
+//
+// Everything but the http run itself uses the DB settings (-Dvoting.db.url etc.). The check
+// compares the DB before and after the run, so other voting during the run skews it.
+final class VotingLoadGen {
+    private static final int LOGIN = 0, BALLOT = 1, VOTE = 2, QUEUE = 3, SESSION = 4;
+    private static final String[] OPS = {"login", "ballot", "vote", "queued", "session"};
+
+    // One way of reaching the voting system.
+    private interface Station {
+        Voter login(String name, String password) throws Exception;
+        Ballot ballot() throws Exception;
+        VoteResult cast(Voter voter, int[] candidateIds) throws Exception;
+    }
+
+    private static final class HttpStation implements Station {
+        final VotingClient client;
+
+        HttpStation(String url) { client = new VotingClient(url); }
+
+        public Voter login(String name, String password) throws Exception { return client.login(name, password); }
+        public Ballot ballot() throws Exception { return client.ballot(); }
+        public VoteResult cast(Voter voter, int[] ids) throws Exception { return client.castBallot(voter, ids); }
+    }
+
+    // The same calls the GUI's voter panel makes when it talks to the DB directly.
+    private static final class DirectStation implements Station {
+        public Voter login(String name, String password) { return Voter.login(name, password); }
+        public Ballot ballot() throws Exception { return Ballot.current(); }
+        public VoteResult cast(Voter voter, int[] ids) { return voter.castBallot(ids); }
+    }
+
+    private static final class Options {
+        String mode = "http";
+        String url = "http://localhost:8080";
+        String prefix = "loadvoter";
+        String password = "loadpass";
+        int voters = 1000;
+        int concurrency = 50;
+        String arrival = "burst";
+        double durationSec = 60;
+        long thinkMs = 0;
+        double revotePct = 0;
+        int positions = 0;
+        int candidates = 3;
+        boolean seed, start, batch, check = true;
+    }
+
+    // Counters shared by all voter tasks.
+    private static final class Run {
+        final LatencyHistogram[] latency = new LatencyHistogram[OPS.length];
+        final AtomicIntegerArray results = new AtomicIntegerArray(VoteResult.values().length);
+        final AtomicInteger errors = new AtomicInteger();
+        final AtomicInteger accepted = new AtomicInteger();       // accepted submissions
+        final AtomicInteger doubleVotes = new AtomicInteger();    // voters with two accepted submissions
+        final ConcurrentHashMap<Integer, LongAdder> picks = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Long, LongAdder> votesPerSecond = new ConcurrentHashMap<>();
+
+        Run() {
+            for (int i = 0; i < latency.length; i++) latency[i] = new LatencyHistogram();
+        }
+
+        void accept(int[] ids, long now, long begin) {
+            accepted.incrementAndGet();
+            for (int cid : ids) picks.computeIfAbsent(cid, k -> new LongAdder()).increment();
+            votesPerSecond.computeIfAbsent((now - begin) / 1_000_000_000L, k -> new LongAdder()).increment();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options o = parse(args);
+        if (o.seed) {
+            seedVoters(o.prefix, o.password, o.voters);
+            if (o.positions > 0) seedBallot(o.positions, o.candidates);
+        }
+        if (o.start) new Admin().startVoting();
+
+        Station station = o.mode.equals("direct") ? new DirectStation() : new HttpStation(o.url);
+        DbState before = o.check ? DbState.read(o.prefix) : null;
+        ConnectionPool pool = o.mode.equals("direct") ? DBUtil.getPool() : null;
+        long poolWaitBefore = pool != null ? pool.getTotalWaitMillis() : 0;
+
+        long[] arrivals = arrivals(o.arrival, o.voters, (long) (o.durationSec * 1e9));
+        Run run = new Run();
+        ExecutorService executor = VotingService.newWorkerExecutor("loadgen", o.concurrency);
+        // second submissions of --revote run here, so they never wait behind their own voter
+        ExecutorService revotes = VotingService.newWorkerExecutor("loadgen-revote", o.concurrency);
+        Semaphore inFlight = new Semaphore(o.concurrency);
+        System.out.println("Running " + o.voters + " voters (" + o.mode + (o.mode.equals("http") ? " " + o.url : "")
+                + ", concurrency " + o.concurrency + ", arrival " + o.arrival
+                + (o.arrival.equals("burst") ? "" : " over " + o.durationSec + " s")
+                + (o.thinkMs > 0 ? ", think " + o.thinkMs + " ms" : "")
+                + (o.revotePct > 0 ? ", revote " + o.revotePct + "%" : "")
+                + (o.batch ? ", batched" : "") + ")...");
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < o.voters; i++) {
+            long due = begin + arrivals[i];
+            for (long wait; (wait = due - System.nanoTime()) > 0; ) LockSupport.parkNanos(wait);
+            final String name = o.prefix + (i + 1);
+            final boolean revote = ThreadLocalRandom.current().nextDouble(100) < o.revotePct;
+            inFlight.acquire();
+            executor.execute(() -> {
+                long started = System.nanoTime();
+                run.latency[QUEUE].record(started - due);
+                try {
+                    VoteResult r = runVoter(station, o, name, revote, revotes, run, begin);
+                    run.results.incrementAndGet(r.ordinal());
+                } catch (Exception e) {
+                    if (run.errors.incrementAndGet() <= 5) System.out.println(name + ": " + e);
+                } finally {
+                    run.latency[SESSION].record(System.nanoTime() - due);
+                    inFlight.release();
+                }
+            });
+        }
+        inFlight.acquire(o.concurrency);
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        revotes.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        revotes.awaitTermination(10, TimeUnit.SECONDS);
+
+        report(o, run, elapsed);
+        if (pool != null) {
+            System.out.println("Connection pool wait: " + (pool.getTotalWaitMillis() - poolWaitBefore)
+                    + " ms total, " + pool.getMaxWaitMillis() + " ms max");
+        }
+        if (before != null) {
+            if (o.mode.equals("direct") && VoteTally.isStriped()) VoteTally.flush();
+            checkInvariants(o, run, before);
+        }
+    }
+
+    private static Options parse(String[] args) {
+        Options o = new Options();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--mode": o.mode = args[++i]; break;
+                case "--url": o.url = args[++i]; break;
+                case "--voters": o.voters = Integer.parseInt(args[++i]); break;
+                case "--concurrency": o.concurrency = Integer.parseInt(args[++i]); break;
+                case "--arrival": o.arrival = args[++i]; break;
+                case "--duration": o.durationSec = Double.parseDouble(args[++i]); break;
+                case "--think": o.thinkMs = Long.parseLong(args[++i]); break;
+                case "--revote": o.revotePct = Double.parseDouble(args[++i]); break;
+                case "--positions": o.positions = Integer.parseInt(args[++i]); break;
+                case "--candidates": o.candidates = Integer.parseInt(args[++i]); break;
+                case "--prefix": o.prefix = args[++i]; break;
+                case "--password": o.password = args[++i]; break;
+                case "--seed": o.seed = true; break;
+                case "--start": o.start = true; break;
+                case "--batch": o.batch = true; break;
+                case "--no-check": o.check = false; break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (!o.mode.equals("http") && !o.mode.equals("direct")) {
+            System.out.println("--mode must be http or direct");
+            System.exit(2);
+        }
+        if (o.batch && !o.mode.equals("http")) {
+            System.out.println("--batch needs --mode http");
+            System.exit(2);
+        }
+        return o;
+    }
+
+    private static VoteResult runVoter(Station station, Options o, String name, boolean revote,
+                                       ExecutorService revotes, Run run, long begin) throws Exception {
+        Voter voter;
+        Ballot ballot;
+        if (o.batch) {
+            VotingClient client = ((HttpStation) station).client;
+            long t0 = System.nanoTime();
+            Map<String, Object> login = new LinkedHashMap<>();
+            login.put("name", name);
+            login.put("password", o.password);
+            List<Map<String, Object>> reqs = new ArrayList<>();
+            reqs.add(VotingClient.request("/api/voter/login", login));
+            reqs.add(VotingClient.request("/api/ballot", null));
+            List<Object> resp = client.batch(reqs);
+            run.latency[LOGIN].record(System.nanoTime() - t0);
+            Map<?, ?> lr = (Map<?, ?>) resp.get(0);
+            Map<?, ?> br = (Map<?, ?>) resp.get(1);
+            if (((Number) lr.get("status")).intValue() != 200) return VoteResult.NOT_VERIFIED;
+            voter = client.voterFrom(lr.get("body"));
+            ballot = VotingClient.ballotFrom(br.get("body"));
+        } else {
+            long t0 = System.nanoTime();
+            voter = station.login(name, o.password);
+            run.latency[LOGIN].record(System.nanoTime() - t0);
+            if (voter == null) return VoteResult.NOT_VERIFIED;
+            t0 = System.nanoTime();
+            ballot = station.ballot();
+            run.latency[BALLOT].record(System.nanoTime() - t0);
+        }
+        if (ballot.isEmpty()) return VoteResult.INVALID_SELECTION;
+        // a second session for the same voter, as if another station had logged them in too
+        Voter second = revote ? station.login(name, o.password) : null;
+
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        if (o.thinkMs > 0) Thread.sleep((long) (-o.thinkMs * Math.log(1 - rnd.nextDouble())));
+        int[] ids = new int[ballot.races.size()];
+        for (int r = 0; r < ids.length; r++) {
+            List<Ballot.Choice> choices = ballot.races.get(r).choices;
+            ids[r] = choices.get(rnd.nextInt(choices.size())).candidateId;
+        }
+
+        CompletableFuture<VoteResult> dup = second == null ? null : CompletableFuture.supplyAsync(() -> {
+            try {
+                return station.cast(second, ids);
+            } catch (Exception e) {
+                return VoteResult.FAILED;
+            }
+        }, revotes);
+        long t0 = System.nanoTime();
+        VoteResult result = station.cast(voter, ids);
+        long now = System.nanoTime();
+        run.latency[VOTE].record(now - t0);
+        if (result == VoteResult.ACCEPTED) run.accept(ids, now, begin);
+        if (dup != null) {
+            VoteResult r2 = dup.join();
+            if (r2 == VoteResult.ACCEPTED) {
+                run.accept(ids, System.nanoTime(), begin);
+                if (result == VoteResult.ACCEPTED) run.doubleVotes.incrementAndGet();
+                else result = r2;
+            }
+        }
+        return result;
+    }
+
+    // ---------------- Arrival curves ----------------
+    // Arrival offsets (ns, ascending) for n voters spread over duration: the voter density
+    // follows the curve, and voter i arrives where the cumulative share reaches (i + 0.5) / n.
+    static long[] arrivals(String curve, int n, long durationNanos) {
+        long[] at = new long[n];
+        if (curve.equals("burst") || n == 0) return at;
+        final int steps = 1000;
+        double[] cdf = new double[steps + 1];
+        for (int s = 1; s <= steps; s++) cdf[s] = cdf[s - 1] + density(curve, (s - 0.5) / steps);
+        for (int s = 1; s <= steps; s++) cdf[s] /= cdf[steps];
+        int s = 1;
+        for (int i = 0; i < n; i++) {
+            double u = (i + 0.5) / n;
+            while (cdf[s] < u) s++;
+            double within = (u - cdf[s - 1]) / (cdf[s] - cdf[s - 1]);
+            at[i] = (long) ((s - 1 + within) / steps * durationNanos);
+        }
+        return at;
+    }
+
+    // relative arrival rate at x in [0, 1] of the run
+    private static double density(String curve, double x) {
+        switch (curve) {
+            case "uniform": return 1;
+            case "ramp": return x;
+            case "peaks": {
+                // steady trickle with a morning rush and a bigger after-work rush
+                double morning = (x - 0.2) / 0.07, evening = (x - 0.8) / 0.07;
+                return 1 + 3 * Math.exp(-morning * morning) + 4 * Math.exp(-evening * evening);
+            }
+            default: throw new IllegalArgumentException("Unknown arrival curve: " + curve);
+        }
+    }
+
+    // ---------------- Report ----------------
+    private static void report(Options o, Run run, long elapsed) {
+        double secs = elapsed / 1e9;
+        System.out.println();
+        System.out.printf("Elapsed: %.2f s, %.1f voters/s, %.1f accepted ballots/s%n",
+                secs, o.voters / secs, run.accepted.get() / secs);
+        long peak = 0;
+        for (LongAdder a : run.votesPerSecond.values()) peak = Math.max(peak, a.sum());
+        if (peak > 0) System.out.println("Peak: " + peak + " accepted ballots in one second");
+        for (VoteResult r : VoteResult.values()) {
+            if (run.results.get(r.ordinal()) > 0) System.out.println("  " + r + ": " + run.results.get(r.ordinal()));
+        }
+        if (run.errors.get() > 0) System.out.println("  errors: " + run.errors.get());
+        System.out.println();
+        System.out.println("Latency (ms)      count      p50      p99    p99.9      max");
+        for (int op = 0; op < OPS.length; op++) {
+            LatencyHistogram h = run.latency[op];
+            if (h.count() == 0) continue;
+            System.out.printf("  %-12s %8d %8.2f %8.2f %8.2f %8.2f%n", OPS[op], h.count(),
+                    h.percentile(0.50) / 1e6, h.percentile(0.99) / 1e6, h.percentile(0.999) / 1e6, h.max() / 1e6);
+        }
+        System.out.println("  (queued: arrival to start, when all --concurrency slots were busy; session: arrival to done)");
+    }
+
+    // ---------------- Invariants ----------------
+    // What the DB looked like around the run: candidate totals, ballot ledger, load voters marked voted.
+    private static final class DbState {
+        final Map<Integer, Long> votes = new HashMap<>();
+        long ballots;
+        long lastBallotId;
+        long votedLoadVoters;
+        long lockWaits = -1;
+        long lockWaitMs = -1;
+
+        static DbState read(String prefix) throws Exception {
+            DbState s = new DbState();
+            for (Candidate c : new Admin().getAllCandidates()) s.votes.put(c.id, (long) c.votes);
+            try (Connection con = DBUtil.getConnection(); Statement st = con.createStatement()) {
+                try (ResultSet rs = st.executeQuery("SELECT COUNT(*), COALESCE(MAX(id), 0) FROM ballots")) {
+                    rs.next();
+                    s.ballots = rs.getLong(1);
+                    s.lastBallotId = rs.getLong(2);
+                }
+                try (PreparedStatement ps = con.prepareStatement("SELECT COUNT(*) FROM voters WHERE has_voted = 1 AND name LIKE ?")) {
+                    ps.setString(1, prefix + "%");
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        s.votedLoadVoters = rs.getLong(1);
+                    }
+                }
+                // InnoDB row lock counters (MySQL only)
+                try (ResultSet rs = st.executeQuery("SHOW GLOBAL STATUS WHERE Variable_name IN ('Innodb_row_lock_waits', 'Innodb_row_lock_time')")) {
+                    while (rs.next()) {
+                        if (rs.getString(1).equalsIgnoreCase("Innodb_row_lock_waits")) s.lockWaits = rs.getLong(2);
+                        else s.lockWaitMs = rs.getLong(2);
+                    }
+                } catch (SQLException notMySql) { /* lock waits stay unknown */ }
+            }
+            return s;
+        }
+
+        // choices stored in the ledger rows written after this state was read
+        long selectionsSince() throws Exception {
+            long n = 0;
+            try (Connection con = DBUtil.getConnection();
+                 PreparedStatement ps = con.prepareStatement("SELECT choices FROM ballots WHERE id > ?")) {
+                ps.setLong(1, lastBallotId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) n += BallotRecord.of(rs.getBytes(1)).count();
+                }
+            }
+            return n;
+        }
+    }
+
+    private static void checkInvariants(Options o, Run run, DbState before) throws Exception {
+        // striped tallies reach candidates.votes a little later: give them time to settle
+        long expectedPicks = 0;
+        for (LongAdder a : run.picks.values()) expectedPicks += a.sum();
+        DbState after = DbState.read(o.prefix);
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (totalVotes(after) - totalVotes(before) < expectedPicks && System.currentTimeMillis() < deadline) {
+            Thread.sleep(500);
+            after = DbState.read(o.prefix);
+        }
+
+        long lost = 0, extra = 0;
+        for (Map.Entry<Integer, Long> e : after.votes.entrySet()) {
+            LongAdder p = run.picks.get(e.getKey());
+            long expected = p != null ? p.sum() : 0;
+            long counted = e.getValue() - before.votes.getOrDefault(e.getKey(), 0L);
+            if (counted < expected) lost += expected - counted;
+            else extra += counted - expected;
+        }
+        for (Integer cid : run.picks.keySet()) {
+            if (!after.votes.containsKey(cid)) lost += run.picks.get(cid).sum();  // candidate vanished
+        }
+        long newVoted = after.votedLoadVoters - before.votedLoadVoters;
+        long newBallots = after.ballots - before.ballots;
+        long newChoices = before.selectionsSince();
+
+        System.out.println();
+        System.out.println("Invariants");
+        boolean ok = true;
+        ok &= check("no voter has two accepted ballots", run.doubleVotes.get() == 0,
+                run.doubleVotes.get() + " voter(s) voted twice");
+        ok &= check("accepted ballots = voters marked voted", run.accepted.get() == newVoted,
+                run.accepted.get() + " accepted, " + newVoted + " voters marked voted");
+        ok &= check("accepted ballots = new ballots in ledger", run.accepted.get() == newBallots,
+                run.accepted.get() + " accepted, " + newBallots + " in ledger");
+        ok &= check("selections = choices in new ballots", expectedPicks == newChoices,
+                expectedPicks + " selections, " + newChoices + " choices in ledger");
+        ok &= check("no lost votes in candidates.votes", lost == 0, lost + " vote(s) missing");
+        ok &= check("no extra votes in candidates.votes", extra == 0, extra + " vote(s) too many");
+        if (before.lockWaits >= 0 && after.lockWaits >= 0) {
+            System.out.println("Row lock waits: " + (after.lockWaits - before.lockWaits) + ", "
+                    + (after.lockWaitMs - before.lockWaitMs) + " ms waiting");
+        } else {
+            System.out.println("Row lock waits: n/a (not MySQL)");
+        }
+        System.out.println(ok ? "All invariants hold." : "INVARIANTS VIOLATED (was anyone else voting during the run?)");
+    }
+
+    private static long totalVotes(DbState s) {
+        long total = 0;
+        for (long v : s.votes.values()) total += v;
+        return total;
+    }
+
+    private static boolean check(String what, boolean ok, String detail) {
+        System.out.printf("  %-42s %s%n", what, ok ? "ok" : "FAILED (" + detail + ")");
+        return ok;
+    }
+
+    // ---------------- Seeding ----------------
+    // Create missing load voters and reset existing ones to verified / not voted.
+    private static void seedVoters(String prefix, String password, int voters) throws Exception {
+        String insert = "INSERT IGNORE INTO voters(name, password, dob, has_voted, verified) VALUES(?, ?, ?, 0, 1)";
+        String reset = "UPDATE voters SET has_voted = 0, verified = 1, password = ? WHERE name LIKE ?";
+        Date dob = Date.valueOf(LocalDate.now().minusYears(30));
+        try (Connection con = DBUtil.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(insert)) {
+                for (int i = 1; i <= voters; i++) {
+                    ps.setString(1, prefix + i);
+                    ps.setString(2, password);
+                    ps.setDate(3, dob);
+                    ps.addBatch();
+                    if (i % 1000 == 0) ps.executeBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = con.prepareStatement(reset)) {
+                ps.setString(1, password);
+                ps.setString(2, prefix + "%");
+                ps.executeUpdate();
+            }
+            con.commit();
+        }
+        System.out.println("Seeded " + voters + " load voters (" + prefix + "1.." + prefix + voters + ").");
+    }
+
+    // Make sure "Load Position 1..N" exist with at least `candidates` candidates each.
+    private static void seedBallot(int positions, int candidates) throws Exception {
+        Admin admin = new Admin();
+        List<String> existing = admin.getAllPositions();
+        for (int p = 1; p <= positions; p++) {
+            String position = "Load Position " + p;
+            if (!existing.contains(position)) admin.addPosition(position);
+            for (int c = admin.getCandidatesByPosition(position).size() + 1; c <= candidates; c++) {
+                admin.addCandidate("Load Candidate " + p + "-" + c, "L" + c, 40, position, null, "Load test candidate");
+            }
+        }
+        System.out.println("Ballot has " + positions + " load position(s) with " + candidates + " candidate(s) each.");
+    }
+}
@@ -3,7 +3,9 @@ import java.time.LocalDate;
 import java.time.Period;
 import java.util.ArrayList;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 
 // ---------------- User superclass ----------------
 class User {
@@ -29,7 +31,7 @@ class Candidate {
     public String symbol;
     public int age;
     public String position;
-    public byte[] photo;  // store actual image as bytes
+    public byte[] photo;  // raw image bytes; null for metadata queries (see Admin.getCandidatePhoto)
     public String bio;
     public int votes;
 
@@ -45,6 +47,32 @@ class Candidate {
     }
 }
 
+// ---------------- Voter roll page index ----------------
+// First voter id of every page for one search, plus the number of matching voters.
+class VoterPageIndex {
+    static final VoterPageIndex EMPTY = new VoterPageIndex(new int[0], 0, 1);
+
+    final int[] pageStarts;
+    final int total;
+    final int pageSize;
+
+    VoterPageIndex(int[] pageStarts, int total, int pageSize) {
+        this.pageStarts = pageStarts;
+        this.total = total;
+        this.pageSize = pageSize;
+    }
+}
+
+// ---------------- Vote outcome ----------------
+enum VoteResult {
+    ACCEPTED,
+    ALREADY_VOTED,
+    NOT_VERIFIED,
+    VOTING_CLOSED,
+    INVALID_SELECTION,
+    FAILED
+}
+
 // ---------------- Voter class ----------------
 class Voter extends User {
     private boolean hasVoted;
@@ -58,27 +86,31 @@ class Voter extends User {
         this.dob = dob;
     }
 
-    // Login: requires verified account
+    // Login: requires verified account.
+    // Single-row lookup through the unique index on voters.name, so cost does not grow with the roll.
     public static Voter login(String name, String password) {
-        String sql = "SELECT * FROM voters WHERE name=? AND password=?";
-        try (Connection con = DBUtil.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+        try (Metrics.Op op = Metrics.op("voter.login");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.VOTER_LOGIN.prepare(con)) {
             ps.setString(1, name);
             ps.setString(2, password);
             try (ResultSet rs = ps.executeQuery()) {
+                op.ok();
                 if (rs.next()) {
+                    op.rows(1);
                     boolean verified = rs.getBoolean("verified");
                     if (!verified) {
                         System.out.println("Account not verified by admin yet.");
                         return null;
                     }
+                    Date dob = rs.getDate("dob");
                     return new Voter(
                             rs.getInt("id"),
                             rs.getString("name"),
                             rs.getString("password"),
                             rs.getBoolean("has_voted"),
                             verified,
-                            rs.getDate("dob").toLocalDate()
+                            dob != null ? dob.toLocalDate() : null
                     );
                 }
             }
@@ -86,21 +118,28 @@ class Voter extends User {
         return null;
     }
 
+    static final int MIN_AGE = 18;
+
+    // Old enough to vote on the given day; shared by register and VoterImport.
+    static boolean isEligible(LocalDate dob, LocalDate today) {
+        return dob != null && Period.between(dob, today).getYears() >= MIN_AGE;
+    }
+
     // Register with DOB; only allow if age >= 18
     public static boolean register(String name, String password, LocalDate dob) {
-        int age = Period.between(dob, LocalDate.now()).getYears();
-        if (age < 18) {
-            System.out.println("You must be at least 18 to register. Age: " + age);
+        if (!isEligible(dob, LocalDate.now())) {
+            System.out.println("You must be at least " + MIN_AGE + " to register. Age: "
+                    + (dob != null ? Period.between(dob, LocalDate.now()).getYears() : "unknown"));
             return false;
         }
 
-        String sql = "INSERT INTO voters(name, password, dob, has_voted, verified) VALUES(?, ?, ?, 0, 0)";
-        try (Connection con = DBUtil.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+        try (Metrics.Op op = Metrics.op("voter.register");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.VOTER_REGISTER.prepare(con)) {
             ps.setString(1, name);
             ps.setString(2, password);
             ps.setDate(3, Date.valueOf(dob));
-            ps.executeUpdate();
+            op.rows(ps.executeUpdate()).ok();
             System.out.println("Registration successful. Awaiting admin verification.");
             return true;
         } catch (SQLIntegrityConstraintViolationException dup) {
@@ -111,52 +150,139 @@ class Voter extends User {
 
     // Cast vote (only if verified and voting active)
     public void vote(int candidateId) {
-        if (!this.verified) {
-            System.out.println("Your account is not verified by admin.");
-            return;
-        }
-        if (this.hasVoted) {
-            System.out.println("You have already voted!");
-            return;
+        castBallot(candidateId);
+    }
+
+    // Cast a ballot given as candidate ids (at most one per position): packed against the
+    // current ballot and cast as a record.
+    public VoteResult castBallot(int... candidateIds) {
+        VoteResult closed = precheck();
+        if (closed != null) return closed;
+        if (candidateIds == null || candidateIds.length == 0) return VoteResult.INVALID_SELECTION;
+        BallotRecord record;
+        try {
+            record = Ballot.current().encode(candidateIds);
+        } catch (Exception e) { e.printStackTrace(); return VoteResult.FAILED; }
+        if (record == null) {
+            System.out.println("Ballot selection does not match the current ballot.");
+            return VoteResult.INVALID_SELECTION;
         }
+        return castBallot(record);
+    }
 
-        String checkActive = "SELECT is_active FROM voting_status WHERE id=1";
-        String updCandidate = "UPDATE candidates SET votes = votes + 1 WHERE id = ?";
-        String updVoter = "UPDATE voters SET has_voted = 1 WHERE id = ?";
+    // Cast a packed ballot in a single transaction. The voter row is claimed first with a
+    // conditional UPDATE (has_voted=0, verified, voting active), so a concurrent second submit
+    // matches no row and is rejected without extra reads. The record is stored as one ledger
+    // row; the candidate increments go out as one JDBC batch, in id order so that concurrent
+    // ballots always take candidate row locks in the same order. In striped tally mode the
+    // increments are skipped here and counted by VoteTally instead.
+    public VoteResult castBallot(BallotRecord record) {
+        VoteResult closed = precheck();
+        if (closed != null) return closed;
+        if (record == null || record.isEmpty()) return VoteResult.INVALID_SELECTION;
 
-        try (Connection con = DBUtil.getConnection();
-             PreparedStatement psCheck = con.prepareStatement(checkActive);
-             ResultSet rs = psCheck.executeQuery()) {
+        int[] ids;
+        try {
+            ids = Ballot.current().decode(record);
+        } catch (Exception e) { e.printStackTrace(); return VoteResult.FAILED; }
+        if (ids == null) {
+            System.out.println("Ballot selection does not match the current ballot.");
+            return VoteResult.INVALID_SELECTION;
+        }
+        java.util.Arrays.sort(ids);
 
-            if (rs.next() && !rs.getBoolean("is_active")) {
-                System.out.println("Voting is not active now!");
-                return;
-            }
+        boolean striped = VoteTally.isStriped();
+        if (striped) VoteTally.ensureStarted();
 
+        try (Metrics.Op op = Metrics.op("voter.castBallot");
+             Connection con = DBUtil.getConnection()) {
             con.setAutoCommit(false);
-            try (PreparedStatement ps1 = con.prepareStatement(updCandidate);
-                 PreparedStatement ps2 = con.prepareStatement(updVoter)) {
+            try (PreparedStatement ps1 = Sql.VOTER_CLAIM.prepare(con);
+                 PreparedStatement psBallot = Sql.BALLOT_INSERT.prepare(con);
+                 PreparedStatement ps2 = Sql.CANDIDATE_ADD_VOTE.prepare(con)) {
 
-                ps1.setInt(1, candidateId);
-                ps1.executeUpdate();
+                ps1.setInt(1, this.id);
+                if (ps1.executeUpdate() == 0) {
+                    con.rollback();
+                    return op.ok(rejectionReason(con));
+                }
 
-                ps2.setInt(1, this.id);
-                ps2.executeUpdate();
+                // the ballot itself (no voter reference, so it stays secret)
+                psBallot.setBytes(1, record.toBytes());
+                psBallot.executeUpdate();
+
+                // striped mode leaves candidates.votes to the VoteTally flusher
+                if (!striped) {
+                    for (int cid : ids) {
+                        ps2.setInt(1, cid);
+                        ps2.addBatch();
+                    }
+                    for (int count : ps2.executeBatch()) {
+                        // 0 rows = candidate deleted meanwhile (SUCCESS_NO_INFO is fine)
+                        if (count == 0) {
+                            con.rollback();
+                            System.out.println("Ballot references an unknown candidate.");
+                            return op.ok(VoteResult.INVALID_SELECTION);
+                        }
+                    }
+                }
 
                 con.commit();
+                op.rows(ids.length).ok();
+                if (striped) VoteTally.record(ids);
+                ResultsAggregator.record(ids);
                 this.hasVoted = true;
                 System.out.println("Vote cast successfully!");
+                return VoteResult.ACCEPTED;
             } catch (Exception e) {
                 con.rollback();
                 throw e;
             } finally {
                 con.setAutoCommit(true);
             }
-
         } catch (Exception e) { e.printStackTrace(); }
+        return VoteResult.FAILED;
+    }
+
+    // What this session already knows rules the vote out; null if it may go ahead.
+    private VoteResult precheck() {
+        if (!this.verified) {
+            System.out.println("Your account is not verified by admin.");
+            return VoteResult.NOT_VERIFIED;
+        }
+        if (this.hasVoted) {
+            System.out.println("You have already voted!");
+            return VoteResult.ALREADY_VOTED;
+        }
+        return null;
+    }
+
+    // Only reached when the conditional claim matched nothing: find out why, for the message.
+    private VoteResult rejectionReason(Connection con) throws SQLException {
+        try (PreparedStatement ps = Sql.VOTE_REJECTION.prepare(con)) {
+            ps.setInt(1, this.id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return VoteResult.FAILED;
+                if (rs.getBoolean("has_voted")) {
+                    this.hasVoted = true;
+                    System.out.println("You have already voted!");
+                    return VoteResult.ALREADY_VOTED;
+                }
+                if (!rs.getBoolean("verified")) {
+                    System.out.println("Your account is not verified by admin.");
+                    return VoteResult.NOT_VERIFIED;
+                }
+                System.out.println("Voting is not active now!");
+                // the status watcher may be between polls
+                VotingStatus.publish(false);
+                return VoteResult.VOTING_CLOSED;
+            }
+        }
     }
 
     public boolean isHasVoted() { return hasVoted; }
+    // for a ballot cast through the vote server
+    void markVoted() { this.hasVoted = true; }
     public boolean isVerified() { return verified; }
     public LocalDate getDob() { return dob; }
 }
@@ -169,191 +295,557 @@ class Admin extends User {
     }
 
     public boolean login(String username, String pwd) {
-        String sql = "SELECT * FROM admin WHERE username=? AND password=?";
-        try (Connection con = DBUtil.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+        try (Metrics.Op op = Metrics.op("admin.login");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.ADMIN_LOGIN.prepare(con)) {
             ps.setString(1, username);
             ps.setString(2, pwd);
             try (ResultSet rs = ps.executeQuery()) {
-                return rs.next();
+                return op.ok(rs.next());
             }
         } catch (Exception e) { e.printStackTrace(); return false; }
     }
 
     public void startVoting() {
-        String sql = "UPDATE voting_status SET is_active=1 WHERE id=1";
-        try (Connection con = DBUtil.getConnection();
-             Statement st = con.createStatement()) {
-            st.executeUpdate(sql);
+        try (Metrics.Op op = Metrics.op("admin.startVoting");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.VOTING_START.prepare(con)) {
+            op.rows(ps.executeUpdate()).ok();
+            VotingStatus.publish(true);
             System.out.println("Voting started!");
         } catch (Exception e) { e.printStackTrace(); }
     }
 
     public void stopVoting() {
-        String sql = "UPDATE voting_status SET is_active=0 WHERE id=1";
-        try (Connection con = DBUtil.getConnection();
-             Statement st = con.createStatement()) {
-            st.executeUpdate(sql);
+        try (Metrics.Op op = Metrics.op("admin.stopVoting");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.VOTING_STOP.prepare(con)) {
+            op.rows(ps.executeUpdate()).ok();
+            VotingStatus.publish(false);
             System.out.println("Voting stopped!");
         } catch (Exception e) { e.printStackTrace(); }
     }
 
     public boolean isVotingActive() {
-        String sql = "SELECT is_active FROM voting_status WHERE id=1";
-        try (Connection con = DBUtil.getConnection();
-             Statement st = con.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
+        try (Metrics.Op op = Metrics.op("admin.isVotingActive");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.VOTING_ACTIVE.prepare(con);
+             ResultSet rs = ps.executeQuery()) {
+            op.ok();
             if (rs.next()) return rs.getBoolean("is_active");
         } catch (Exception e) { e.printStackTrace(); }
         return false;
     }
 
     public void resetVotes() {
-        try (Connection con = DBUtil.getConnection();
+        try (Metrics.Op op = Metrics.op("admin.resetVotes");
+             Connection con = DBUtil.getConnection();
              Statement st = con.createStatement()) {
+            // the ledger is append-only (triggers reject UPDATE/DELETE); a full reset truncates it
+            st.executeUpdate("TRUNCATE TABLE ballots");
+            VoteTally.reset();
+
             st.executeUpdate("DELETE FROM candidates");
             st.executeUpdate("ALTER TABLE candidates AUTO_INCREMENT = 1");
+            // no candidate and no ballot refers to a slot any more
+            st.executeUpdate(Sql.POSITIONS_RESET_SLOTS.text);
 
             st.executeUpdate("DELETE FROM voters");
             st.executeUpdate("ALTER TABLE voters AUTO_INCREMENT = 1");
 
-            st.executeUpdate("UPDATE voting_status SET is_active = 0");
+            st.executeUpdate("UPDATE voting_status SET is_active = 0, version = version + 1");
+            op.ok();
+            VotingStatus.publish(false);
+            PhotoCache.shared().clear();
+            Ballot.invalidate();
 
             System.out.println("All votes, candidates and voters reset. Voting inactive.");
         } catch (Exception e) { e.printStackTrace(); }
     }
 
+    // ---------------- Position operations ----------------
+    public ArrayList<String> getAllPositions() {
+        ArrayList<String> positions = new ArrayList<>();
+        try (Metrics.Op op = Metrics.op("admin.getAllPositions");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.POSITIONS_ALL.prepare(con);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) positions.add(rs.getString("name"));
+            op.rows(positions.size()).ok();
+        } catch (Exception e) { e.printStackTrace(); }
+        return positions;
+    }
+
+    // Adds the position unless it already exists. Position ids are offsets into every ballot
+    // record, so they may not exceed BallotRecord.MAX_POSITIONS: the name is looked up first
+    // (a duplicate INSERT IGNORE still uses up an auto-increment id), and a position whose id
+    // would not fit a record is refused.
+    public void addPosition(String name) throws SQLException, ClassNotFoundException {
+        try (Metrics.Op op = Metrics.op("admin.addPosition");
+             Connection con = DBUtil.getConnection()) {
+            if (findPositionId(con, name) != 0) {
+                op.ok();
+                return;
+            }
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = Sql.POSITION_ADD.prepare(con)) {
+                ps.setString(1, name);
+                op.rows(ps.executeUpdate());
+                int id = findPositionId(con, name);
+                if (id > BallotRecord.MAX_POSITIONS) {
+                    throw new SQLException("Position ids are used up (" + id + " > " + BallotRecord.MAX_POSITIONS
+                            + "); ballots cannot hold more positions");
+                }
+                con.commit();
+                op.ok();
+            } catch (Exception e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        }
+        Ballot.invalidate();
+    }
+
+    // Throws SQLException if candidates still reference the position (the foreign key
+    // rejects the delete, so there is no separate count to race with).
+    public void deletePosition(String name) throws SQLException, ClassNotFoundException {
+        try (Metrics.Op op = Metrics.op("admin.deletePosition");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement pd = Sql.POSITION_DELETE.prepare(con)) {
+            pd.setString(1, name);
+            op.rows(pd.executeUpdate()).ok();
+        } catch (SQLIntegrityConstraintViolationException e) {
+            throw new SQLException("Position has candidates and cannot be deleted", e);
+        }
+        Ballot.invalidate();
+    }
+
+    // Next slot in the position, taken inside the caller's transaction: the UPDATE locks the
+    // position row, so concurrent adds to the same position get distinct slots. Slots are not
+    // reused after a candidate is deleted, because stored ballots still refer to them.
+    private static int takeSlot(Connection con, int positionId) throws SQLException {
+        try (PreparedStatement up = Sql.POSITION_TAKE_SLOT.prepare(con);
+             PreparedStatement get = Sql.POSITION_LAST_SLOT.prepare(con)) {
+            up.setInt(1, positionId);
+            up.executeUpdate();
+            get.setInt(1, positionId);
+            try (ResultSet rs = get.executeQuery()) {
+                rs.next();
+                int slot = rs.getInt(1);
+                if (slot > BallotRecord.MAX_SLOT) {
+                    throw new SQLException("A position cannot have more than " + BallotRecord.MAX_SLOT + " candidates");
+                }
+                return slot;
+            }
+        }
+    }
+
+    // 0 for a null name; SQLException if the position does not exist
+    private static int positionId(Connection con, String position) throws SQLException {
+        if (position == null) return 0;
+        int id = findPositionId(con, position);
+        if (id == 0) throw new SQLException("Unknown position: " + position);
+        return id;
+    }
+
+    // 0 if there is no such position
+    private static int findPositionId(Connection con, String position) throws SQLException {
+        try (PreparedStatement ps = Sql.POSITION_ID.prepare(con)) {
+            ps.setString(1, position);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private static void setPositionAndSlot(PreparedStatement ps, int i, int positionId, int slot) throws SQLException {
+        if (positionId == 0) {
+            ps.setNull(i, Types.INTEGER);
+            ps.setNull(i + 1, Types.SMALLINT);
+        } else {
+            ps.setInt(i, positionId);
+            ps.setInt(i + 1, slot);
+        }
+    }
+
     // ---------------- Candidate operations ----------------
-    public void addCandidate(String name, String symbol, int age, String position, File photoFile, String bio) {
-        String sql = "INSERT INTO candidates(name, symbol, age, position, photo, bio, votes) VALUES(?, ?, ?, ?, ?, ?, 0)";
-        try (Connection con = DBUtil.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql);
-             FileInputStream fis = new FileInputStream(photoFile)) {
+    // The photo is decoded and scaled once here (PhotoProcessor); photoFile may be null.
+    // Refusals (unknown position, full position, not an image) are thrown with a message the
+    // admin console shows; nothing is written then.
+    public void addCandidate(String name, String symbol, int age, String position, File photoFile, String bio)
+            throws SQLException, ClassNotFoundException, IOException {
+        try (Metrics.Op op = Metrics.op("admin.addCandidate")) {
+            PhotoProcessor.Processed photo = photoFile != null ? PhotoProcessor.process(photoFile) : null;
+            try (Connection con = DBUtil.getConnection()) {
+                con.setAutoCommit(false);
+                try (PreparedStatement ps = Sql.CANDIDATE_ADD.prepare(con)) {
+                    int positionId = positionId(con, position);
+                    int slot = positionId != 0 ? takeSlot(con, positionId) : 0;
+                    ps.setString(1, name);
+                    ps.setString(2, symbol);
+                    ps.setInt(3, age);
+                    setPositionAndSlot(ps, 4, positionId, slot);
+                    ps.setBytes(8, photo != null ? photo.thumbList : null);
+                    ps.setBytes(9, photo != null ? photo.thumbDetail : null);
+                    ps.setString(10, bio);
+                    InputStream upload = bindPhoto(ps, 6, photo);
+                    try {
+                        op.rows(ps.executeUpdate());
+                    } finally {
+                        if (upload != null) upload.close();
+                    }
+                    con.commit();
+                    op.ok();
+                } catch (Exception e) {
+                    con.rollback();
+                    throw e;
+                } finally {
+                    con.setAutoCommit(true);
+                }
+                Ballot.invalidate();
+                System.out.println(photo != null ? "Candidate added with photo." : "Candidate added.");
+            }
+        }
+    }
 
-            ps.setString(1, name);
-            ps.setString(2, symbol);
-            ps.setInt(3, age);
-            ps.setString(4, position);
-            ps.setBinaryStream(5, fis, (int)photoFile.length());
-            ps.setString(6, bio);
-            ps.executeUpdate();
-            System.out.println("Candidate added with photo.");
-        } catch (Exception e) { e.printStackTrace(); }
+    // Photo columns are only touched when a new photo is given; otherwise the stored one is kept.
+    // Refusals are thrown as for addCandidate.
+    public void editCandidate(int id, String newName, String newSymbol, Integer newAge, String newPosition, File newPhotoFile, String newBio)
+            throws SQLException, ClassNotFoundException, IOException {
+        Sql sql = newPhotoFile != null ? Sql.CANDIDATE_EDIT_WITH_PHOTO : Sql.CANDIDATE_EDIT;
+        try (Metrics.Op op = Metrics.op("admin.editCandidate")) {
+            PhotoProcessor.Processed photo = newPhotoFile != null ? PhotoProcessor.process(newPhotoFile) : null;
+            try (Connection con = DBUtil.getConnection()) {
+                con.setAutoCommit(false);
+                try (PreparedStatement ps = sql.prepare(con)) {
+                    // a candidate keeps its slot unless it moves to another position
+                    int positionId = positionId(con, newPosition);
+                    int slot = 0;
+                    try (PreparedStatement cur = Sql.CANDIDATE_SLOT.prepare(con)) {
+                        cur.setInt(1, id);
+                        try (ResultSet rs = cur.executeQuery()) {
+                            if (rs.next() && rs.getInt("position_id") == positionId) slot = rs.getInt("slot");
+                        }
+                    }
+                    if (positionId != 0 && slot == 0) slot = takeSlot(con, positionId);
+
+                    int i = 1;
+                    ps.setString(i++, newName);
+                    ps.setString(i++, newSymbol);
+                    if (newAge != null) ps.setInt(i++, newAge); else ps.setNull(i++, Types.INTEGER);
+                    setPositionAndSlot(ps, i, positionId, slot);
+                    i += 2;
+                    ps.setString(i++, newBio);
+                    InputStream upload = null;
+                    if (photo != null) {
+                        upload = bindPhoto(ps, i, photo);
+                        i += 2;
+                        ps.setBytes(i++, photo.thumbList);
+                        ps.setBytes(i++, photo.thumbDetail);
+                    }
+                    ps.setInt(i, id);
+                    try {
+                        op.rows(ps.executeUpdate());
+                    } finally {
+                        if (upload != null) upload.close();
+                    }
+                    con.commit();
+                    op.ok();
+                } catch (Exception e) {
+                    con.rollback();
+                    throw e;
+                } finally {
+                    con.setAutoCommit(true);
+                }
+                if (photo != null) PhotoCache.shared().invalidate(id);
+                Ballot.invalidate();
+                System.out.println("Candidate updated.");
+            }
+        }
     }
 
-    public void editCandidate(int id, String newName, String newSymbol, Integer newAge, String newPosition, File newPhotoFile, String newBio) {
-        String sql = "UPDATE candidates SET name=?, symbol=?, age=?, position=?, photo=?, bio=? WHERE id=?";
-        try (Connection con = DBUtil.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql);
-             FileInputStream fis = newPhotoFile != null ? new FileInputStream(newPhotoFile) : null) {
-
-            ps.setString(1, newName);
-            ps.setString(2, newSymbol);
-            if (newAge != null) ps.setInt(3, newAge); else ps.setNull(3, Types.INTEGER);
-            ps.setString(4, newPosition);
-            if (newPhotoFile != null) ps.setBinaryStream(5, fis, (int)newPhotoFile.length());
-            else ps.setNull(5, Types.BLOB);
-            ps.setString(6, newBio);
-            ps.setInt(7, id);
-            ps.executeUpdate();
-            System.out.println("Candidate updated.");
-        } catch (Exception e) { e.printStackTrace(); }
+    // Binds the photo and photo_hash columns at i and i + 1. With a MediaStore the file goes
+    // there and only its hash is stored; otherwise an unchanged upload is streamed into the
+    // BLOB. Returns the upload stream to close after executing, or null.
+    private static InputStream bindPhoto(PreparedStatement ps, int i, PhotoProcessor.Processed photo) throws IOException, SQLException {
+        MediaStore store = MediaStore.shared();
+        if (photo == null) {
+            ps.setNull(i, Types.BLOB);
+            ps.setNull(i + 1, Types.CHAR);
+            return null;
+        }
+        if (store != null) {
+            ps.setNull(i, Types.BLOB);
+            ps.setString(i + 1, photo.source != null ? store.put(photo.source) : store.put(photo.original));
+            return null;
+        }
+        ps.setNull(i + 1, Types.CHAR);
+        if (photo.source == null) {
+            ps.setBytes(i, photo.original);
+            return null;
+        }
+        InputStream in = Files.newInputStream(photo.source.toPath());
+        ps.setBinaryStream(i, in, photo.source.length());
+        return in;
     }
 
     public void deleteCandidate(int id) {
-        String sql = "DELETE FROM candidates WHERE id=?";
-        try (Connection con = DBUtil.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+        try (Metrics.Op op = Metrics.op("admin.deleteCandidate");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.CANDIDATE_DELETE.prepare(con)) {
             ps.setInt(1, id);
-            ps.executeUpdate();
+            op.rows(ps.executeUpdate()).ok();
+            PhotoCache.shared().invalidate(id);
+            Ballot.invalidate();
             System.out.println("Candidate deleted.");
         } catch (Exception e) { e.printStackTrace(); }
     }
 
+    // Candidate metadata only: photo bytes are not selected (Candidate.photo stays null).
+    // Use getCandidateThumbnail / getCandidatePhoto to load a picture on demand.
+
+    // Vote totals include counts still pending in VoteTally when striped mode is on.
     public ArrayList<Candidate> getAllCandidates() {
-        ArrayList<Candidate> list = new ArrayList<>();
-        String sql = "SELECT * FROM candidates";
-        try (Connection con = DBUtil.getConnection();
-             Statement st = con.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
-                list.add(new Candidate(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("symbol"),
-                        rs.getInt("age"),
-                        rs.getString("position"),
-                        rs.getBytes("photo"),
-                        rs.getString("bio"),
-                        rs.getInt("votes")
-                ));
+        return VoteTally.merged(() -> {
+            ArrayList<Candidate> list = new ArrayList<>();
+            try (Metrics.Op op = Metrics.op("admin.getAllCandidates");
+                 Connection con = DBUtil.getConnection();
+                 PreparedStatement ps = Sql.CANDIDATES_ALL.prepare(con);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(readCandidate(rs));
+                op.rows(list.size()).ok();
+            } catch (Exception e) { e.printStackTrace(); }
+            return list;
+        });
+    }
+
+    public ArrayList<Candidate> getCandidatesByPosition(String position) {
+        return VoteTally.merged(() -> {
+            ArrayList<Candidate> list = new ArrayList<>();
+            try (Metrics.Op op = Metrics.op("admin.getCandidatesByPosition");
+                 Connection con = DBUtil.getConnection();
+                 PreparedStatement ps = Sql.CANDIDATES_BY_POSITION.prepare(con)) {
+                ps.setString(1, position);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) list.add(readCandidate(rs));
+                }
+                op.rows(list.size()).ok();
+            } catch (Exception e) { e.printStackTrace(); }
+            return list;
+        });
+    }
+
+    private static Candidate readCandidate(ResultSet rs) throws SQLException {
+        return new Candidate(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getString("symbol"),
+                rs.getInt("age"),
+                rs.getString("position"),
+                null,
+                rs.getString("bio"),
+                rs.getInt("votes")
+        );
+    }
+
+    // Raw photo bytes for one candidate, or null if none. Photos kept in the MediaStore are
+    // read from there (photo_hash); older rows still carry the bytes in the photo column.
+    public byte[] getCandidatePhoto(int id) {
+        try (Metrics.Op op = Metrics.op("admin.getCandidatePhoto");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.CANDIDATE_PHOTO.prepare(con)) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return op.ok(null);
+                String hash = rs.getString("photo_hash");
+                if (hash == null) return op.ok(rs.getBytes("photo"));
+                MediaStore store = MediaStore.shared();
+                if (store != null) return op.ok(store.read(hash));
+                System.out.println("Candidate " + id + ": photo is in the media store, but -Dvoting.media.dir is not set.");
             }
         } catch (Exception e) { e.printStackTrace(); }
-        return list;
+        return null;
     }
 
-    public ArrayList<Candidate> getCandidatesByPosition(String position) {
-        ArrayList<Candidate> list = new ArrayList<>();
-        String sql = "SELECT * FROM candidates WHERE position = ?";
-        try (Connection con = DBUtil.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setString(1, position);
+    // Pre-scaled thumbnail bytes for the sizes PhotoProcessor stores (140, 180), falling back to
+    // the full photo for other sizes and for rows stored before thumbnails existed.
+    public byte[] getCandidateThumbnailBytes(int id, int size) {
+        Sql sql = size == PhotoProcessor.LIST_SIZE ? Sql.CANDIDATE_THUMB_140
+                : size == PhotoProcessor.DETAIL_SIZE ? Sql.CANDIDATE_THUMB_180 : null;
+        if (sql == null) return getCandidatePhoto(id);
+        byte[] thumb = null;
+        try (Metrics.Op op = Metrics.op("admin.getCandidateThumbnail");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = sql.prepare(con)) {
+            ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    list.add(new Candidate(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("symbol"),
-                            rs.getInt("age"),
-                            rs.getString("position"),
-                            rs.getBytes("photo"),
-                            rs.getString("bio"),
-                            rs.getInt("votes")
-                    ));
-                }
+                if (rs.next()) thumb = rs.getBytes(1);
             }
+            op.ok();
         } catch (Exception e) { e.printStackTrace(); }
-        return list;
+        return thumb != null ? thumb : getCandidatePhoto(id);
+    }
+
+    // Decoded photo scaled to size x size, served from the shared PhotoCache; null if none.
+    public java.awt.image.BufferedImage getCandidateThumbnail(int id, int size) {
+        return PhotoCache.shared().get(id, size, cid -> getCandidateThumbnailBytes(cid, size));
+    }
+
+    // Recount all votes from the ballots ledger and compare with candidates.votes.
+    public TallyEngine.Report verifyTally() {
+        try (Metrics.Op op = Metrics.op("admin.verifyTally")) { return op.ok(TallyEngine.recount()); }
+        catch (Exception e) { e.printStackTrace(); return null; }
     }
 
     // ---------------- Voter verification (admin-side) ----------------
-    public ArrayList<Voter> getUnverifiedVoters() {
-        ArrayList<Voter> list = new ArrayList<>();
-        String sql = "SELECT * FROM voters WHERE verified = 0";
-        try (Connection con = DBUtil.getConnection();
-             Statement st = con.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
-                list.add(new Voter(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("password"),
-                        rs.getBoolean("has_voted"),
-                        rs.getBoolean("verified"),
-                        rs.getDate("dob").toLocalDate()
-                ));
+    // Pending (unverified) voters in id order, read in keyset batches as the caller advances,
+    // so neither the whole queue nor a connection is held while an admin reviews it.
+    public java.util.Iterator<Voter> pendingVoters() {
+        return new java.util.Iterator<Voter>() {
+            private final java.util.ArrayDeque<Voter> buffer = new java.util.ArrayDeque<>();
+            private int lastId = 0;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (buffer.isEmpty() && !exhausted) fill();
+                return !buffer.isEmpty();
             }
-        } catch (Exception e) { e.printStackTrace(); }
-        return list;
+
+            @Override
+            public Voter next() {
+                if (!hasNext()) throw new java.util.NoSuchElementException();
+                return buffer.poll();
+            }
+
+            private void fill() {
+                try (Metrics.Op op = Metrics.op("admin.pendingVoters");
+                     Connection con = DBUtil.getConnection();
+                     PreparedStatement ps = Sql.VOTERS_PENDING.prepare(con)) {
+                    ps.setInt(1, lastId);
+                    ps.setInt(2, VERIFY_CHUNK);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            Date dob = rs.getDate("dob");
+                            Voter v = new Voter(rs.getInt("id"), rs.getString("name"), null, rs.getBoolean("has_voted"),
+                                    rs.getBoolean("verified"), dob != null ? dob.toLocalDate() : null);
+                            buffer.add(v);
+                            lastId = v.getId();
+                        }
+                    }
+                    op.rows(buffer.size()).ok();
+                } catch (SQLException | ClassNotFoundException e) {
+                    throw new IllegalStateException("Could not read pending voters", e);
+                }
+                exhausted = buffer.size() < VERIFY_CHUNK;
+            }
+        };
+    }
+
+    // ---------------- Bulk verification ----------------
+    // Set-based UPDATEs instead of one call per voter. Work is split into chunks of
+    // -Dvoting.verify.chunk ids (default 1000) that commit on their own, so row locks stay
+    // short and a large run never holds one huge transaction open during registration.
+    private static final int VERIFY_CHUNK = Math.max(1, Integer.getInteger("voting.verify.chunk", 1000));
+
+    // Set verified for the given ids; returns the number of rows changed.
+    public int setVotersVerified(int[] voterIds, boolean verified) throws SQLException, ClassNotFoundException {
+        int changed = 0;
+        try (Metrics.Op op = Metrics.op("admin.setVotersVerified");
+             Connection con = DBUtil.getConnection()) {
+            for (int from = 0; from < voterIds.length; from += VERIFY_CHUNK) {
+                int n = Math.min(VERIFY_CHUNK, voterIds.length - from);
+                StringBuilder sql = new StringBuilder("UPDATE voters SET verified = ? WHERE verified <> ? AND id IN (");
+                for (int i = 0; i < n; i++) sql.append(i == 0 ? "?" : ",?");
+                sql.append(')');
+                try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
+                    ps.setBoolean(1, verified);
+                    ps.setBoolean(2, verified);
+                    for (int i = 0; i < n; i++) ps.setInt(i + 3, voterIds[from + i]);
+                    changed += ps.executeUpdate();
+                }
+            }
+            op.rows(changed).ok();
+        }
+        System.out.println(changed + " voter(s) verification set to " + verified);
+        return changed;
+    }
+
+    // Verify every pending voter with fromId <= id <= toId.
+    public int verifyVoterRange(int fromId, int toId) throws SQLException, ClassNotFoundException {
+        return verifyPending(fromId, toId, null, null);
+    }
+
+    // Verify every pending voter born on or before the cut-off (e.g. today minus 18 years).
+    public int verifyVotersBornBy(LocalDate cutoff) throws SQLException, ClassNotFoundException {
+        return verifyPending(null, null, null, cutoff);
+    }
+
+    // Verify all pending voters matching the filter; null arguments do not filter.
+    // namePrefix matches like the voter table search; bornBy is an inclusive DOB cut-off.
+    // The id range is walked in windows of VERIFY_CHUNK ids, one statement (commit) each.
+    public int verifyPending(Integer fromId, Integer toId, String namePrefix, LocalDate bornBy) throws SQLException, ClassNotFoundException {
+        StringBuilder cond = new StringBuilder("verified = 0");
+        if (namePrefix != null && !namePrefix.isEmpty()) cond.append(" AND name LIKE ?");
+        if (bornBy != null) cond.append(" AND dob <= ?");
+        int changed = 0;
+        try (Metrics.Op op = Metrics.op("admin.verifyPending");
+             Connection con = DBUtil.getConnection()) {
+            int lo, hi;
+            try (PreparedStatement ps = con.prepareStatement("SELECT MIN(id), MAX(id) FROM voters WHERE " + cond
+                    + " AND id BETWEEN ? AND ?")) {
+                int i = bindPendingFilter(ps, 1, namePrefix, bornBy);
+                ps.setInt(i++, fromId != null ? fromId : 0);
+                ps.setInt(i, toId != null ? toId : Integer.MAX_VALUE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    lo = rs.getInt(1);
+                    if (rs.wasNull()) return op.ok(0);
+                    hi = rs.getInt(2);
+                }
+            }
+            String sql = "UPDATE voters SET verified = 1 WHERE " + cond + " AND id >= ? AND id < ?";
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                for (long start = lo; start <= hi; start += VERIFY_CHUNK) {
+                    int i = bindPendingFilter(ps, 1, namePrefix, bornBy);
+                    ps.setInt(i++, (int) start);
+                    ps.setInt(i, (int) Math.min(start + VERIFY_CHUNK, (long) hi + 1));
+                    changed += ps.executeUpdate();
+                }
+            }
+            op.rows(changed).ok();
+        }
+        System.out.println(changed + " pending voter(s) verified.");
+        return changed;
+    }
+
+    private static int bindPendingFilter(PreparedStatement ps, int i, String namePrefix, LocalDate bornBy) throws SQLException {
+        if (namePrefix != null && !namePrefix.isEmpty()) {
+            ps.setString(i++, likePrefix(namePrefix));
+        }
+        if (bornBy != null) ps.setDate(i++, Date.valueOf(bornBy));
+        return i;
     }
 
     public void setVoterVerified(int voterId, boolean verified) {
-        String sql = "UPDATE voters SET verified = ? WHERE id = ?";
-        try (Connection con = DBUtil.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+        try (Metrics.Op op = Metrics.op("admin.setVoterVerified");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.VOTER_SET_VERIFIED.prepare(con)) {
             ps.setBoolean(1, verified);
             ps.setInt(2, voterId);
-            ps.executeUpdate();
+            op.rows(ps.executeUpdate()).ok();
             System.out.println("Voter " + voterId + " verification set to " + verified);
         } catch (Exception e) { e.printStackTrace(); }
     }
 
     public ArrayList<Voter> getAllVoters() {
         ArrayList<Voter> list = new ArrayList<>();
-        String sql = "SELECT * FROM voters";
-        try (Connection con = DBUtil.getConnection();
-             Statement st = con.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
+        try (Metrics.Op op = Metrics.op("admin.getAllVoters");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.VOTERS_ALL.prepare(con);
+             ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
                 list.add(new Voter(
                         rs.getInt("id"),
@@ -364,39 +856,186 @@ class Admin extends User {
                         rs.getDate("dob").toLocalDate()
                 ));
             }
+            op.rows(list.size()).ok();
         } catch (Exception e) { e.printStackTrace(); }
         return list;
     }
 
+    // ---------------- Voter roll paging (keyset) ----------------
+    // Pages are read with "WHERE id >= pageStart ORDER BY id LIMIT n", which seeks on the
+    // primary key instead of skipping rows like OFFSET does. getVoterPageIndex gives the first
+    // id of every page up front, so any page can be read directly (e.g. after a scroll jump).
+    // search matches a name prefix, or an exact id when it is a number; null/empty = all voters.
+    // Rows carry no password; use getVoter(id) when the full record is needed.
+    private static final String VOTER_ROW_COLUMNS = "id, name, has_voted, verified, dob";
+
+    public VoterPageIndex getVoterPageIndex(String search, int pageSize) throws SQLException, ClassNotFoundException {
+        String where = voterSearchClause(search);
+        String sql = "SELECT id, total FROM (SELECT id, ROW_NUMBER() OVER (ORDER BY id) AS rn, COUNT(*) OVER () AS total "
+                + "FROM voters" + where + ") t WHERE MOD(rn - 1, ?) = 0 ORDER BY id";
+        try (Metrics.Op op = Metrics.op("admin.getVoterPageIndex");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            int i = bindVoterSearch(ps, 1, search);
+            ps.setInt(i, pageSize);
+            int[] starts = new int[16];
+            int n = 0, total = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (n == starts.length) starts = java.util.Arrays.copyOf(starts, n * 2);
+                    starts[n++] = rs.getInt(1);
+                    total = rs.getInt(2);
+                }
+            }
+            op.rows(n).ok();
+            return new VoterPageIndex(java.util.Arrays.copyOf(starts, n), total, pageSize);
+        }
+    }
+
+    // Up to limit voters with id >= fromId, in id order.
+    public ArrayList<Voter> getVotersPage(int fromId, int limit, String search) throws SQLException, ClassNotFoundException {
+        String where = voterSearchClause(search);
+        String sql = "SELECT " + VOTER_ROW_COLUMNS + " FROM voters"
+                + (where.isEmpty() ? " WHERE" : where + " AND") + " id >= ? ORDER BY id LIMIT ?";
+        ArrayList<Voter> list = new ArrayList<>(limit);
+        try (Metrics.Op op = Metrics.op("admin.getVotersPage");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            int i = bindVoterSearch(ps, 1, search);
+            ps.setInt(i++, fromId);
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Date dob = rs.getDate("dob");
+                    list.add(new Voter(rs.getInt("id"), rs.getString("name"), null, rs.getBoolean("has_voted"),
+                            rs.getBoolean("verified"), dob != null ? dob.toLocalDate() : null));
+                }
+            }
+            op.rows(list.size()).ok();
+        }
+        return list;
+    }
+
+    // One voter including the password (for editing), or null.
+    public Voter getVoter(int id) throws SQLException, ClassNotFoundException {
+        try (Metrics.Op op = Metrics.op("admin.getVoter");
+             Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.VOTER_BY_ID.prepare(con)) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                op.ok();
+                if (!rs.next()) return null;
+                Date dob = rs.getDate("dob");
+                return new Voter(rs.getInt("id"), rs.getString("name"), rs.getString("password"),
+                        rs.getBoolean("has_voted"), rs.getBoolean("verified"), dob != null ? dob.toLocalDate() : null);
+            }
+        }
+    }
+
+    private static String voterSearchClause(String search) {
+        if (search == null || search.isEmpty()) return "";
+        return isVoterId(search) ? " WHERE (id = ? OR name LIKE ?)" : " WHERE name LIKE ?";
+    }
+
+    // Binds the search parameters; returns the next parameter index.
+    private static int bindVoterSearch(PreparedStatement ps, int i, String search) throws SQLException {
+        if (search == null || search.isEmpty()) return i;
+        if (isVoterId(search)) ps.setInt(i++, Integer.parseInt(search));
+        // prefix match, so the unique index on name can be used
+        ps.setString(i++, likePrefix(search));
+        return i;
+    }
+
+    private static String likePrefix(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    private static boolean isVoterId(String search) {
+        if (search.length() > 9) return false;
+        for (int i = 0; i < search.length(); i++) if (!Character.isDigit(search.charAt(i))) return false;
+        return true;
+    }
+
     // Edit voter details. Any nullable parameter left as null will not be updated.
     public void editVoter(int id, String newName, String newPassword, java.time.LocalDate newDob, Boolean hasVoted, Boolean verified) {
-        String sql = "UPDATE voters SET name = COALESCE(?, name), password = COALESCE(?, password), dob = COALESCE(?, dob), has_voted = COALESCE(?, has_voted), verified = COALESCE(?, verified) WHERE id = ?";
-        try (Connection con = DBUtil.getConnection(); PreparedStatement ps = con.prepareStatement(sql)) {
+        try (Metrics.Op op = Metrics.op("admin.editVoter");
+             Connection con = DBUtil.getConnection(); PreparedStatement ps = Sql.VOTER_EDIT.prepare(con)) {
             if (newName != null) ps.setString(1, newName); else ps.setNull(1, Types.VARCHAR);
             if (newPassword != null) ps.setString(2, newPassword); else ps.setNull(2, Types.VARCHAR);
             if (newDob != null) ps.setDate(3, Date.valueOf(newDob)); else ps.setNull(3, Types.DATE);
             if (hasVoted != null) ps.setBoolean(4, hasVoted); else ps.setNull(4, Types.BOOLEAN);
             if (verified != null) ps.setBoolean(5, verified); else ps.setNull(5, Types.BOOLEAN);
             ps.setInt(6, id);
-            ps.executeUpdate();
+            op.rows(ps.executeUpdate()).ok();
             System.out.println("Voter " + id + " updated.");
         } catch (Exception e) { e.printStackTrace(); }
     }
 
     public void deleteVoter(int id) {
-        String sql = "DELETE FROM voters WHERE id = ?";
-        try (Connection con = DBUtil.getConnection(); PreparedStatement ps = con.prepareStatement(sql)) {
+        try (Metrics.Op op = Metrics.op("admin.deleteVoter");
+             Connection con = DBUtil.getConnection(); PreparedStatement ps = Sql.VOTER_DELETE.prepare(con)) {
             ps.setInt(1, id);
-            ps.executeUpdate();
+            op.rows(ps.executeUpdate()).ok();
             System.out.println("Voter " + id + " deleted.");
         } catch (Exception e) { e.printStackTrace(); }
     }
 }
 
 // ---------------- DB Utility ----------------
+// Connections come from a shared ConnectionPool; closing them returns them to the pool.
+// rewriteBatchedStatements lets Connector/J send a JDBC batch in one round trip;
+// useServerPrepStmts prepares statements on the server once, and the pool keeps them open per
+// connection, so a hot statement then only sends its parameters (binary protocol).
+// Connection settings can be overridden with -Dvoting.db.url / .user / .password / .driver.
+// Creating the pool also brings the schema up to date (SchemaMigrator).
 class DBUtil {
+    private static volatile ConnectionPool pool;
+
+    // -Dvoting.db.stallMs=N delays every borrow by N ms, to rehearse a slow database
+    private static final long STALL_MS = Long.getLong("voting.db.stallMs", 0L);
+
+    // timed as "db.getConnection": time spent waiting for a pooled connection
     public static Connection getConnection() throws SQLException, ClassNotFoundException {
-        Class.forName("com.mysql.cj.jdbc.Driver");
-        return DriverManager.getConnection("jdbc:mysql://localhost:3306/votingdb2", "root", "password");
+        try (Metrics.Op op = Metrics.op("db.getConnection")) {
+            if (STALL_MS > 0) {
+                try { Thread.sleep(STALL_MS); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            }
+            return op.ok(getPool().borrow());
+        }
     }
-}
+
+    public static ConnectionPool getPool() throws ClassNotFoundException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DBUtil.class) {
+                p = pool;
+                if (p == null) {
+                    // load the driver once instead of on every query
+                    Class.forName(System.getProperty("voting.db.driver", "com.mysql.cj.jdbc.Driver"));
+                    // one statement cache per connection: the pool's, unless it is turned off
+                    // (voting.pool.stmtCacheSize=0), in which case Connector/J caches instead
+                    String defaultUrl = "jdbc:mysql://localhost:3306/votingdb2?rewriteBatchedStatements=true&useServerPrepStmts=true";
+                    if (ConnectionPool.statementCacheSize() == 0) {
+                        defaultUrl += "&cachePrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048";
+                    }
+                    p = new ConnectionPool(
+                            System.getProperty("voting.db.url", defaultUrl),
+                            System.getProperty("voting.db.user", "root"),
+                            System.getProperty("voting.db.password", "password"));
+                    // schema first, so the hot statements below prepare against the final tables
+                    SchemaMigrator.migrate(p);
+                    p.prepareOnOpen(Sql.hot());
+                    final ConnectionPool created = p;
+                    Runtime.getRuntime().addShutdownHook(new Thread(created::close, "voting-pool-shutdown"));
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    // The pool if something has already created it, else null; never connects or migrates.
+    static ConnectionPool poolIfStarted() {
+        return pool;
+    }
+}
\ No newline at end of file
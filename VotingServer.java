@@ -0,0 +1,489 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// ---------------- Headless vote server ----------------
+// Exposes the Voter and Admin operations as a small HTTP/JSON API on the JDK's built-in
+// HttpServer, so voting stations talk to one pooled backend instead of each holding its own
+// DB connections and credentials. Requests run on virtual threads where available (JDK 21+,
+// see VotingService.newWorkerExecutor). Responses always carry Content-Length, so clients
+// keep their connections open between requests.
+//
+//   POST /api/voter/login     {name, password}            -> {token, voter}
+//   GET  /api/ballot                                      -> {version, races:[{positionId, position, choices}]}
+//   POST /api/vote            {token, choices:[..]}       -> {result}  (409 once the session has voted)
+//                             choices[i] = slot chosen for position id i + 1 (BallotRecord), 0 = none;
+//                             {token, candidateIds:[..]} is accepted as well
+//   GET  /api/status?since=N&waitMs=M                     -> {active, seq}  (long poll)
+//   GET  /api/results                                     -> leaderboards, once voting is closed
+//   POST /api/batch           {requests:[{path, body}]}   -> {responses:[{status, body}]}
+//   POST /api/admin/login     {username, password}        -> {token}
+//   POST /api/admin/start|stop|reset|results|verify-tally|metrics {token}
+//
+// The GET routes also accept POST with a JSON body; GET on any other route is a 405, so
+// passwords and session tokens never travel in a URL.
+//
+// Batched requests run in order on one thread, so a station can log in and fetch the ballot
+// in a single round trip. /api/status returns as soon as the status seq differs from "since",
+// otherwise it waits up to waitMs (max 30 s, -Dvoting.server.maxWaitMs) for a change. A waiting
+// poll is parked without a thread and answered when the status changes or the wait runs out,
+// so idle stations never take request threads away from /api/vote. Inside a batch, status
+// does not wait.
+//
+// Run with: java -cp ".:mysql-connector.jar" VotingServer [port]
+// (-Dvoting.server.port, default 8080; DB settings as for the GUI, e.g. -Dvoting.db.url)
+final class VotingServer {
+    private static final int MAX_BODY = 1 << 20;
+    private static final long MAX_WAIT_MS = Long.getLong("voting.server.maxWaitMs", 30_000L);
+    private static final String STATUS = "/api/status";
+    // the only routes open to GET; everything else carries credentials or changes state and
+    // must not put them in URLs (and so in proxy and access logs)
+    private static final Set<String> READ_ONLY = Set.of("/api/ballot", STATUS, "/api/results");
+    private static final int MAX_BATCH = Integer.getInteger("voting.server.maxBatch", 100);
+    private static final long SESSION_TTL_MS = Long.getLong("voting.server.sessionTtlMs", 30 * 60_000L);
+
+    interface Handler {
+        Object handle(Map<String, Object> body) throws Exception;
+    }
+
+    // an error that maps to an HTTP status; anything else becomes a 500
+    static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    static final class Reply {
+        final int status;
+        final Object body;
+
+        Reply(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static final class Session {
+        final Voter voter;      // null for admin sessions
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile boolean voted; // a ballot was accepted (or the voter had already voted)
+
+        Session(Voter voter) {
+            this.voter = voter;
+        }
+    }
+
+    // a status long poll waiting for the next change
+    private static final class Poller {
+        final HttpExchange ex;
+        final Map<String, Object> body;
+        final AtomicBoolean done = new AtomicBoolean();
+        volatile ScheduledFuture<?> timeout;
+
+        Poller(HttpExchange ex, Map<String, Object> body) {
+            this.ex = ex;
+            this.body = body;
+        }
+    }
+
+    private final HttpServer http;
+    private final ExecutorService executor;
+    private final ScheduledThreadPoolExecutor sweeper;
+    private final Map<String, Handler> routes = new LinkedHashMap<>();
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final Admin admin = new Admin();
+
+    // status long poll: seq counts the changes this server has seen
+    private final AtomicLong statusSeq = new AtomicLong();
+    private final Set<Poller> pollers = ConcurrentHashMap.newKeySet();
+    private final Consumer<Boolean> statusListener = active -> {
+        statusSeq.incrementAndGet();
+        for (Poller p : pollers) answer(p);
+    };
+
+    // ballot JSON is rebuilt only when the shared Ballot changes
+    private volatile Ballot jsonBallot;
+    private volatile Map<String, Object> ballotJson;
+
+    private VotingServer(int port) throws IOException {
+        routes.put("/api/voter/login", this::voterLogin);
+        routes.put("/api/ballot", body -> ballotJson());
+        routes.put("/api/vote", this::vote);
+        routes.put(STATUS, this::status);
+        routes.put("/api/results", this::publicResults);
+        routes.put("/api/batch", this::batch);
+        routes.put("/api/admin/login", this::adminLogin);
+        routes.put("/api/admin/start", body -> { adminSession(body); admin.startVoting(); return ok(); });
+        routes.put("/api/admin/stop", body -> { adminSession(body); admin.stopVoting(); return ok(); });
+        routes.put("/api/admin/reset", body -> { adminSession(body); admin.resetVotes(); return ok(); });
+        routes.put("/api/admin/results", body -> { adminSession(body); return ResultsAggregator.snapshot().toJson(); });
+        routes.put("/api/admin/verify-tally", body -> { adminSession(body); return verifyTally(); });
+        routes.put("/api/admin/metrics", body -> { adminSession(body); return Metrics.toJson(); });
+
+        // long polls do not hold request threads (see parkStatus), so this only bounds concurrent API calls
+        executor = VotingService.newWorkerExecutor("voting-http", Integer.getInteger("voting.server.threads", 64));
+        http = HttpServer.create(new InetSocketAddress(port), Integer.getInteger("voting.server.backlog", 0));
+        http.createContext("/api/", this::exchange);
+        http.setExecutor(executor);
+
+        // also times out parked status polls; answered polls cancel their timeout
+        sweeper = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "voting-session-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.setRemoveOnCancelPolicy(true);
+    }
+
+    // Start an embedded server; port 0 picks a free port (see getPort()).
+    static VotingServer start(int port) throws IOException {
+        VotingServer server = new VotingServer(port);
+        VotingStatus.isActive();
+        VotingStatus.addListener(server.statusListener);
+        server.sweeper.scheduleWithFixedDelay(server::expireSessions, 1, 1, TimeUnit.MINUTES);
+        server.http.start();
+        System.out.println("Voting server listening on port " + server.getPort());
+        return server;
+    }
+
+    int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    void stop() {
+        http.stop(1);
+        VotingStatus.removeListener(statusListener);
+        sweeper.shutdownNow();
+        pollers.clear();
+        executor.shutdown();
+        System.out.println("Voting server stopped.");
+    }
+
+    // ---------------- HTTP ----------------
+    private void exchange(HttpExchange ex) throws IOException {
+        Reply reply;
+        try {
+            String method = ex.getRequestMethod();
+            String path = ex.getRequestURI().getPath();
+            boolean get = "GET".equals(method);
+            if (!get && !"POST".equals(method)) {
+                reply = error(405, "GET or POST expected");
+            } else if (get && !READ_ONLY.contains(path)) {
+                ex.getResponseHeaders().set("Allow", "POST");
+                reply = error(405, "POST expected");
+            } else {
+                Map<String, Object> body = readBody(ex, get);
+                if (STATUS.equals(path) && parkStatus(ex, body)) return;
+                reply = dispatch(path, body);
+            }
+        } catch (ApiException e) {
+            reply = error(e.status, e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            reply = error(500, "Internal error");
+        }
+        send(ex, reply);
+    }
+
+    private static void send(HttpExchange ex, Reply reply) throws IOException {
+        byte[] out = Json.write(reply.body).getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(reply.status, out.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(out);
+        }
+    }
+
+    // JSON body, plus the query parameters for a GET; always fully read so the connection can be reused.
+    private static Map<String, Object> readBody(HttpExchange ex, boolean get) throws IOException {
+        Map<String, Object> body;
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] raw = in.readNBytes(MAX_BODY + 1);
+            if (raw.length > MAX_BODY) throw new ApiException(413, "Request too large");
+            String text = new String(raw, StandardCharsets.UTF_8).trim();
+            try {
+                body = text.isEmpty() ? new LinkedHashMap<>() : Json.parseObject(text);
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, e.getMessage());
+            }
+        }
+        String query = get ? ex.getRequestURI().getRawQuery() : null;
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq <= 0) continue;
+                body.putIfAbsent(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return body;
+    }
+
+    private Reply dispatch(String path, Map<String, Object> body) {
+        Handler h = routes.get(path);
+        if (h == null) return error(404, "Unknown path " + path);
+        // timed per route as "http./api/..."; only 5xx replies count as failed
+        try (Metrics.Op op = Metrics.op("http." + path)) {
+            Reply reply = invoke(h, body);
+            if (reply.status < 500) op.ok();
+            return reply;
+        }
+    }
+
+    private static Reply invoke(Handler h, Map<String, Object> body) {
+        try {
+            return new Reply(200, h.handle(body));
+        } catch (ApiException e) {
+            return error(e.status, e.getMessage());
+        } catch (ClassCastException | IllegalArgumentException e) {
+            return error(400, "Bad request: " + e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return error(500, "Internal error");
+        }
+    }
+
+    private static Reply error(int status, String message) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("error", message);
+        return new Reply(status, m);
+    }
+
+    private static Map<String, Object> ok() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("ok", true);
+        return m;
+    }
+
+    // ---------------- Sessions ----------------
+    private String newSession(Voter voter) {
+        byte[] b = new byte[18];
+        random.nextBytes(b);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(b);
+        sessions.put(token, new Session(voter));
+        return token;
+    }
+
+    private Session session(Map<String, Object> body) {
+        String token = Json.str(body, "token");
+        Session s = token != null ? sessions.get(token) : null;
+        if (s == null || System.currentTimeMillis() - s.lastUsed > SESSION_TTL_MS) {
+            throw new ApiException(401, "Not logged in or session expired");
+        }
+        s.lastUsed = System.currentTimeMillis();
+        return s;
+    }
+
+    private void adminSession(Map<String, Object> body) {
+        if (session(body).voter != null) throw new ApiException(403, "Admin session required");
+    }
+
+    private void expireSessions() {
+        long cutoff = System.currentTimeMillis() - SESSION_TTL_MS;
+        sessions.values().removeIf(s -> s.lastUsed < cutoff);
+    }
+
+    // ---------------- Voter ----------------
+    private Object voterLogin(Map<String, Object> body) {
+        Voter v = Voter.login(Json.str(body, "name"), Json.str(body, "password"));
+        if (v == null) throw new ApiException(401, "Invalid credentials or account not verified");
+        Map<String, Object> voter = new LinkedHashMap<>();
+        voter.put("id", v.getId());
+        voter.put("name", v.getName());
+        voter.put("hasVoted", v.isHasVoted());
+        voter.put("verified", v.isVerified());
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("token", newSession(v));
+        m.put("voter", voter);
+        return m;
+    }
+
+    private Object vote(Map<String, Object> body) {
+        Session s = session(body);
+        if (s.voter == null) throw new ApiException(403, "Voter session required");
+        if (s.voted) throw new ApiException(409, "Already voted");
+        VoteResult result = body.containsKey("choices")
+                ? s.voter.castBallot(record(Json.intArray(body.get("choices"))))
+                : s.voter.castBallot(Json.intArray(body.get("candidateIds")));
+        // the voter is done either way; a retry with the same token gets a 409 until the session
+        // expires, so a 401 always means "log in again", never "already voted"
+        if (result == VoteResult.ACCEPTED || result == VoteResult.ALREADY_VOTED) s.voted = true;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("result", result.name());
+        return m;
+    }
+
+    private static BallotRecord record(int[] slots) {
+        try {
+            return BallotRecord.fromArray(slots);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Bad ballot: " + e.getMessage());
+        }
+    }
+
+    private Map<String, Object> ballotJson() throws Exception {
+        Ballot b = Ballot.current();
+        if (b == jsonBallot) return ballotJson;
+        List<Object> races = new ArrayList<>();
+        for (Ballot.Race r : b.races) {
+            List<Object> choices = new ArrayList<>();
+            for (Ballot.Choice c : r.choices) {
+                Map<String, Object> cm = new LinkedHashMap<>();
+                cm.put("id", c.candidateId);
+                cm.put("slot", c.slot);
+                cm.put("name", c.name);
+                cm.put("symbol", c.symbol);
+                cm.put("age", c.age);
+                choices.add(cm);
+            }
+            Map<String, Object> rm = new LinkedHashMap<>();
+            rm.put("positionId", r.positionId);
+            rm.put("position", r.position);
+            rm.put("choices", choices);
+            races.add(rm);
+        }
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("version", b.version);
+        m.put("races", races);
+        ballotJson = m;
+        jsonBallot = b;
+        return m;
+    }
+
+    // The current status; never waits (waiting polls are parked by parkStatus first).
+    private Object status(Map<String, Object> body) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("active", VotingStatus.isActive());
+        m.put("seq", statusSeq.get());
+        return m;
+    }
+
+    // Holds a status poll with nothing new to report until the status changes or waitMs runs
+    // out, without a thread: the exchange stays open and answer() replies later. False if the
+    // poll should be answered right away.
+    private boolean parkStatus(HttpExchange ex, Map<String, Object> body) {
+        long since = Json.num(body, "since", -1);
+        long waitMs = Math.min(Json.num(body, "waitMs", 0), MAX_WAIT_MS);
+        if (waitMs <= 0 || since != statusSeq.get()) return false;
+        Poller p = new Poller(ex, body);
+        pollers.add(p);
+        try {
+            p.timeout = sweeper.schedule(() -> answer(p), waitMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pollers.remove(p);
+            return false;   // stopping
+        }
+        // a change that landed while parking would otherwise wait for the timeout
+        if (statusSeq.get() != since) answer(p);
+        return true;
+    }
+
+    private void answer(Poller p) {
+        if (!p.done.compareAndSet(false, true)) return;
+        pollers.remove(p);
+        ScheduledFuture<?> t = p.timeout;
+        if (t != null) t.cancel(false);
+        try {
+            executor.execute(() -> {
+                try {
+                    send(p.ex, dispatch(STATUS, p.body));
+                } catch (IOException e) {
+                    p.ex.close();   // station went away
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            p.ex.close();
+        }
+    }
+
+    private Object batch(Map<String, Object> body) {
+        Object list = body.get("requests");
+        if (!(list instanceof List)) throw new ApiException(400, "requests array expected");
+        List<?> requests = (List<?>) list;
+        if (requests.size() > MAX_BATCH) throw new ApiException(413, "At most " + MAX_BATCH + " requests per batch");
+        List<Object> responses = new ArrayList<>(requests.size());
+        for (Object o : requests) {
+            Reply r;
+            if (!(o instanceof Map)) {
+                r = error(400, "request object expected");
+            } else {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> req = (Map<String, Object>) o;
+                String path = Json.str(req, "path");
+                Object sub = req.get("body");
+                @SuppressWarnings("unchecked")
+                Map<String, Object> subBody = sub instanceof Map ? (Map<String, Object>) sub : new LinkedHashMap<>();
+                r = "/api/batch".equals(path) ? error(400, "Nested batch") : dispatch(path, subBody);
+            }
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("status", r.status);
+            m.put("body", r.body);
+            responses.add(m);
+        }
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("responses", responses);
+        return m;
+    }
+
+    // ---------------- Admin ----------------
+    private Object adminLogin(Map<String, Object> body) {
+        if (!admin.login(Json.str(body, "username"), Json.str(body, "password"))) {
+            throw new ApiException(401, "Invalid admin credentials");
+        }
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("token", newSession(null));
+        return m;
+    }
+
+    // Voters only see results once voting has stopped (same rule as the station GUI).
+    private Object publicResults(Map<String, Object> body) {
+        if (VotingStatus.isActive()) throw new ApiException(403, "Results are shown when voting is closed");
+        return ResultsAggregator.snapshot().toJson();
+    }
+
+    private Object verifyTally() {
+        TallyEngine.Report report = admin.verifyTally();
+        if (report == null) throw new ApiException(500, "Recount failed");
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("consistent", report.isConsistent());
+        m.put("ballots", report.ballots);
+        m.put("selections", report.selections);
+        m.put("mismatches", report.mismatches);
+        m.put("orphans", report.orphans);
+        m.put("report", report.toString());
+        return m;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("voting.server.port", 8080);
+        VotingServer server = start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "voting-server-stop"));
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// ---------------- Async service layer ----------------
+// Runs the blocking Admin/Voter/JDBC calls on a dedicated executor and hands back
+// CompletableFutures, so the Swing EDT never waits on the database. Completion stages
+// run on the worker thread; the GUI applies results with SwingUtilities.invokeLater.
+final class VotingService {
+    private static final ExecutorService EXECUTOR = newWorkerExecutor("voting-db");
+
+    // set when voter screens go through a VotingServer (-Dvoting.server.url)
+    private static final VotingClient REMOTE = VotingClient.shared();
+
+    private final Admin admin;
+
+    VotingService(Admin admin) {
+        this.admin = admin;
+    }
+
+    // Virtual threads where the JDK has them (21+), otherwise a daemon pool sized like the
+    // connection pool, since more concurrent DB calls than connections only queue up anyway.
+    static ExecutorService newWorkerExecutor(String name) {
+        return newWorkerExecutor(name, Integer.getInteger("voting.pool.max", 10));
+    }
+
+    static ExecutorService newWorkerExecutor(String name, int fallbackThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newFixedThreadPool(Math.max(2, fallbackThreads), r -> {
+                Thread t = new Thread(r, name + "-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // Run any blocking call off the calling thread.
+    <T> CompletableFuture<T> call(Callable<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return work.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    CompletableFuture<Void> run(Runnable work) {
+        return CompletableFuture.runAsync(work, EXECUTOR);
+    }
+
+    // ---------------- Admin ----------------
+    CompletableFuture<Boolean> adminLogin(String username, String password) { return call(() -> admin.login(username, password)); }
+    CompletableFuture<Void> startVoting() { return run(admin::startVoting); }
+    CompletableFuture<Void> stopVoting() { return run(admin::stopVoting); }
+    CompletableFuture<Void> resetVotes() { return run(admin::resetVotes); }
+    CompletableFuture<ArrayList<String>> positions() { return call(admin::getAllPositions); }
+    CompletableFuture<TallyEngine.Report> verifyTally() { return call(admin::verifyTally); }
+
+    // Candidates for one position (or all when position is null), with their list
+    // thumbnails already decoded into the PhotoCache.
+    CompletableFuture<ArrayList<Candidate>> candidates(String position, int thumbSize) {
+        return call(() -> {
+            ArrayList<Candidate> list = position == null ? admin.getAllCandidates() : admin.getCandidatesByPosition(position);
+            if (thumbSize > 0) for (Candidate c : list) admin.getCandidateThumbnail(c.id, thumbSize);
+            return list;
+        });
+    }
+
+    // Decoded thumbnail from the PhotoCache, loaded from the DB on a miss; null if no photo.
+    CompletableFuture<java.awt.image.BufferedImage> thumbnail(int candidateId, int size) {
+        return call(() -> admin.getCandidateThumbnail(candidateId, size));
+    }
+
+    // ---------------- Voter ----------------
+    CompletableFuture<Voter> voterLogin(String name, String password) {
+        return call(() -> REMOTE != null ? REMOTE.login(name, password) : Voter.login(name, password));
+    }
+
+    // Startup warm-up for a voting station: with a vote server only the ballot is fetched;
+    // otherwise the pool is opened (driver, schema check, hot statements), the voting status
+    // read and the shared ballot loaded.
+    CompletableFuture<Void> warmUp() {
+        return call(() -> {
+            if (REMOTE != null) {
+                REMOTE.ballot();
+                return null;
+            }
+            DBUtil.getPool();
+            VotingStatus.isActive();
+            Ballot.current();
+            return null;
+        });
+    }
+
+    CompletableFuture<Ballot> ballot() {
+        return call(() -> REMOTE != null ? REMOTE.ballot() : Ballot.current());
+    }
+
+    CompletableFuture<ResultsAggregator.Snapshot> results() {
+        return call(() -> REMOTE != null ? REMOTE.results() : ResultsAggregator.snapshot());
+    }
+
+    CompletableFuture<VoteResult> castBallot(Voter voter, int[] candidateIds) {
+        return call(() -> REMOTE != null ? REMOTE.castBallot(voter, candidateIds) : voter.castBallot(candidateIds));
+    }
+
+    CompletableFuture<VoteResult> castBallot(Voter voter, BallotRecord record) {
+        return call(() -> REMOTE != null ? REMOTE.castBallot(voter, record) : voter.castBallot(record));
+    }
+}
@@ -0,0 +1,166 @@
+import java.sql.*;
+import java.io.IOException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// ---------------- Voting status notifications ----------------
+// One watcher per JVM instead of a DB poll per panel. Changes made through Admin in this
+// JVM are published straight to the listeners (local event bus). Changes made by another
+// station are picked up by a single background thread that reads voting_status.version.
+// It polls right away when the first listener arrives (a voter panel is shown after each
+// login), then backs off: the delay starts at -Dvoting.status.pollMs (default 5000, 0 = local
+// events only) and doubles while the version stays the same, up to -Dvoting.status.maxPollMs
+// (default 60000); a change resets it. That residual poll is one indexed single-row read per
+// minute per idle kiosk; a vote server relays changes to its stations, so give it a lower
+// maxPollMs when the admin console runs on another machine. The watched state only decides
+// what the screen shows: a vote is checked against voting_status in the same statement that
+// claims the voter (Sql.VOTER_CLAIM), and a vote refused because voting closed publishes that
+// here. The thread only runs while somebody is listening, so no DB I/O happens while no
+// status view is on screen.
+// Listeners are called only when is_active actually changes, on the watcher thread or the
+// publishing thread; Swing listeners must hop to the EDT themselves.
+// With -Dvoting.server.url the watcher long-polls the vote server's /api/status instead of
+// reading the DB, so a change reaches every station as soon as the server sees it.
+final class VotingStatus {
+    private static final long POLL_MS = Long.getLong("voting.status.pollMs", 5000L);
+    private static final long MAX_POLL_MS = Math.max(POLL_MS, Long.getLong("voting.status.maxPollMs", 60_000L));
+
+    private static final CopyOnWriteArrayList<Consumer<Boolean>> listeners = new CopyOnWriteArrayList<>();
+    private static volatile Boolean active;     // null until first known
+    private static volatile long version = -1;  // voting_status.version, or the server's seq when remote
+
+    private static ScheduledExecutorService watcher;
+    private static ScheduledFuture<?> task;
+    private static long delay;                  // current DB poll delay, guarded by VotingStatus.class
+    private static int chain;                   // bumped per start, so a stopped poll does not reschedule
+
+    private VotingStatus() { }
+
+    // Register a listener; it immediately receives the current state if that is known.
+    static void addListener(Consumer<Boolean> listener) {
+        listeners.add(listener);
+        Boolean a = active;
+        if (a != null) listener.accept(a);
+        startWatching();
+    }
+
+    static void removeListener(Consumer<Boolean> listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty()) stopWatching();
+    }
+
+    // Last known state without touching the DB; null if not known yet.
+    static Boolean current() {
+        return active;
+    }
+
+    // Last known state; reads the DB only if nothing is known yet.
+    static boolean isActive() {
+        Boolean a = active;
+        if (a == null) {
+            poll();
+            a = active;
+        }
+        return a != null && a;
+    }
+
+    // Called by Admin after it changed the status row.
+    static void publish(boolean isActive) {
+        update(isActive);
+    }
+
+    private static synchronized void startWatching() {
+        if (task != null) return;
+        if (watcher == null) {
+            watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "voting-status-watcher");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        if (VotingClient.isConfigured()) task = watcher.scheduleWithFixedDelay(VotingStatus::pollRemote, 0, 250, TimeUnit.MILLISECONDS);
+        else if (POLL_MS > 0) {
+            delay = POLL_MS;
+            int c = ++chain;
+            task = watcher.schedule(() -> pollAndReschedule(c), 0, TimeUnit.MILLISECONDS);
+        }
+        else if (active == null) task = watcher.schedule(VotingStatus::poll, 0, TimeUnit.MILLISECONDS);
+    }
+
+    // One DB poll, then the next one after the current delay, doubled if nothing changed.
+    private static void pollAndReschedule(int c) {
+        boolean changed = poll();
+        synchronized (VotingStatus.class) {
+            if (task == null || c != chain) return;   // stopped (and maybe restarted) while polling
+            if (changed) delay = POLL_MS;
+            task = watcher.schedule(() -> pollAndReschedule(c), delay, TimeUnit.MILLISECONDS);
+            delay = Math.min(delay * 2, MAX_POLL_MS);
+        }
+    }
+
+    private static synchronized void stopWatching() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    // true if the version moved since the last poll
+    private static boolean poll() {
+        if (VotingClient.isConfigured()) {
+            pollRemote(0);
+            return false;
+        }
+        // the status row is created by SchemaMigrator; a missing row reads as "not active"
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement ps = Sql.STATUS_POLL.prepare(con);
+             ResultSet rs = ps.executeQuery()) {
+            boolean isActive = false;
+            long v = 0;
+            if (rs.next()) {
+                v = rs.getLong("version");
+                isActive = rs.getBoolean("is_active");
+            }
+            if (v != version || active == null) {
+                version = v;
+                update(isActive);
+                return true;
+            }
+        } catch (Exception e) { e.printStackTrace(); }
+        return false;
+    }
+
+    private static void pollRemote() {
+        pollRemote(VotingClient.STATUS_WAIT_MS);
+    }
+
+    // Blocks until the server reports a change or waitMs passes.
+    private static void pollRemote(long waitMs) {
+        try {
+            VotingClient.Status s = VotingClient.shared().status(version, waitMs);
+            if (s.seq != version || active == null) {
+                version = s.seq;
+                update(s.active);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // server down or restarting: back off instead of spinning on the poll delay
+            System.out.println("Vote server unreachable: " + e.getMessage());
+            try { Thread.sleep(5000); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
+        } catch (Exception e) { e.printStackTrace(); }
+    }
+
+    private static synchronized void update(boolean isActive) {
+        Boolean old = active;
+        active = isActive;
+        if (old != null && old == isActive) return;
+        for (Consumer<Boolean> l : listeners) {
+            try { l.accept(isActive); } catch (Exception e) { e.printStackTrace(); }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Random;
+import javax.imageio.ImageIO;
+
+// ---------------- Benchmark workload (H2 stand-in database) ----------------
+// Drives the real Admin/Voter code against an in-memory H2 database in MySQL mode. Lives in
+// the default package so it can see the application classes; see votingbench.Workload.
+public class BenchWorkload implements votingbench.Workload {
+    // -Dvoting.bench.url overrides the database, e.g. with ";QUERY_CACHE_SIZE=0" appended so H2
+    // parses every prepare like a server without a statement cache would
+    private static final String URL = System.getProperty("voting.bench.url",
+            "jdbc:h2:mem:votingbench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+    private static final int SEED_BATCH = 10_000;
+
+    static {
+        // DBUtil reads these once, when the pool is first created
+        System.setProperty("voting.db.driver", "org.h2.Driver");
+        System.setProperty("voting.db.url", URL);
+        System.setProperty("voting.db.user", "sa");
+        System.setProperty("voting.db.password", "");
+    }
+
+    private final Admin admin = new Admin();
+    private int[][] candidateIds;   // [position][candidate]
+
+    @Override
+    public void open(int voters, boolean photos) throws Exception {
+        // the data paths print a line per operation; that would dominate the timings
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        try (Connection con = DBUtil.getConnection(); Statement st = con.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+            st.execute("RUNSCRIPT FROM 'classpath:/bench-schema.sql'");
+        }
+        seedVoters(voters);
+        seedCandidates(photos);
+        Ballot.invalidate();
+        PhotoCache.shared().clear();
+    }
+
+    @Override
+    public void close() {
+        try (Connection con = DBUtil.getConnection(); Statement st = con.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        } catch (Exception e) { e.printStackTrace(); }
+    }
+
+    private void seedVoters(int voters) throws Exception {
+        String sql = "INSERT INTO voters(name, password, dob, has_voted, verified) VALUES(?, ?, ?, 0, 1)";
+        Date dob = Date.valueOf(LocalDate.of(1990, 1, 1));
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            con.setAutoCommit(false);
+            try {
+                for (int i = 1; i <= voters; i++) {
+                    ps.setString(1, "voter" + i);
+                    ps.setString(2, "pw" + i);
+                    ps.setDate(3, dob);
+                    ps.addBatch();
+                    if (i % SEED_BATCH == 0) ps.executeBatch();
+                }
+                ps.executeBatch();
+                con.commit();
+            } finally {
+                con.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void seedCandidates(boolean photos) throws Exception {
+        PhotoProcessor.Processed photo = photos ? PhotoProcessor.process(samplePhoto()) : null;
+        candidateIds = new int[POSITIONS][CANDIDATES_PER_POSITION];
+        String insPosition = "INSERT INTO positions(name, next_slot) VALUES(?, " + CANDIDATES_PER_POSITION + ")";
+        String insCandidate = "INSERT INTO candidates(name, symbol, age, position_id, slot, photo, thumb_140, thumb_180, bio, votes) "
+                + "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement pp = con.prepareStatement(insPosition, Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement pc = con.prepareStatement(insCandidate, Statement.RETURN_GENERATED_KEYS)) {
+            for (int p = 0; p < POSITIONS; p++) {
+                String position = "Position " + (p + 1);
+                pp.setString(1, position);
+                pp.executeUpdate();
+                int positionId;
+                try (ResultSet keys = pp.getGeneratedKeys()) {
+                    keys.next();
+                    positionId = keys.getInt(1);
+                }
+                for (int c = 0; c < CANDIDATES_PER_POSITION; c++) {
+                    pc.setString(1, "Candidate " + (p + 1) + "-" + (c + 1));
+                    pc.setString(2, "S" + c);
+                    pc.setInt(3, 40 + c);
+                    pc.setInt(4, positionId);
+                    pc.setInt(5, c + 1);
+                    pc.setBytes(6, photo != null ? photo.original : null);
+                    pc.setBytes(7, photo != null ? photo.thumbList : null);
+                    pc.setBytes(8, photo != null ? photo.thumbDetail : null);
+                    pc.setString(9, "Benchmark candidate");
+                    pc.executeUpdate();
+                    try (ResultSet keys = pc.getGeneratedKeys()) {
+                        keys.next();
+                        candidateIds[p][c] = keys.getInt(1);
+                    }
+                }
+            }
+        }
+    }
+
+    // a photo-like 1024x1024 JPEG: gradient plus noise, so it does not compress to nothing
+    private static byte[] samplePhoto() throws Exception {
+        BufferedImage img = new BufferedImage(1024, 1024, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(40, 80, 160), 1024, 1024, new Color(230, 190, 120)));
+        g.fillRect(0, 0, 1024, 1024);
+        g.dispose();
+        Random rnd = new Random(42);
+        for (int i = 0; i < 200_000; i++) img.setRGB(rnd.nextInt(1024), rnd.nextInt(1024), rnd.nextInt());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    // ---------------- Voter ----------------
+    @Override
+    public boolean login(int voter) {
+        return Voter.login("voter" + voter, "pw" + voter) != null;
+    }
+
+    @Override
+    public boolean register(String name) {
+        return Voter.register(name, "pw", LocalDate.of(1990, 1, 1));
+    }
+
+    @Override
+    public void resetVoter(int voter) {
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement ps = con.prepareStatement("UPDATE voters SET has_voted = 0 WHERE id = ?")) {
+            ps.setInt(1, voter);
+            ps.executeUpdate();
+        } catch (Exception e) { e.printStackTrace(); }
+    }
+
+    // Voter.vote(id) is castBallot(id) without the result; the result is checked here
+    @Override
+    public boolean vote(int voter, int candidateId) {
+        return voter(voter).castBallot(candidateId) == VoteResult.ACCEPTED;
+    }
+
+    @Override
+    public boolean voteBallot(int voter, int[] candidateIds) {
+        return voter(voter).castBallot(candidateIds) == VoteResult.ACCEPTED;
+    }
+
+    private static Voter voter(int id) {
+        return new Voter(id, "voter" + id, "pw" + id, false, true, null);
+    }
+
+    @Override
+    public int[] ballot(int k) {
+        int[] ids = new int[POSITIONS];
+        for (int p = 0; p < POSITIONS; p++) ids[p] = candidateIds[p][Math.floorMod(k, CANDIDATES_PER_POSITION)];
+        return ids;
+    }
+
+    // ---------------- Admin ----------------
+    @Override
+    public int allCandidates() {
+        return admin.getAllCandidates().size();
+    }
+
+    @Override
+    public int allCandidatesWithThumbnails(int size) {
+        PhotoCache.shared().clear();
+        int shown = 0;
+        for (Candidate c : admin.getAllCandidates()) {
+            if (admin.getCandidateThumbnail(c.id, size) != null) shown++;
+        }
+        return shown;
+    }
+
+    @Override
+    public int allVoters() {
+        return admin.getAllVoters().size();
+    }
+}
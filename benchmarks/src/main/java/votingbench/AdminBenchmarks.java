@@ -0,0 +1,68 @@
+package votingbench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Admin-side reads: the candidate list with and without stored photos, and the full voter
+// roll at 1k / 100k / 1M rows.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AdminBenchmarks {
+
+    @State(Scope.Benchmark)
+    public static class Candidates {
+        @Param({"false", "true"})
+        public boolean photos;
+
+        Workload db;
+
+        @Setup(Level.Trial)
+        public void open() throws Exception {
+            db = Workload.create();
+            db.open(1000, photos);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            db.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Roll {
+        @Param({"1000", "100000", "1000000"})
+        public int voters;
+
+        Workload db;
+
+        @Setup(Level.Trial)
+        public void open() throws Exception {
+            db = Workload.create();
+            db.open(voters, false);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            db.close();
+        }
+    }
+
+    @Benchmark
+    public int getAllCandidates(Candidates state) {
+        return state.db.allCandidates();
+    }
+
+    // the candidate list view: metadata plus a 140px thumbnail each, from a cold cache
+    @Benchmark
+    public int getAllCandidatesWithThumbnails(Candidates state) {
+        return state.db.allCandidatesWithThumbnails(140);
+    }
+
+    @Benchmark
+    public int getAllVoters(Roll state) {
+        return state.db.allVoters();
+    }
+}
@@ -0,0 +1,73 @@
+package votingbench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.*;
+
+// Voter-side data paths: login, registration, a single vote and the full multi-position
+// ballot the voter panel submits. Each op is one short transaction, so average time per op
+// in microseconds is the useful number; roll size shows whether it grows with the table.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class VoterBenchmarks {
+
+    @State(Scope.Benchmark)
+    public static class Roll {
+        @Param({"1000", "1000000"})
+        public int voters;
+
+        Workload db;
+
+        @Setup(Level.Trial)
+        public void open() throws Exception {
+            db = Workload.create();
+            db.open(voters, false);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            db.close();
+        }
+    }
+
+    // Next voter to vote, cycling through the roll. Resetting has_voted is not timed; the
+    // per-invocation setup overhead is small next to a vote transaction.
+    @State(Scope.Thread)
+    public static class NextVoter {
+        int id;
+        int k;
+
+        @Setup(Level.Invocation)
+        public void next(Roll roll) {
+            id = id % roll.voters + 1;
+            k++;
+            roll.db.resetVoter(id);
+        }
+    }
+
+    private static final AtomicLong registered = new AtomicLong();
+
+    @Benchmark
+    public boolean login(Roll roll) {
+        int voter = 1 + (int) ((registered.incrementAndGet() * 7919L) % roll.voters);
+        return roll.db.login(voter);
+    }
+
+    @Benchmark
+    public boolean register(Roll roll) {
+        return roll.db.register("bench" + registered.incrementAndGet());
+    }
+
+    @Benchmark
+    public boolean vote(Roll roll, NextVoter next) {
+        return roll.db.vote(next.id, roll.db.ballot(next.k)[0]);
+    }
+
+    @Benchmark
+    public boolean voteBallot(Roll roll, NextVoter next) {
+        return roll.db.voteBallot(next.id, roll.db.ballot(next.k));
+    }
+}
@@ -0,0 +1,45 @@
+package votingbench;
+
+// The application classes live in the default package, which code in a named package cannot
+// reference, and JMH refuses benchmarks in the default package. So the benchmarks call the
+// data paths through this interface; BenchWorkload (default package) implements it and is
+// loaded once by name. Calls are plain interface calls, no reflection per operation.
+public interface Workload {
+    int POSITIONS = 5;
+    int CANDIDATES_PER_POSITION = 4;
+
+    // Creates and seeds a fresh in-memory database: voters 1..voters ("voter<i>" / "pw<i>",
+    // verified), POSITIONS x CANDIDATES_PER_POSITION candidates, voting active.
+    void open(int voters, boolean photos) throws Exception;
+
+    void close();
+
+    static Workload create() throws Exception {
+        return (Workload) Class.forName("BenchWorkload").getDeclaredConstructor().newInstance();
+    }
+
+    // ---------------- Voter ----------------
+    boolean login(int voter);
+
+    boolean register(String name);
+
+    // Marks a voter as not voted again so the next vote by them is accepted.
+    void resetVoter(int voter);
+
+    // Voter.vote: one candidate.
+    boolean vote(int voter, int candidateId);
+
+    // The multi-position ballot submitted by the voter panel: one candidate per position.
+    boolean voteBallot(int voter, int[] candidateIds);
+
+    // Candidate ids of one valid full ballot; k picks the candidate within every position.
+    int[] ballot(int k);
+
+    // ---------------- Admin ----------------
+    int allCandidates();
+
+    // getAllCandidates plus a cold-cache thumbnail per candidate, as the candidate list shows it.
+    int allCandidatesWithThumbnails(int size);
+
+    int allVoters();
+}
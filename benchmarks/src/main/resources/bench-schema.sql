@@ -0,0 +1,58 @@
+-- Schema of votingdb.sql for the benchmarks' in-memory H2 database (MySQL mode).
+-- Same tables, columns and indexes; only the MySQL-only statements (PREPARE, triggers,
+-- information_schema upgrades) are left out.
+CREATE TABLE admin (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(50) NOT NULL UNIQUE,
+    password VARCHAR(50) NOT NULL
+);
+INSERT INTO admin (username, password) VALUES ('admin', 'admin123');
+
+CREATE TABLE voters (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(50) NOT NULL,
+    password VARCHAR(50) NOT NULL,
+    has_voted BOOLEAN DEFAULT 0,
+    verified BOOLEAN DEFAULT 0,
+    dob DATE,
+    CONSTRAINT uq_voters_name UNIQUE (name)
+);
+CREATE INDEX idx_voters_status ON voters (verified, has_voted);
+
+CREATE TABLE positions (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) UNIQUE,
+    next_slot INT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE candidates (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(50) NOT NULL,
+    symbol VARCHAR(50) NOT NULL,
+    age INT,
+    position_id INT,
+    slot SMALLINT,
+    photo LONGBLOB,
+    thumb_140 MEDIUMBLOB,
+    thumb_180 MEDIUMBLOB,
+    photo_hash CHAR(64),
+    bio TEXT,
+    votes INT DEFAULT 0
+);
+CREATE UNIQUE INDEX uq_candidates_slot ON candidates (position_id, slot);
+ALTER TABLE candidates ADD CONSTRAINT fk_candidates_position_id
+    FOREIGN KEY (position_id) REFERENCES positions(id);
+
+CREATE TABLE ballots (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    choices VARBINARY(1024) NOT NULL,
+    cast_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE voting_status (
+    id INT PRIMARY KEY,
+    is_active BOOLEAN DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
+    changed_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3)
+);
+INSERT INTO voting_status (id, is_active) VALUES (1, 1);
@@ -1,6 +1,10 @@
 CREATE DATABASE IF NOT EXISTS votingdb;
 USE votingdb;
 
+-- The application also checks the schema when it starts (SchemaMigrator.java): it adds any
+-- table, column, index or foreign key below that an older database is missing and records
+-- the result in schema_version. Running this script is still the way to create a new database.
+
 -- ------------------------
 -- ADMIN TABLE
 -- ------------------------
@@ -23,9 +27,37 @@ CREATE TABLE IF NOT EXISTS voters (
     password VARCHAR(50) NOT NULL,
     has_voted BOOLEAN DEFAULT 0,
     verified BOOLEAN DEFAULT 0,
-    dob DATE
+    dob DATE,
+    UNIQUE KEY uq_voters_name (name),   -- voter login looks up a single row by name
+    INDEX idx_voters_status (verified, has_voted)   -- turnout and the pending-verification queue
+);
+
+-- databases created before the index existed: add it once
+SET @has_idx := (SELECT COUNT(*) FROM information_schema.statistics
+                 WHERE table_schema = DATABASE() AND table_name = 'voters' AND index_name = 'uq_voters_name');
+SET @ddl := IF(@has_idx = 0, 'ALTER TABLE voters ADD UNIQUE KEY uq_voters_name (name)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- ------------------------
+-- POSITIONS TABLE
+-- ------------------------
+CREATE TABLE IF NOT EXISTS positions (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) UNIQUE,
+    next_slot INT NOT NULL DEFAULT 0    -- last candidate slot handed out in this position
 );
 
+-- databases created before candidate slots existed: add the counter once (the candidates
+-- columns position_id/slot and the ledger conversion are left to SchemaMigrator)
+SET @has_col := (SELECT COUNT(*) FROM information_schema.columns
+                 WHERE table_schema = DATABASE() AND table_name = 'positions' AND column_name = 'next_slot');
+SET @ddl := IF(@has_col = 0, 'ALTER TABLE positions ADD COLUMN next_slot INT NOT NULL DEFAULT 0', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
 -- ------------------------
 -- CANDIDATES TABLE
 -- ------------------------
@@ -34,31 +66,93 @@ CREATE TABLE IF NOT EXISTS candidates (
     name VARCHAR(50) NOT NULL,
     symbol VARCHAR(50) NOT NULL,
     age INT,
-    position VARCHAR(100),
-    photo LONGBLOB,          -- stores actual photo binary
+    position_id INT,         -- NULL: not standing for any position (not on the ballot)
+    slot SMALLINT,           -- number within the position (1..255) that ballots store; never reused
+    photo LONGBLOB,          -- photo, downscaled at upload to at most 1024px per side
+    thumb_140 MEDIUMBLOB,    -- pre-scaled list thumbnail (PhotoProcessor)
+    thumb_180 MEDIUMBLOB,    -- pre-scaled detail thumbnail (PhotoProcessor)
+    photo_hash CHAR(64),     -- SHA-256 of the photo in the MediaStore (photo is then NULL)
     bio TEXT,
-    votes INT DEFAULT 0
+    votes INT DEFAULT 0,
+    UNIQUE KEY uq_candidates_slot (position_id, slot),
+    CONSTRAINT fk_candidates_position_id FOREIGN KEY (position_id) REFERENCES positions(id)
 );
 
+-- databases created before the thumbnail columns existed: add them once
+-- (then run "java PhotoProcessor" to build thumbnails for existing photos)
+SET @has_col := (SELECT COUNT(*) FROM information_schema.columns
+                 WHERE table_schema = DATABASE() AND table_name = 'candidates' AND column_name = 'thumb_140');
+SET @ddl := IF(@has_col = 0,
+    'ALTER TABLE candidates ADD COLUMN thumb_140 MEDIUMBLOB AFTER photo, ADD COLUMN thumb_180 MEDIUMBLOB AFTER thumb_140',
+    'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @has_col := (SELECT COUNT(*) FROM information_schema.columns
+                 WHERE table_schema = DATABASE() AND table_name = 'candidates' AND column_name = 'photo_hash');
+SET @ddl := IF(@has_col = 0,
+    'ALTER TABLE candidates ADD COLUMN photo_hash CHAR(64) AFTER thumb_180',
+    'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- ------------------------
+-- BALLOTS TABLE (append-only ledger)
+-- one row per ballot: choices byte i is the slot chosen for position id i + 1, 0 for none
+-- (BallotRecord.java); no voter reference so ballots stay secret. Written in the same
+-- transaction as voters.has_voted.
+-- ------------------------
+CREATE TABLE IF NOT EXISTS ballots (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    choices VARBINARY(1024) NOT NULL,
+    cast_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- the ledger is append-only: rows can be inserted, never changed or removed
+-- (a full election reset uses TRUNCATE, which does not fire triggers)
+DROP TRIGGER IF EXISTS ballots_no_update;
+CREATE TRIGGER ballots_no_update BEFORE UPDATE ON ballots
+    FOR EACH ROW SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'ballots is append-only';
+DROP TRIGGER IF EXISTS ballots_no_delete;
+CREATE TRIGGER ballots_no_delete BEFORE DELETE ON ballots
+    FOR EACH ROW SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'ballots is append-only';
+
 -- ------------------------
 -- VOTING STATUS TABLE
 -- ------------------------
+-- version is bumped on every change so stations can detect changes cheaply
 CREATE TABLE IF NOT EXISTS voting_status (
     id INT PRIMARY KEY,
-    is_active BOOLEAN DEFAULT 0
+    is_active BOOLEAN DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
+    changed_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)
 );
 
+-- databases created before the version column existed: add the columns once
+SET @has_col := (SELECT COUNT(*) FROM information_schema.columns
+                 WHERE table_schema = DATABASE() AND table_name = 'voting_status' AND column_name = 'version');
+SET @ddl := IF(@has_col = 0,
+    'ALTER TABLE voting_status ADD COLUMN version BIGINT NOT NULL DEFAULT 0, ADD COLUMN changed_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)',
+    'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
 INSERT INTO voting_status (id, is_active)
 VALUES (1, 0)
-ON DUPLICATE KEY UPDATE is_active=0;
+ON DUPLICATE KEY UPDATE is_active=0, version = version + 1;
 
 -- ------------------------
 -- CLEAN START (OPTIONAL)
 -- ------------------------
+TRUNCATE TABLE ballots;
 DELETE FROM candidates;
 DELETE FROM voters;
 
 ALTER TABLE candidates AUTO_INCREMENT = 1;
 ALTER TABLE voters AUTO_INCREMENT = 1;
+UPDATE positions SET next_slot = 0;
 
-UPDATE voting_status SET is_active = 0;
+UPDATE voting_status SET is_active = 0, version = version + 1;